@@ -0,0 +1,39 @@
+package com.bazar.analytics;
+
+import com.bazar.exceptions.BadRequestException;
+
+import java.time.LocalDate;
+
+/**
+ * Time window of the seller dashboard, by the day orders were placed
+ */
+public enum AnalyticsRange {
+    LAST_7_DAYS("7d", 7),
+    LAST_30_DAYS("30d", 30),
+    LAST_90_DAYS("90d", 90),
+    ALL("all", 0);
+
+    private final String code;
+    private final int days;
+
+    AnalyticsRange(String code, int days) {
+        this.code = code;
+        this.days = days;
+    }
+
+    /**
+     * First day inside the window, today included
+     */
+    public LocalDate from(LocalDate today) {
+        return days == 0 ? LocalDate.of(1970, 1, 1) : today.minusDays(days - 1L);
+    }
+
+    public static AnalyticsRange of(String code) {
+        for (AnalyticsRange range : values()) {
+            if (range.code.equalsIgnoreCase(code)) {
+                return range;
+            }
+        }
+        throw new BadRequestException("Unknown range " + code + ", expected 7d, 30d, 90d or all");
+    }
+}
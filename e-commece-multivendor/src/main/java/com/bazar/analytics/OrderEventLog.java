@@ -0,0 +1,95 @@
+package com.bazar.analytics;
+
+import com.bazar.domain.OrderEventType;
+import com.bazar.model.Order;
+import com.bazar.model.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Appends order events (order_event) and hands the ones that are new to the seller report
+ * projector, in the caller's transaction. An event exists at most once per order and type, so
+ * publishing the same change twice (a replayed webhook, a status set twice) changes nothing.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEventLog {
+
+    private static final String ORDERS = "SELECT o.id, o.seller_id, COALESCE(o.total_selling_price, 0), "
+            + "(SELECT COUNT(*) FROM order_item oi WHERE oi.order_id = o.id) FROM orders o WHERE o.id IN (%s)";
+
+    private static final String INSERT = "INSERT IGNORE INTO order_event (order_id, seller_id, type, amount, items, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SellerReportProjector projector;
+
+    /**
+     * Publish events for orders that are already stored, reading seller and totals from the database
+     */
+    @Transactional
+    public void publish(Collection<Long> orderIds, OrderEventType... types) {
+        List<OrderEvent> events = new ArrayList<>();
+        for (OrderEvent order : load(orderIds)) {
+            for (OrderEventType type : types) {
+                events.add(new OrderEvent(null, order.getOrderId(), order.getSellerId(), type, order.getAmount(),
+                        order.getItems(), order.getCreatedAt()));
+            }
+        }
+        projector.apply(append(events));
+    }
+
+    /**
+     * Publish the creation of orders saved in this transaction but not necessarily flushed yet
+     */
+    @Transactional
+    public void created(Collection<Order> orders) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderEvent> events = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            events.add(new OrderEvent(null, order.getId(), order.getSellerId(), OrderEventType.CREATED,
+                    order.getTotalSellingPrice() == null ? 0L : order.getTotalSellingPrice(),
+                    order.getOrderItems().size(), now));
+        }
+        projector.apply(append(events));
+    }
+
+    /**
+     * Order id, seller and totals of stored orders, as event templates without a type
+     */
+    List<OrderEvent> load(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = new ArrayList<>(new TreeSet<>(orderIds));
+        return jdbcTemplate.query(String.format(ORDERS, String.join(",", Collections.nCopies(ids.size(), "?"))),
+                (rs, rowNum) -> {
+                    long sellerId = rs.getLong(2);
+                    return new OrderEvent(null, rs.getLong(1), rs.wasNull() ? null : sellerId, null, rs.getLong(3),
+                            rs.getInt(4), now);
+                }, ids.toArray());
+    }
+
+    /**
+     * Insert the events, skipping the ones that already happened, and return those actually added.
+     * Rows go one statement each: a rewritten batch would not tell which of them were duplicates.
+     */
+    List<OrderEvent> append(List<OrderEvent> events) {
+        List<OrderEvent> added = new ArrayList<>(events.size());
+        for (OrderEvent event : events) {
+            int inserted = jdbcTemplate.update(INSERT, event.getOrderId(), event.getSellerId(), event.getType().name(),
+                    event.getAmount(), event.getItems(), Timestamp.valueOf(event.getCreatedAt()));
+            if (inserted > 0) {
+                added.add(event);
+            }
+        }
+        return added;
+    }
+}
@@ -0,0 +1,69 @@
+package com.bazar.analytics;
+
+import com.bazar.domain.OrderStatus;
+import com.bazar.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds orders confirmed before the rollups existed into them. Runs once per startup in the
+ * background and is a no-op once every counted order carries a rollup state.
+ */
+@Component
+@RequiredArgsConstructor
+public class RollupBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollupBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final SellerAnalytics sellerAnalytics;
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        Thread backfill = new Thread(this::backfill, "seller-rollup-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    public void backfill() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            int orders = 0;
+            long lastId = 0L;
+            while (true) {
+                long afterId = lastId;
+                List<Object[]> batch = tx.execute(status -> {
+                    List<Object[]> found = orderRepository.findNotRolledUp(SellerAnalytics.SOLD_STATUSES, afterId,
+                            PageRequest.of(0, BATCH_SIZE));
+                    Map<Long, OrderStatus> changes = new LinkedHashMap<>();
+                    found.forEach(row -> changes.put((Long) row[0], (OrderStatus) row[1]));
+                    sellerAnalytics.apply(changes);
+                    return found;
+                });
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                orders += batch.size();
+                lastId = (Long) batch.get(batch.size() - 1)[0];
+            }
+            if (orders > 0) {
+                logger.info("Seller analytics rollups backfilled with {} orders", orders);
+            }
+        } catch (Exception e) {
+            logger.error("Seller rollup backfill failed, it will be retried on next startup", e);
+        }
+    }
+}
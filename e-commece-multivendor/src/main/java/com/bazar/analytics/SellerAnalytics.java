@@ -0,0 +1,169 @@
+package com.bazar.analytics;
+
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.RollupState;
+import com.bazar.model.Product;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.SellerProductDailyRepository;
+import com.bazar.response.TopSellingProductDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-seller, per-product, per-day sales rollups (seller_product_daily). Order status changes are
+ * folded in as they happen: an order counts as sold once confirmed, adds its delivered units when
+ * delivered and is taken back out when cancelled. Each order remembers what it contributed
+ * (orders.rollup_state, read under a row lock) so replays and concurrent updates never count it twice.
+ */
+@Component
+@RequiredArgsConstructor
+public class SellerAnalytics {
+
+    static final Set<OrderStatus> SOLD_STATUSES = EnumSet.of(OrderStatus.PLACED, OrderStatus.CONFIRMED,
+            OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+    private static final String LINES = "SELECT o.id, o.seller_id, oi.product_id, CAST(o.order_date AS DATE), "
+            + "SUM(oi.quantity), SUM(COALESCE(oi.selling_price, 0) * oi.quantity), COUNT(*) "
+            + "FROM orders o JOIN order_item oi ON oi.order_id = o.id "
+            + "WHERE o.id IN (%s) AND o.seller_id IS NOT NULL AND o.order_date IS NOT NULL AND oi.product_id IS NOT NULL "
+            + "GROUP BY o.id, o.seller_id, oi.product_id, CAST(o.order_date AS DATE)";
+
+    private static final String UPSERT = "INSERT INTO seller_product_daily "
+            + "(seller_id, product_id, sales_date, units_sold, revenue, order_lines, units_delivered) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "units_sold = units_sold + VALUES(units_sold), revenue = revenue + VALUES(revenue), "
+            + "order_lines = order_lines + VALUES(order_lines), units_delivered = units_delivered + VALUES(units_delivered)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SellerProductDailyRepository rollupRepository;
+    private final ProductRepository productRepository;
+
+    /**
+     * Fold a status change of these orders into the rollups, in the caller's transaction
+     */
+    @Transactional
+    public void record(Collection<Long> orderIds, OrderStatus status) {
+        Map<Long, OrderStatus> changes = new HashMap<>();
+        orderIds.forEach(id -> changes.put(id, status));
+        apply(changes);
+    }
+
+    @Transactional
+    public void apply(Map<Long, OrderStatus> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(changes.keySet()));
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+
+        // Sale and delivery deltas (-1, 0, +1) per order, from what it contributed so far
+        Map<Long, int[]> deltas = new HashMap<>();
+        List<Object[]> transitions = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, rollup_state FROM orders WHERE id IN (" + in + ") ORDER BY id FOR UPDATE",
+                rs -> {
+                    long id = rs.getLong(1);
+                    String current = rs.getString(2);
+                    RollupState from = current == null ? null : RollupState.valueOf(current);
+                    RollupState to = target(changes.get(id), from);
+                    if (to != from) {
+                        transitions.add(new Object[] { to.name(), id });
+                        int[] delta = { counted(to) - counted(from), delivered(to) - delivered(from) };
+                        if (delta[0] != 0 || delta[1] != 0) {
+                            deltas.put(id, delta);
+                        }
+                    }
+                }, ids.toArray());
+        if (transitions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE orders SET rollup_state = ? WHERE id = ?", transitions);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Per (seller, product, day) sums of the changed orders, applied in key order to keep lock order stable
+        TreeMap<String, Object[]> rows = new TreeMap<>();
+        List<Long> changed = new ArrayList<>(deltas.keySet());
+        jdbcTemplate.query(String.format(LINES, String.join(",", Collections.nCopies(changed.size(), "?"))), rs -> {
+            int[] delta = deltas.get(rs.getLong(1));
+            long sellerId = rs.getLong(2);
+            long productId = rs.getLong(3);
+            Date day = rs.getDate(4);
+            long units = rs.getLong(5);
+            Object[] row = rows.computeIfAbsent(sellerId + ":" + productId + ":" + day,
+                    key -> new Object[] { sellerId, productId, day, 0L, 0L, 0L, 0L });
+            row[3] = (long) row[3] + delta[0] * units;
+            row[4] = (long) row[4] + delta[0] * rs.getLong(6);
+            row[5] = (long) row[5] + delta[0] * rs.getLong(7);
+            row[6] = (long) row[6] + delta[1] * units;
+        }, changed.toArray());
+
+        jdbcTemplate.batchUpdate(UPSERT, new ArrayList<>(rows.values()));
+    }
+
+    /**
+     * Best-selling products of a seller by revenue over the range
+     */
+    @Transactional(readOnly = true)
+    public List<TopSellingProductDTO> topProducts(Long sellerId, AnalyticsRange range, int limit) {
+        List<Object[]> top = rollupRepository.findTopProducts(sellerId, range.from(LocalDate.now()),
+                PageRequest.of(0, Math.max(1, limit)));
+        List<Long> ids = top.stream().map(row -> (Long) row[0]).toList();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> products = productRepository.findAllById(ids)
+                .stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        // First image of each product in one query, not one lazy collection load per product
+        Map<Long, String> images = new HashMap<>();
+        for (Object[] row : productRepository.findImages(ids)) {
+            images.putIfAbsent((Long) row[0], (String) row[1]);
+        }
+        List<TopSellingProductDTO> result = new ArrayList<>(top.size());
+        for (Object[] row : top) {
+            Product product = products.get((Long) row[0]);
+            TopSellingProductDTO dto = new TopSellingProductDTO();
+            dto.setProductId((Long) row[0]);
+            dto.setTotalSales(((Number) row[1]).longValue());
+            dto.setRevenue(((Number) row[2]).longValue());
+            dto.setOrderCount(((Number) row[3]).intValue());
+            if (product != null) {
+                dto.setProductName(product.getTitle());
+                dto.setProductImage(images.get(product.getId()));
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private static RollupState target(OrderStatus status, RollupState current) {
+        if (status == OrderStatus.CANCELLED) {
+            return RollupState.CANCELLED;
+        }
+        if (status == OrderStatus.DELIVERED) {
+            return RollupState.DELIVERED;
+        }
+        if (SOLD_STATUSES.contains(status)) {
+            // A delivered order moved back to shipped keeps its delivered units until cancelled
+            return current == RollupState.DELIVERED ? RollupState.DELIVERED : RollupState.SOLD;
+        }
+        return current;
+    }
+
+    private static int counted(RollupState state) {
+        return state == RollupState.SOLD || state == RollupState.DELIVERED ? 1 : 0;
+    }
+
+    private static int delivered(RollupState state) {
+        return state == RollupState.DELIVERED ? 1 : 0;
+    }
+}
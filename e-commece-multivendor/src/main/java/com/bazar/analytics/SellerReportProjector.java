@@ -0,0 +1,154 @@
+package com.bazar.analytics;
+
+import com.bazar.domain.OrderEventType;
+import com.bazar.model.OrderEvent;
+import com.bazar.model.SellerReport;
+import com.bazar.repository.OrderEventRepository;
+import com.bazar.repository.SellerRepository;
+import com.bazar.repository.SellerReportRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Keeps seller_report in step with the order events. New events are folded in as per-seller
+ * deltas with one atomic UPDATE per seller, so concurrent orders never overwrite each other's
+ * counts, and {@link #recompute()} resets every report to the totals of its events.
+ * <p>
+ * Paid orders count towards orders, sales (order lines), earnings and transactions; a paid order
+ * that is cancelled is refunded and leaves the net earnings.
+ */
+@Component
+public class SellerReportProjector {
+
+    private static final String[] COLUMNS = { "total_orders", "total_earnings", "total_sales", "total_transactions",
+            "cancelled_orders", "total_refunds", "net_earnings" };
+
+    private static final String INCREMENT;
+    private static final String ASSIGN;
+
+    static {
+        StringJoiner increment = new StringJoiner(", ", "UPDATE seller_report SET ", " WHERE seller_id = ?");
+        StringJoiner assign = new StringJoiner(", ", "UPDATE seller_report SET ", " WHERE seller_id = ?");
+        for (String column : COLUMNS) {
+            increment.add(column + " = COALESCE(" + column + ", 0) + ?");
+            assign.add(column + " = ?");
+        }
+        INCREMENT = increment.toString();
+        ASSIGN = assign.toString();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderEventRepository eventRepository;
+    private final SellerReportRepository reportRepository;
+    private final SellerRepository sellerRepository;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate newTx;
+
+    public SellerReportProjector(JdbcTemplate jdbcTemplate, OrderEventRepository eventRepository,
+            SellerReportRepository reportRepository, SellerRepository sellerRepository,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventRepository = eventRepository;
+        this.reportRepository = reportRepository;
+        this.sellerRepository = sellerRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Fold newly appended events into the reports, in the caller's transaction
+     */
+    public void apply(List<OrderEvent> events) {
+        // Sellers in id order, so concurrent projections lock report rows in the same order
+        TreeMap<Long, long[]> deltas = new TreeMap<>();
+        for (OrderEvent event : events) {
+            if (event.getSellerId() != null) {
+                add(deltas.computeIfAbsent(event.getSellerId(), id -> new long[COLUMNS.length]), event.getType(), 1,
+                        event.getAmount(), event.getItems());
+            }
+        }
+        deltas.values().removeIf(delta -> Arrays.stream(delta).allMatch(value -> value == 0));
+        for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+            if (jdbcTemplate.update(INCREMENT, args(entry.getValue(), entry.getKey())) == 0) {
+                ensureReport(entry.getKey());
+                jdbcTemplate.update(INCREMENT, args(entry.getValue(), entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Recompute every seller report from the events, replacing whatever the counters hold
+     */
+    public void recompute() {
+        totals().keySet().forEach(this::ensureReport);
+        tx.executeWithoutResult(status -> {
+            // Locking the reports first holds off live projections, and the totals read after the
+            // lock include every event they committed before it
+            jdbcTemplate.queryForList("SELECT id FROM seller_report ORDER BY id FOR UPDATE", Long.class);
+            Map<Long, long[]> totals = totals();
+            jdbcTemplate.update("UPDATE seller_report SET " + String.join(" = 0, ", COLUMNS) + " = 0");
+            List<Object[]> rows = new ArrayList<>(totals.size());
+            totals.forEach((sellerId, values) -> rows.add(args(values, sellerId)));
+            jdbcTemplate.batchUpdate(ASSIGN, rows);
+        });
+    }
+
+    private Map<Long, long[]> totals() {
+        Map<Long, long[]> totals = new TreeMap<>();
+        for (Object[] row : eventRepository.totalsBySellerAndType()) {
+            add(totals.computeIfAbsent((Long) row[0], id -> new long[COLUMNS.length]), (OrderEventType) row[1],
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue(), ((Number) row[4]).longValue());
+        }
+        return totals;
+    }
+
+    // Report for a seller that has none yet; a concurrent creation wins and is used as is
+    private void ensureReport(Long sellerId) {
+        if (reportRepository.existsBySellerId(sellerId)) {
+            return;
+        }
+        try {
+            newTx.executeWithoutResult(status -> {
+                SellerReport report = new SellerReport();
+                report.setSeller(sellerRepository.getReferenceById(sellerId));
+                reportRepository.saveAndFlush(report);
+            });
+        } catch (DataIntegrityViolationException ignored) {
+        }
+    }
+
+    private static void add(long[] delta, OrderEventType type, long count, long amount, long items) {
+        switch (type) {
+            case PAID -> {
+                delta[0] += count;
+                delta[1] += amount;
+                delta[2] += items;
+                delta[3] += count;
+                delta[6] += amount;
+            }
+            case CANCELLED -> delta[4] += count;
+            case REFUNDED -> {
+                delta[5] += amount;
+                delta[6] -= amount;
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static Object[] args(long[] values, Long sellerId) {
+        Object[] args = new Object[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            args[i] = values[i];
+        }
+        args[values.length] = sellerId;
+        return args;
+    }
+}
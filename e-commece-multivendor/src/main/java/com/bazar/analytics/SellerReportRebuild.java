@@ -0,0 +1,120 @@
+package com.bazar.analytics;
+
+import com.bazar.domain.OrderEventType;
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentStatus;
+import com.bazar.model.OrderEvent;
+import com.bazar.repository.OrderEventRepository;
+import com.bazar.repository.OrderRepository;
+import com.bazar.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Reconciles the seller reports with the orders: derives the events every order must have had to
+ * reach its current state (adding only the missing ones), then recomputes the reports from the
+ * events. Runs in the background on the first startup with an empty event log, and on demand.
+ */
+@Component
+@RequiredArgsConstructor
+public class SellerReportRebuild {
+
+    private static final Logger logger = LoggerFactory.getLogger(SellerReportRebuild.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final TransactionRepository transactionRepository;
+    private final OrderEventRepository eventRepository;
+    private final OrderEventLog eventLog;
+    private final SellerReportProjector projector;
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        // Afterwards the events are kept up to date as orders change
+        if (eventRepository.count() > 0) {
+            return;
+        }
+        Thread rebuild = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.error("Seller report rebuild failed, it will be retried on next startup", e);
+            }
+        }, "seller-report-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    /**
+     * Returns the number of events that were missing
+     */
+    public int rebuild() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int added = 0;
+        long lastId = 0L;
+        while (true) {
+            long afterId = lastId;
+            List<Object[]> batch = orderRepository.findStatusesAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            Integer count = tx.execute(status -> eventLog.append(derive(batch)).size());
+            added += count == null ? 0 : count;
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+        }
+        projector.recompute();
+        logger.info("Seller reports rebuilt, {} missing order events added", added);
+        return added;
+    }
+
+    private List<OrderEvent> derive(List<Object[]> batch) {
+        List<Long> ids = batch.stream().map(row -> (Long) row[0]).toList();
+        Set<Long> transacted = new HashSet<>(transactionRepository.findOrderIdsIn(ids));
+        Map<Long, OrderEvent> orders = new HashMap<>();
+        eventLog.load(ids).forEach(order -> orders.put(order.getOrderId(), order));
+
+        List<OrderEvent> events = new ArrayList<>();
+        for (Object[] row : batch) {
+            OrderEvent order = orders.get((Long) row[0]);
+            if (order == null) {
+                continue;
+            }
+            OrderStatus status = (OrderStatus) row[1];
+            // Cash on delivery is paid once delivered, and a transaction is only recorded for a payment
+            boolean paid = row[2] == PaymentStatus.COMPLETED || status == OrderStatus.DELIVERED
+                    || transacted.contains(order.getOrderId());
+            List<OrderEventType> types = new ArrayList<>();
+            types.add(OrderEventType.CREATED);
+            if (paid) {
+                types.add(OrderEventType.PAID);
+            }
+            if (status == OrderStatus.SHIPPED || status == OrderStatus.DELIVERED) {
+                types.add(OrderEventType.SHIPPED);
+            }
+            if (status == OrderStatus.DELIVERED) {
+                types.add(OrderEventType.DELIVERED);
+            }
+            if (status == OrderStatus.CANCELLED) {
+                types.add(OrderEventType.CANCELLED);
+                if (paid) {
+                    types.add(OrderEventType.REFUNDED);
+                }
+            }
+            for (OrderEventType type : types) {
+                events.add(new OrderEvent(null, order.getOrderId(), order.getSellerId(), type, order.getAmount(),
+                        order.getItems(), order.getCreatedAt()));
+            }
+        }
+        return events;
+    }
+}
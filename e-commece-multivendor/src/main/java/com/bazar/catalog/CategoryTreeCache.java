@@ -0,0 +1,68 @@
+package com.bazar.catalog;
+
+import com.bazar.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Holds the current {@link CategoryTreeSnapshot}. The snapshot is loaded on first use and
+ * dropped whenever a category is created, renamed or deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeCache {
+
+    private final CategoryRepository categoryRepository;
+
+    private final Object loadLock = new Object();
+    private volatile CategoryTreeSnapshot snapshot;
+    private volatile long generation;
+
+    public CategoryTreeSnapshot get() {
+        CategoryTreeSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            if (snapshot == null) {
+                long loadedGeneration = generation;
+                List<CategoryTreeSnapshot.Row> rows = categoryRepository.findAllTreeRows().stream()
+                        .map(r -> new CategoryTreeSnapshot.Row((Long) r[0], (String) r[1], (String) r[2],
+                                (String) r[3], (Integer) r[4], (Long) r[5]))
+                        .toList();
+                CategoryTreeSnapshot fresh = CategoryTreeSnapshot.of(rows);
+                // An invalidation that raced with the load wins; the next caller reloads
+                if (loadedGeneration != generation) {
+                    return fresh;
+                }
+                snapshot = fresh;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Drop the snapshot. Inside a transaction it is dropped again after commit so that
+     * a reader cannot cache rows from before the change.
+     */
+    public void invalidate() {
+        evict();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict();
+                }
+            });
+        }
+    }
+
+    private void evict() {
+        generation++;
+        snapshot = null;
+    }
+}
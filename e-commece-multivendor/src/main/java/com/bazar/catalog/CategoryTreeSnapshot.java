@@ -0,0 +1,132 @@
+package com.bazar.catalog;
+
+import com.bazar.response.CategoryTreeDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Immutable view of the whole category hierarchy, built from one flat query.
+ * Paths and ancestor ids are computed once here instead of walking parents per request.
+ */
+public final class CategoryTreeSnapshot {
+
+    /** One category row as loaded from the database. */
+    public record Row(Long id, String categoryId, String name, String image, Integer level, Long parentId) {
+    }
+
+    /** A category with its precomputed path and ancestor ids (root first). */
+    public record Node(Long id, String categoryId, String name, String image, Integer level, Long parentId,
+                       String path, long[] ancestorIds, List<Long> childIds) {
+    }
+
+    private final Map<Long, Node> nodes;
+    private final List<CategoryTreeDTO> tree;
+    private final String etag;
+
+    private CategoryTreeSnapshot(Map<Long, Node> nodes, List<CategoryTreeDTO> tree, String etag) {
+        this.nodes = nodes;
+        this.tree = tree;
+        this.etag = etag;
+    }
+
+    public static CategoryTreeSnapshot of(List<Row> rows) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(Row::id));
+
+        Map<Long, Row> byId = new HashMap<>();
+        Map<Long, List<Long>> childIds = new HashMap<>();
+        for (Row row : sorted) {
+            byId.put(row.id(), row);
+            if (row.parentId() != null) {
+                childIds.computeIfAbsent(row.parentId(), k -> new ArrayList<>()).add(row.id());
+            }
+        }
+
+        Map<Long, Node> nodes = new HashMap<>();
+        for (Row row : sorted) {
+            resolve(row, byId, childIds, nodes, 0);
+        }
+
+        // Roots are level 1 categories ordered by name, matching getAllParentCategories()
+        List<CategoryTreeDTO> tree = sorted.stream()
+                .filter(row -> Integer.valueOf(1).equals(row.level()))
+                .sorted(Comparator.comparing(Row::name, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(row -> toDto(nodes.get(row.id()), nodes, 0))
+                .toList();
+
+        return new CategoryTreeSnapshot(Collections.unmodifiableMap(nodes), tree, etagOf(sorted));
+    }
+
+    private static Node resolve(Row row, Map<Long, Row> byId, Map<Long, List<Long>> childIds, Map<Long, Node> nodes,
+                                int depth) {
+        Node node = nodes.get(row.id());
+        if (node != null) {
+            return node;
+        }
+        Row parentRow = row.parentId() != null ? byId.get(row.parentId()) : null;
+        String path;
+        long[] ancestors;
+        // The depth check stops a parent cycle in bad data from recursing forever
+        if (parentRow == null || depth > byId.size()) {
+            path = row.name();
+            ancestors = new long[0];
+        } else {
+            Node parent = resolve(parentRow, byId, childIds, nodes, depth + 1);
+            path = parent.path() + " > " + row.name();
+            ancestors = Arrays.copyOf(parent.ancestorIds(), parent.ancestorIds().length + 1);
+            ancestors[ancestors.length - 1] = parent.id();
+        }
+        node = new Node(row.id(), row.categoryId(), row.name(), row.image(), row.level(), row.parentId(), path,
+                ancestors, List.copyOf(childIds.getOrDefault(row.id(), List.of())));
+        nodes.put(row.id(), node);
+        return node;
+    }
+
+    private static CategoryTreeDTO toDto(Node node, Map<Long, Node> nodes, int depth) {
+        List<CategoryTreeDTO> children = depth > nodes.size() ? List.of() : node.childIds().stream()
+                .map(nodes::get)
+                .map(child -> toDto(child, nodes, depth + 1))
+                .toList();
+        return new CategoryTreeDTO(node.id(), node.categoryId(), node.name(), node.image(), node.level(),
+                node.path(), children);
+    }
+
+    private static String etagOf(List<Row> rows) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Row row : rows) {
+                digest.update((row.id() + "\u0000" + row.categoryId() + "\u0000" + row.name() + "\u0000"
+                        + row.image() + "\u0000" + row.level() + "\u0000" + row.parentId() + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public List<CategoryTreeDTO> getTree() {
+        return tree;
+    }
+
+    /** Quoted strong ETag derived from the category rows, stable across nodes and restarts. */
+    public String getEtag() {
+        return etag;
+    }
+
+    public Node getNode(Long id) {
+        return id != null ? nodes.get(id) : null;
+    }
+
+    public String getPath(Long id) {
+        Node node = getNode(id);
+        return node != null ? node.path() : null;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+}
@@ -0,0 +1,181 @@
+package com.bazar.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of dense document ids using the roaring layout: ids are split into
+ * chunks of 65536, each chunk kept as a sorted char array while sparse and as a
+ * 1024-word bitmap once it holds more than 4096 ids. Not thread-safe.
+ */
+final class DocIdSet {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int ARRAY_MIN = 2048;
+    private static final int CHUNK_WORDS = 1024;
+
+    private Chunk[] chunks = new Chunk[0];
+    private int cardinality;
+
+    void add(int doc) {
+        int high = doc >>> 16;
+        if (high >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, high + 1);
+        }
+        Chunk chunk = chunks[high];
+        if (chunk == null) {
+            chunk = chunks[high] = new Chunk();
+        }
+        if (chunk.add((char) doc)) {
+            cardinality++;
+        }
+    }
+
+    void remove(int doc) {
+        int high = doc >>> 16;
+        if (high < chunks.length && chunks[high] != null && chunks[high].remove((char) doc)) {
+            cardinality--;
+            if (chunks[high].size == 0) {
+                chunks[high] = null;
+            }
+        }
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Number of ids in this set whose bit is also set in {@code filter}, a dense bitmap over all docs.
+     */
+    int countAnd(long[] filter) {
+        int count = 0;
+        for (int high = 0; high < chunks.length; high++) {
+            Chunk chunk = chunks[high];
+            if (chunk == null) {
+                continue;
+            }
+            int base = high * CHUNK_WORDS;
+            if (chunk.bits != null) {
+                int end = Math.min(CHUNK_WORDS, filter.length - base);
+                for (int w = 0; w < end; w++) {
+                    count += Long.bitCount(chunk.bits[w] & filter[base + w]);
+                }
+            } else {
+                char[] values = chunk.values;
+                // Branch-free bit test: the filter bits are effectively random per value
+                for (int i = 0; i < chunk.size; i++) {
+                    int word = base + (values[i] >>> 6);
+                    if (word >= filter.length) {
+                        break;
+                    }
+                    count += (int) ((filter[word] >>> values[i]) & 1L);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Set the bits of this set in {@code words}, which must cover every id in it.
+     */
+    void orInto(long[] words) {
+        for (int high = 0; high < chunks.length; high++) {
+            Chunk chunk = chunks[high];
+            if (chunk == null) {
+                continue;
+            }
+            int base = high * CHUNK_WORDS;
+            if (chunk.bits != null) {
+                for (int w = 0; w < CHUNK_WORDS && base + w < words.length; w++) {
+                    words[base + w] |= chunk.bits[w];
+                }
+            } else {
+                for (int i = 0; i < chunk.size; i++) {
+                    int doc = (high << 16) | chunk.values[i];
+                    words[doc >>> 6] |= 1L << doc;
+                }
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private char[] values = new char[4];
+        private long[] bits;
+        private int size;
+
+        boolean add(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) != 0) {
+                    return false;
+                }
+                bits[low >>> 6] |= mask;
+                size++;
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, size, low);
+            if (at >= 0) {
+                return false;
+            }
+            if (size == ARRAY_MAX) {
+                toBitmap();
+                return add(low);
+            }
+            int insert = -at - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, insert, values, insert + 1, size - insert);
+            values[insert] = low;
+            size++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) == 0) {
+                    return false;
+                }
+                bits[low >>> 6] &= ~mask;
+                size--;
+                if (size < ARRAY_MIN) {
+                    toArray();
+                }
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, size, low);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(values, at + 1, values, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        private void toBitmap() {
+            bits = new long[CHUNK_WORDS];
+            for (int i = 0; i < size; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        private void toArray() {
+            values = new char[Math.max(4, size)];
+            int n = 0;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            bits = null;
+        }
+    }
+}
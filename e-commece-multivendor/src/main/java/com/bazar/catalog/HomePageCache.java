@@ -0,0 +1,79 @@
+package com.bazar.catalog;
+
+import com.bazar.repository.HomeCategoryRepository;
+import com.bazar.service.HomeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the current {@link HomePageSnapshot}. It is built on first use and rebuilt whenever a deal
+ * or home category changes; readers keep getting the previous snapshot until the new one is swapped in.
+ */
+@Component
+public class HomePageCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomePageCache.class);
+
+    private final HomeCategoryRepository homeCategoryRepository;
+    private final HomeService homeService;
+    private final ObjectMapper objectMapper;
+
+    private final Object buildLock = new Object();
+    private volatile HomePageSnapshot snapshot;
+
+    public HomePageCache(HomeCategoryRepository homeCategoryRepository, HomeService homeService,
+            ObjectMapper objectMapper) {
+        this.homeCategoryRepository = homeCategoryRepository;
+        this.homeService = homeService;
+        this.objectMapper = objectMapper;
+    }
+
+    public HomePageSnapshot get() {
+        HomePageSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (buildLock) {
+            if (snapshot == null) {
+                snapshot = build();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Rebuild the snapshot. Inside a transaction the rebuild runs after commit, so it reads the change.
+     */
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    rebuild();
+                }
+            });
+        } else {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        // Serialized, so the last rebuild reads the latest committed data
+        synchronized (buildLock) {
+            try {
+                snapshot = build();
+            } catch (RuntimeException e) {
+                logger.warn("Home page rebuild failed, it is built again on the next request", e);
+                snapshot = null;
+            }
+        }
+    }
+
+    private HomePageSnapshot build() {
+        return HomePageSnapshot.of(homeService.createHomePageData(homeCategoryRepository.findAll()), objectMapper);
+    }
+}
@@ -0,0 +1,83 @@
+package com.bazar.catalog;
+
+import com.bazar.model.Home;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The home page payload, serialized once: plain and gzipped JSON bytes with their ETag, so a
+ * request is answered by writing an array.
+ */
+public final class HomePageSnapshot {
+
+    private final Home home;
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final Instant lastModified;
+
+    private HomePageSnapshot(Home home, byte[] json, byte[] gzip, String etag, Instant lastModified) {
+        this.home = home;
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public static HomePageSnapshot of(Home home, ObjectMapper objectMapper) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(home);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(json);
+            }
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            // Whole seconds, as sent in Last-Modified
+            Instant now = Instant.ofEpochSecond(Instant.now().getEpochSecond());
+            return new HomePageSnapshot(home, json, compressed.toByteArray(),
+                    "\"" + HexFormat.of().formatHex(hash, 0, 12) + "\"", now);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Home page could not be serialized", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** True until home categories have been created. */
+    public boolean isEmpty() {
+        return home.getGridCategories().isEmpty() && home.getShopByCategories().isEmpty()
+                && home.getElectricCategories().isEmpty() && home.getDealCategories().isEmpty();
+    }
+
+    public Home getHome() {
+        return home;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /** Quoted strong ETag derived from the JSON, stable across nodes and restarts. */
+    public String getEtag() {
+        return etag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
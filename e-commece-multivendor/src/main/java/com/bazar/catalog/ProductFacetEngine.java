@@ -0,0 +1,257 @@
+package com.bazar.catalog;
+
+import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+import com.bazar.repository.ProductRepository;
+import com.bazar.response.FacetBucketDTO;
+import com.bazar.response.ProductFacetsDTO;
+import com.bazar.utils.TransactionHooks;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link ProductFacetIndex} for the product listing filters. Built in the background
+ * once the application is up, then updated by the product service on every change once its
+ * transaction commits. Until the first build completes the counts come from the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductFacetEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetEngine.class);
+
+    // Filter positions for the database fallback; the facet being counted drops its own filter
+    private static final int CATEGORY = 0;
+    private static final int COLOR = 1;
+    private static final int SIZE = 2;
+    private static final int PRICE = 3;
+    private static final int DISCOUNT = 4;
+
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Value("${facets.price-buckets:500,1000,2000,5000,10000}")
+    private int[] priceBounds;
+
+    @Value("${facets.discount-bands:10,20,30,40,50,60,70}")
+    private int[] discountBounds;
+
+    @Value("${search.index.batch-size:1000}")
+    private int batchSize;
+
+    private volatile ProductFacetIndex index;
+    private volatile ProductIndexBuild<ProductFacetIndex> building;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread builder = new Thread(this::rebuild, "product-facet-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Build a fresh facet index from the product table and swap it in once complete.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ProductFacetIndex fresh = new ProductFacetIndex(priceBounds, discountBounds);
+        ProductIndexBuild<ProductFacetIndex> build = new ProductIndexBuild<>(fresh);
+        building = build;
+        try {
+            build.load(productRepository, transactionManager, batchSize,
+                    product -> fresh.add(product.getId(), documentOf(product)), fresh::remove);
+            index = fresh;
+            logger.info("Product facet index built: {} products in {} ms", fresh.size(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Product facet index build failed", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public ProductFacetsDTO facets(String category, String colors, String sizes, Integer minPrice,
+                                   Integer maxPrice, Integer minDiscount) {
+        ProductFacetIndex.Filter filter =
+                new ProductFacetIndex.Filter(category, colors, sizes, minPrice, maxPrice, minDiscount);
+        ProductFacetIndex current = index;
+        if (current == null) {
+            return databaseFacets(filter);
+        }
+        ProductFacetIndex.Counts counts = current.count(filter);
+        return new ProductFacetsDTO(counts.total(), counts.colors(), counts.sizes(), counts.categories(),
+                buckets(current.getPriceBounds(), counts.priceBuckets()),
+                buckets(current.getDiscountBounds(), counts.discountBands()));
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        // Read the lazy category now, while the session is still open
+        long productId = product.getId();
+        ProductFacetIndex.Document document = documentOf(product);
+        TransactionHooks.afterCommit(() -> apply(productId, target -> target.add(productId, document)));
+    }
+
+    public void remove(Long productId) {
+        if (productId != null) {
+            TransactionHooks.afterCommit(() -> apply(productId, target -> target.remove(productId)));
+        }
+    }
+
+    private void apply(Long productId, Consumer<ProductFacetIndex> change) {
+        ProductFacetIndex current = index;
+        ProductIndexBuild<ProductFacetIndex> inProgress = building;
+        if (current != null) {
+            change.accept(current);
+        }
+        if (inProgress != null && inProgress.target() != current) {
+            change.accept(inProgress.target());
+            inProgress.changed(productId);
+        }
+    }
+
+    /**
+     * The same disjunctive counts as {@link ProductFacetIndex#count}, with one GROUP BY per facet.
+     * Only serves the requests that arrive while the index is building.
+     */
+    private ProductFacetsDTO databaseFacets(ProductFacetIndex.Filter filter) {
+        ProductFacetsDTO facets = new ProductFacetsDTO();
+        Map<String, Object> params = new HashMap<>();
+        String where = where(filter, -1, params);
+        facets.setTotal(query("SELECT COUNT(p) FROM Product p" + where, Long.class, params)
+                .getSingleResult().intValue());
+
+        params.clear();
+        where = where(filter, COLOR, params, "p.color IS NOT NULL");
+        Map<String, String> labels = new HashMap<>();
+        Map<String, Integer> colorCounts = new TreeMap<>();
+        // Oldest spelling first, as the index labels a color by the first product it saw with it
+        for (Object[] row : query("SELECT p.color, COUNT(p) FROM Product p" + where
+                + " GROUP BY p.color ORDER BY MIN(p.id)", Object[].class, params).getResultList()) {
+            String color = ((String) row[0]).trim();
+            if (!color.isEmpty()) {
+                String label = labels.computeIfAbsent(color.toLowerCase(), k -> color);
+                colorCounts.merge(label, ((Long) row[1]).intValue(), Integer::sum);
+            }
+        }
+        facets.setColors(colorCounts);
+
+        params.clear();
+        where = where(filter, SIZE, params, "v.active = true", "v.size IS NOT NULL");
+        facets.setSizes(counts(query("SELECT v.size, COUNT(DISTINCT p.id) FROM ProductVariant v JOIN v.product p"
+                + where + " GROUP BY v.size", Object[].class, params).getResultList()));
+
+        params.clear();
+        where = where(filter, CATEGORY, params);
+        facets.setCategories(counts(query("SELECT c.categoryId, COUNT(p) FROM Product p JOIN p.category c"
+                + where + " GROUP BY c.categoryId", Object[].class, params).getResultList()));
+
+        params.clear();
+        where = where(filter, PRICE, params);
+        facets.setPriceBuckets(buckets(priceBounds, bucketCounts("p.sellingPrice", priceBounds, where, params)));
+
+        params.clear();
+        where = where(filter, DISCOUNT, params);
+        facets.setDiscountBands(buckets(discountBounds,
+                bucketCounts("p.discountPercentage", discountBounds, where, params)));
+        return facets;
+    }
+
+    private static String where(ProductFacetIndex.Filter filter, int skip, Map<String, Object> params,
+                                String... conditions) {
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        Arrays.stream(conditions).forEach(where::add);
+        if (skip != CATEGORY && filter.categoryId() != null) {
+            where.add("p.category.categoryId = :category");
+            params.put("category", filter.categoryId());
+        }
+        if (skip != COLOR && filter.color() != null && !filter.color().isBlank()) {
+            where.add("LOWER(TRIM(p.color)) = :color");
+            params.put("color", filter.color().trim().toLowerCase());
+        }
+        String size = ProductVariant.normalizeSize(filter.size());
+        if (skip != SIZE && size != null) {
+            where.add("EXISTS (SELECT sv.id FROM ProductVariant sv WHERE sv.product = p AND sv.size = :size"
+                    + " AND sv.active = true)");
+            params.put("size", size);
+        }
+        if (skip != PRICE && filter.minPrice() != null) {
+            where.add("p.sellingPrice >= :minPrice");
+            params.put("minPrice", filter.minPrice().floatValue());
+        }
+        if (skip != PRICE && filter.maxPrice() != null) {
+            where.add("p.sellingPrice <= :maxPrice");
+            params.put("maxPrice", filter.maxPrice().floatValue());
+        }
+        if (skip != DISCOUNT && filter.minDiscount() != null) {
+            where.add("p.discountPercentage >= :minDiscount");
+            params.put("minDiscount", filter.minDiscount());
+        }
+        return where.toString();
+    }
+
+    // Bucket ordinal as a CASE over the configured bounds, inlined so SELECT and GROUP BY render alike
+    private int[] bucketCounts(String field, int[] bounds, String where, Map<String, Object> params) {
+        StringBuilder bucket = new StringBuilder("CASE");
+        for (int i = 0; i < bounds.length; i++) {
+            bucket.append(" WHEN ").append(field).append(" < ").append(bounds[i]).append(" THEN ").append(i);
+        }
+        bucket.append(" ELSE ").append(bounds.length).append(" END");
+        int[] counts = new int[bounds.length + 1];
+        for (Object[] row : query("SELECT " + bucket + ", COUNT(p) FROM Product p" + where + " GROUP BY " + bucket,
+                Object[].class, params).getResultList()) {
+            counts[((Number) row[0]).intValue()] = ((Long) row[1]).intValue();
+        }
+        return counts;
+    }
+
+    private <T> TypedQuery<T> query(String jpql, Class<T> type, Map<String, Object> params) {
+        TypedQuery<T> query = entityManager.createQuery(jpql, type);
+        params.forEach(query::setParameter);
+        return query;
+    }
+
+    private static Map<String, Integer> counts(List<Object[]> rows) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Long) row[1]).intValue());
+        }
+        return counts;
+    }
+
+    private static List<FacetBucketDTO> buckets(int[] bounds, int[] counts) {
+        List<FacetBucketDTO> buckets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            buckets.add(new FacetBucketDTO(i > 0 ? bounds[i - 1] : null, i < bounds.length ? bounds[i] : null,
+                    counts[i]));
+        }
+        return buckets;
+    }
+
+    private static ProductFacetIndex.Document documentOf(Product product) {
+        return new ProductFacetIndex.Document(
+                product.getColor(),
+                ProductVariant.parseSizes(product.getSizes()),
+                product.getCategory() != null ? product.getCategory().getCategoryId() : null,
+                product.getSellingPrice(),
+                product.getDiscountPercentage());
+    }
+}
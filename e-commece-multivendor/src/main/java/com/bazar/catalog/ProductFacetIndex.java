@@ -0,0 +1,321 @@
+package com.bazar.catalog;
+
+import com.bazar.model.ProductVariant;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet counts for the product listing. Every facet value owns a {@link DocIdSet}
+ * of dense document ids, kept current on each add/remove, so a request only intersects
+ * bitmaps and never touches the database.
+ * <p>
+ * Counts are disjunctive: the counts for one facet apply every active filter except that
+ * facet's own, so the storefront can show the alternatives to the selected value.
+ */
+public class ProductFacetIndex {
+
+    public record Document(String color, Set<String> sizes, String categoryId, float price, int discount) {
+    }
+
+    public record Filter(String categoryId, String color, String size, Integer minPrice, Integer maxPrice,
+                         Integer minDiscount) {
+    }
+
+    /** Bucket counts line up with the bounds: bucket i covers [bounds[i-1], bounds[i]), the last one is open. */
+    public record Counts(int total, Map<String, Integer> colors, Map<String, Integer> sizes,
+                         Map<String, Integer> categories, int[] priceBuckets, int[] discountBands) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int[] priceBounds;
+    private final int[] discountBounds;
+
+    private final Map<String, DocIdSet> byColor = new HashMap<>();
+    private final Map<String, DocIdSet> bySize = new HashMap<>();
+    private final Map<String, DocIdSet> byCategory = new HashMap<>();
+    private final DocIdSet[] byPriceBucket;
+    private final DocIdSet[] byDiscountBand;
+    private final Map<String, String> displayColor = new HashMap<>();
+    private final Map<String, Integer> categoryOrdinals = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private Document[] documents = new Document[1024];
+    private float[] prices = new float[1024];
+    private int[] discounts = new int[1024];
+    private int[] categoryOrds = new int[1024];
+    private long[] live = new long[16];
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int nextDoc;
+
+    public ProductFacetIndex(int[] priceBounds, int[] discountBounds) {
+        this.priceBounds = priceBounds.clone();
+        this.discountBounds = discountBounds.clone();
+        this.byPriceBucket = newSets(priceBounds.length + 1);
+        this.byDiscountBand = newSets(discountBounds.length + 1);
+    }
+
+    public int[] getPriceBounds() {
+        return priceBounds.clone();
+    }
+
+    public int[] getDiscountBounds() {
+        return discountBounds.clone();
+    }
+
+    /**
+     * Add or replace the document for a product.
+     */
+    public void add(long productId, Document document) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            int doc = freeCount > 0 ? freeDocs[--freeCount] : nextDoc++;
+            if (doc >= documents.length) {
+                documents = Arrays.copyOf(documents, documents.length * 2);
+                prices = Arrays.copyOf(prices, documents.length);
+                discounts = Arrays.copyOf(discounts, documents.length);
+                categoryOrds = Arrays.copyOf(categoryOrds, documents.length);
+            }
+            if ((doc >>> 6) >= live.length) {
+                live = Arrays.copyOf(live, Math.max(live.length * 2, (doc >>> 6) + 1));
+            }
+            documents[doc] = document;
+            prices[doc] = document.price();
+            discounts[doc] = document.discount();
+            live[doc >>> 6] |= 1L << doc;
+            docByProduct.put(productId, doc);
+
+            String color = key(document.color());
+            if (color != null) {
+                byColor.computeIfAbsent(color, k -> new DocIdSet()).add(doc);
+                displayColor.putIfAbsent(color, document.color().trim());
+            }
+            for (String size : document.sizes()) {
+                bySize.computeIfAbsent(size, k -> new DocIdSet()).add(doc);
+            }
+            categoryOrds[doc] = -1;
+            if (document.categoryId() != null) {
+                byCategory.computeIfAbsent(document.categoryId(), k -> new DocIdSet()).add(doc);
+                categoryOrds[doc] = categoryOrdinals.computeIfAbsent(document.categoryId(), k -> {
+                    categoryNames.add(k);
+                    return categoryNames.size() - 1;
+                });
+            }
+            byPriceBucket[bucket(priceBounds, document.price())].add(doc);
+            byDiscountBand[bucket(discountBounds, document.discount())].add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Counts count(Filter filter) {
+        lock.readLock().lock();
+        try {
+            long[] categoryFilter = filter.categoryId() != null ? materialize(byCategory.get(filter.categoryId())) : null;
+            String colorKey = key(filter.color());
+            long[] colorFilter = colorKey != null ? materialize(byColor.get(colorKey)) : null;
+            String sizeKey = ProductVariant.normalizeSize(filter.size());
+            long[] sizeFilter = sizeKey != null ? materialize(bySize.get(sizeKey)) : null;
+            long[] priceFilter = filter.minPrice() != null || filter.maxPrice() != null
+                    ? scanPrices(filter.minPrice() != null ? filter.minPrice() : Float.NEGATIVE_INFINITY,
+                            filter.maxPrice() != null ? filter.maxPrice() : Float.POSITIVE_INFINITY)
+                    : null;
+            long[] discountFilter = filter.minDiscount() != null ? scanDiscounts(filter.minDiscount()) : null;
+
+            long[][] filters = {categoryFilter, colorFilter, sizeFilter, priceFilter, discountFilter};
+            long[] all = intersect(filters, -1);
+
+            Map<String, Integer> categories = countCategories(intersect(filters, 0));
+            Map<String, Integer> colors = countValues(byColor, intersect(filters, 1), displayColor);
+            Map<String, Integer> sizes = countValues(bySize, intersect(filters, 2), null);
+            int[] priceBuckets = countBuckets(byPriceBucket, intersect(filters, 3));
+            int[] discountBands = countBuckets(byDiscountBand, intersect(filters, 4));
+
+            int total = 0;
+            for (long word : all) {
+                total += Long.bitCount(word);
+            }
+            return new Counts(total, colors, sizes, categories, priceBuckets, discountBands);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        Document document = documents[doc];
+        String color = key(document.color());
+        if (color != null) {
+            removeFrom(byColor, color, doc);
+        }
+        for (String size : document.sizes()) {
+            removeFrom(bySize, size, doc);
+        }
+        if (document.categoryId() != null) {
+            removeFrom(byCategory, document.categoryId(), doc);
+        }
+        byPriceBucket[bucket(priceBounds, document.price())].remove(doc);
+        byDiscountBand[bucket(discountBounds, document.discount())].remove(doc);
+        documents[doc] = null;
+        live[doc >>> 6] &= ~(1L << doc);
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeDocs.length * 2);
+        }
+        freeDocs[freeCount++] = doc;
+    }
+
+    private static void removeFrom(Map<String, DocIdSet> sets, String value, int doc) {
+        DocIdSet set = sets.get(value);
+        if (set != null) {
+            set.remove(doc);
+            if (set.isEmpty()) {
+                sets.remove(value);
+            }
+        }
+    }
+
+    // Live docs restricted by every filter except the one at index skip
+    private long[] intersect(long[][] filters, int skip) {
+        long[] result = live.clone();
+        for (int f = 0; f < filters.length; f++) {
+            long[] filter = filters[f];
+            if (f == skip || filter == null) {
+                continue;
+            }
+            for (int w = 0; w < result.length; w++) {
+                result[w] &= filter[w];
+            }
+        }
+        return result;
+    }
+
+    private long[] materialize(DocIdSet set) {
+        long[] words = new long[live.length];
+        if (set != null) {
+            set.orInto(words);
+        }
+        return words;
+    }
+
+    // Range filters test the packed arrays directly, 64 docs per word without branches;
+    // dead docs are masked out later by live
+    private long[] scanPrices(float min, float max) {
+        long[] words = new long[live.length];
+        for (int w = 0; w << 6 < nextDoc; w++) {
+            int base = w << 6;
+            int end = Math.min(64, nextDoc - base);
+            long bits = 0;
+            for (int j = 0; j < end; j++) {
+                float price = prices[base + j];
+                bits |= (long) ((price >= min & price <= max) ? 1 : 0) << j;
+            }
+            words[w] = bits;
+        }
+        return words;
+    }
+
+    private long[] scanDiscounts(int min) {
+        long[] words = new long[live.length];
+        for (int w = 0; w << 6 < nextDoc; w++) {
+            int base = w << 6;
+            int end = Math.min(64, nextDoc - base);
+            long bits = 0;
+            for (int j = 0; j < end; j++) {
+                bits |= (long) (discounts[base + j] >= min ? 1 : 0) << j;
+            }
+            words[w] = bits;
+        }
+        return words;
+    }
+
+    private static Map<String, Integer> countValues(Map<String, DocIdSet> sets, long[] filter,
+                                                    Map<String, String> display) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, DocIdSet> entry : sets.entrySet()) {
+            int count = entry.getValue().countAnd(filter);
+            if (count > 0) {
+                String label = display != null ? display.getOrDefault(entry.getKey(), entry.getKey()) : entry.getKey();
+                counts.merge(label, count, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    // Thousands of categories with a few docs each: walking the matching docs and bumping a counter
+    // per category ordinal is cheaper than intersecting one small bitmap per category
+    private Map<String, Integer> countCategories(long[] filter) {
+        int[] counts = new int[categoryNames.size()];
+        for (int w = 0; w < filter.length; w++) {
+            long word = filter[w];
+            while (word != 0) {
+                int ord = categoryOrds[(w << 6) + Long.numberOfTrailingZeros(word)];
+                if (ord >= 0) {
+                    counts[ord]++;
+                }
+                word &= word - 1;
+            }
+        }
+        Map<String, Integer> result = new TreeMap<>();
+        for (int ord = 0; ord < counts.length; ord++) {
+            if (counts[ord] > 0) {
+                result.put(categoryNames.get(ord), counts[ord]);
+            }
+        }
+        return result;
+    }
+
+    private static int[] countBuckets(DocIdSet[] sets, long[] filter) {
+        int[] counts = new int[sets.length];
+        for (int i = 0; i < sets.length; i++) {
+            counts[i] = sets[i].countAnd(filter);
+        }
+        return counts;
+    }
+
+    private static int bucket(int[] bounds, float value) {
+        int i = 0;
+        while (i < bounds.length && value >= bounds[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String key(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase();
+    }
+
+    private static DocIdSet[] newSets(int n) {
+        DocIdSet[] sets = new DocIdSet[n];
+        for (int i = 0; i < n; i++) {
+            sets[i] = new DocIdSet();
+        }
+        return sets;
+    }
+}
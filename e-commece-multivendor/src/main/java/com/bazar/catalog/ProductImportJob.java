@@ -0,0 +1,83 @@
+package com.bazar.catalog;
+
+import com.bazar.domain.ImportStatus;
+import com.bazar.response.ProductImportStatusDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of one bulk product import, updated by the reader and the workers while it runs.
+ */
+public class ProductImportJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long sellerId;
+    private final int maxErrors;
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder imported = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final List<ProductImportStatusDTO.RowError> rowErrors = new ArrayList<>();
+    private volatile ImportStatus status = ImportStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    ProductImportJob(Long sellerId, int maxErrors) {
+        this.sellerId = sellerId;
+        this.maxErrors = maxErrors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = ImportStatus.RUNNING;
+    }
+
+    void finished(String failure) {
+        error = failure;
+        finishedAt = Instant.now();
+        status = failure == null ? ImportStatus.COMPLETED : ImportStatus.FAILED;
+    }
+
+    void read() {
+        rowsRead.increment();
+    }
+
+    void imported(int rows) {
+        imported.add(rows);
+    }
+
+    void failed(long row, String message) {
+        failed.increment();
+        synchronized (rowErrors) {
+            if (rowErrors.size() < maxErrors) {
+                rowErrors.add(new ProductImportStatusDTO.RowError(row, message));
+            }
+        }
+    }
+
+    public ProductImportStatusDTO status() {
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = start != null ? Math.max(1, Duration.between(start, end).toMillis()) : 0;
+        long done = imported.sum();
+        List<ProductImportStatusDTO.RowError> errors;
+        synchronized (rowErrors) {
+            errors = new ArrayList<>(rowErrors);
+        }
+        return new ProductImportStatusDTO(id, status, rowsRead.sum(), done, failed.sum(),
+                millis == 0 ? 0 : done * 1000.0 / millis, start, finishedAt, error, errors);
+    }
+}
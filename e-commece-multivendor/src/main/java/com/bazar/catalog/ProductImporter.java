@@ -0,0 +1,455 @@
+package com.bazar.catalog;
+
+import com.bazar.model.Category;
+import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+import com.bazar.model.Seller;
+import com.bazar.repository.CategoryRepository;
+import com.bazar.request.CreateProductRequest;
+import com.bazar.search.InvertedIndexSearchBackend;
+import com.bazar.service.EntitlementService;
+import com.bazar.storage.ImageStore;
+import com.bazar.utils.CsvReader;
+import com.bazar.utils.DaemonThreads;
+import com.bazar.utils.TtlCache;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bulk product import for sellers. The upload is spooled to a temporary file and a background job
+ * streams it row by row (CSV with a header line, a JSON array or newline-delimited JSON objects),
+ * so memory stays flat however large the file is. The reader validates rows and resolves their
+ * categories through a per-job map; rows are then inserted in chunks of
+ * {@code products.import.batch-size} by a worker pool, each chunk in one transaction with JDBC
+ * batching. A chunk that fails is retried row by row so that only the bad rows are reported.
+ */
+@Component
+public class ProductImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImporter.class);
+
+    private static final Set<String> FORMATS = Set.of("csv", "json");
+
+    private record Row(long number, CreateProductRequest request, Category category) {
+    }
+
+    // A row that cannot be imported; the job goes on with the next one
+    private static class RowException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        RowException(String message) {
+            super(message);
+        }
+    }
+
+    private interface RowSource extends Closeable {
+        /** Next row, null at the end of the input */
+        CreateProductRequest next() throws IOException, RowException;
+    }
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+    private final EntitlementService entitlementService;
+    private final ImageStore imageStore;
+    private final ProductFacetEngine facetEngine;
+    private final Optional<InvertedIndexSearchBackend> indexSearchBackend;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final int workerThreads;
+    private final int maxErrors;
+    private final TtlCache<String, ProductImportJob> jobs;
+    private final ThreadPoolExecutor runner;
+    private final ThreadPoolExecutor workers;
+
+    public ProductImporter(CategoryRepository categoryRepository, CategoryTreeCache categoryTreeCache,
+            EntitlementService entitlementService, ImageStore imageStore, ProductFacetEngine facetEngine,
+            Optional<InvertedIndexSearchBackend> indexSearchBackend, EntityManager entityManager,
+            ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+            @Value("${products.import.batch-size:1000}") int batchSize,
+            @Value("${products.import.workers:4}") int workerThreads,
+            @Value("${products.import.max-running-jobs:2}") int maxRunningJobs,
+            @Value("${products.import.max-row-errors:1000}") int maxErrors,
+            @Value("${products.import.retention:24h}") Duration retention) {
+        this.categoryRepository = categoryRepository;
+        this.categoryTreeCache = categoryTreeCache;
+        this.entitlementService = entitlementService;
+        this.imageStore = imageStore;
+        this.facetEngine = facetEngine;
+        this.indexSearchBackend = indexSearchBackend;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.workerThreads = workerThreads;
+        this.maxErrors = maxErrors;
+        this.jobs = new TtlCache<>(10_000, retention);
+        // Jobs beyond the running ones wait in line; a full line rejects the upload
+        this.runner = new ThreadPoolExecutor(maxRunningJobs, maxRunningJobs, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxRunningJobs * 8), DaemonThreads.named("product-import"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Shared by all jobs; each job bounds its own chunks in flight
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), DaemonThreads.named("product-import-worker"));
+    }
+
+    /**
+     * Spool the upload and start importing it in the background
+     */
+    public ProductImportJob start(Seller seller, String format, InputStream body) throws IOException {
+        String kind = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (!FORMATS.contains(kind)) {
+            throw new IllegalArgumentException("Unsupported import format " + format + ", expected csv or json");
+        }
+        Path file = Files.createTempFile("product-import-", "." + kind);
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            ProductImportJob job = new ProductImportJob(seller.getId(), maxErrors);
+            jobs.put(job.getId(), job);
+            try {
+                runner.execute(() -> run(job, seller, kind, file));
+            } catch (RejectedExecutionException e) {
+                jobs.invalidate(job.getId());
+                throw e;
+            }
+            return job;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public ProductImportJob get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    void run(ProductImportJob job, Seller seller, String format, Path file) {
+        job.started();
+        Map<String, Category> categories = new HashMap<>();
+        // Chunks queued or being inserted for this job, which bounds the memory a fast reader can fill
+        int inFlight = workerThreads * 2;
+        Semaphore permits = new Semaphore(inFlight);
+        String failure = null;
+        try (RowSource rows = open(format, file)) {
+            List<Row> chunk = new ArrayList<>(batchSize);
+            long number = 0;
+            while (true) {
+                CreateProductRequest request;
+                number++;
+                try {
+                    request = rows.next();
+                } catch (RowException e) {
+                    // The row could not even be parsed
+                    job.read();
+                    job.failed(number, e.getMessage());
+                    continue;
+                }
+                if (request == null) {
+                    break;
+                }
+                job.read();
+                try {
+                    chunk.add(new Row(number, request, validate(request, categories)));
+                } catch (RowException e) {
+                    job.failed(number, e.getMessage());
+                }
+                if (chunk.size() == batchSize) {
+                    submit(job, seller, chunk, permits);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(job, seller, chunk, permits);
+            }
+        } catch (Exception e) {
+            logger.warn("Product import {} stopped: {}", job.getId(), e.getMessage());
+            failure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } finally {
+            // Wait for the chunks still in flight
+            permits.acquireUninterruptibly(inFlight);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete import file {}", file);
+            }
+        }
+        job.finished(failure);
+        logger.info("Product import {} for seller {}: {} imported, {} failed", job.getId(), job.getSellerId(),
+                job.status().getImported(), job.status().getFailed());
+    }
+
+    private void submit(ProductImportJob job, Seller seller, List<Row> chunk, Semaphore permits)
+            throws InterruptedException {
+        permits.acquire();
+        try {
+            workers.execute(() -> {
+                try {
+                    insertChunk(job, seller, chunk);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void insertChunk(ProductImportJob job, Seller seller, List<Row> chunk) {
+        try {
+            List<Product> products = tx.execute(status -> insert(seller, chunk));
+            indexed(products);
+            job.imported(chunk.size());
+        } catch (RuntimeException chunkFailure) {
+            // Find the rows at fault, one transaction each
+            for (Row row : chunk) {
+                try {
+                    indexed(tx.execute(status -> insert(seller, List.of(row))));
+                    job.imported(1);
+                } catch (RuntimeException e) {
+                    job.failed(row.number(), rootMessage(e));
+                }
+            }
+        }
+    }
+
+    private List<Product> insert(Seller seller, List<Row> rows) {
+        entitlementService.reserveProducts(seller, rows.size());
+        entityManager.unwrap(Session.class).setJdbcBatchSize(Math.min(rows.size(), batchSize));
+        LocalDate today = LocalDate.now();
+        List<Product> products = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            CreateProductRequest req = row.request();
+            Product product = new Product();
+            product.setSeller(seller);
+            product.setCategory(row.category());
+            product.setTitle(req.getTitle());
+            product.setDescription(req.getDescription());
+            product.setMrpPrice(req.getMrpPrice());
+            product.setSellingPrice(req.getSellingPrice());
+            product.setDiscountPercentage((int) ((req.getMrpPrice() - req.getSellingPrice()) * 100.0 / req.getMrpPrice()));
+            product.setColor(req.getColor());
+            product.setImages(req.getImages() != null ? imageStore.toReferences(req.getImages()) : new ArrayList<>());
+            product.setCreatedAt(today);
+            product.setSizes(req.getSize());
+            if (req.getQuantity() != null) {
+                product.setQuantity(Math.max(req.getQuantity(), 0));
+                product.setTrackInventory(true);
+            }
+            entityManager.persist(product);
+
+            // Same variants as ProductVariantService.syncVariants, without the lookup of existing ones
+            Set<String> sizes = ProductVariant.parseSizes(product.getSizes());
+            if (sizes.isEmpty()) {
+                sizes = Collections.singleton(null);
+            }
+            for (String size : sizes) {
+                ProductVariant variant = new ProductVariant();
+                variant.setProduct(product);
+                variant.setSize(size);
+                variant.setSku(product.getId() + "-" + (size != null ? size : "OS"));
+                variant.setColor(product.getColor());
+                variant.setActive(true);
+                entityManager.persist(variant);
+                product.getVariants().add(variant);
+            }
+            products.add(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return products;
+    }
+
+    private void indexed(List<Product> products) {
+        if (products == null) {
+            return;
+        }
+        for (Product product : products) {
+            indexSearchBackend.ifPresent(backend -> backend.index(product));
+            facetEngine.index(product);
+        }
+    }
+
+    // Checks done by the reader, so a bad row never reaches a worker
+    private Category validate(CreateProductRequest req, Map<String, Category> categories) throws RowException {
+        if (req.getTitle() == null || req.getTitle().isBlank()) {
+            throw new RowException("title is required");
+        }
+        if (req.getMrpPrice() <= 0) {
+            throw new RowException("mrpPrice must be greater than zero");
+        }
+        if (req.getSellingPrice() < 0 || req.getSellingPrice() > req.getMrpPrice()) {
+            throw new RowException("sellingPrice must be between 0 and mrpPrice");
+        }
+        if (isBlank(req.getCategory())) {
+            throw new RowException("category is required");
+        }
+        if (isBlank(req.getCategory2()) && !isBlank(req.getCategory3())) {
+            throw new RowException("category3 needs category2");
+        }
+        Category category = category(req.getCategory(), 1, null, categories);
+        if (!isBlank(req.getCategory2())) {
+            category = category(req.getCategory2(), 2, category, categories);
+        }
+        if (!isBlank(req.getCategory3())) {
+            category = category(req.getCategory3(), 3, category, categories);
+        }
+        return category;
+    }
+
+    // Looked up once per job; missing ones are created like createProduct does
+    private Category category(String categoryId, int level, Category parent, Map<String, Category> categories) {
+        String key = categoryId.trim();
+        Category category = categories.get(key);
+        if (category == null) {
+            category = categoryRepository.findByCategoryId(key);
+            if (category == null) {
+                Category created = new Category();
+                created.setCategoryId(key);
+                created.setName(key);
+                created.setLevel(level);
+                created.setParentCategory(parent);
+                category = categoryRepository.save(created);
+                categoryTreeCache.invalidate();
+            }
+            categories.put(key, category);
+        }
+        return category;
+    }
+
+    private RowSource open(String format, Path file) throws IOException {
+        Reader reader = new InputStreamReader(new BufferedInputStream(Files.newInputStream(file), 1 << 16),
+                StandardCharsets.UTF_8);
+        return "csv".equals(format) ? csv(new CsvReader(reader)) : json(reader);
+    }
+
+    private RowSource json(Reader reader) throws IOException {
+        // Reads a top-level array element by element, or a stream of objects (NDJSON)
+        MappingIterator<CreateProductRequest> values = objectMapper.readerFor(CreateProductRequest.class)
+                .readValues(reader);
+        return new RowSource() {
+            @Override
+            public CreateProductRequest next() throws IOException, RowException {
+                try {
+                    return values.hasNextValue() ? values.nextValue() : null;
+                } catch (JsonParseException e) {
+                    throw e;
+                } catch (JsonMappingException e) {
+                    throw new RowException(e.getOriginalMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                values.close();
+            }
+        };
+    }
+
+    private static RowSource csv(CsvReader csv) throws IOException {
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // A byte order mark would otherwise stick to the first column name
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("title")) {
+            throw new IOException("The header line has no title column");
+        }
+        return new RowSource() {
+            @Override
+            public CreateProductRequest next() throws IOException, RowException {
+                List<String> record = csv.next();
+                if (record == null) {
+                    return null;
+                }
+                CreateProductRequest req = new CreateProductRequest();
+                req.setTitle(field(record, "title"));
+                req.setDescription(field(record, "description"));
+                req.setMrpPrice(number(record, "mrpprice", 0));
+                req.setSellingPrice(number(record, "sellingprice", 0));
+                req.setColor(field(record, "color"));
+                String images = field(record, "images");
+                if (images != null) {
+                    req.setImages(Arrays.stream(images.split("\\|")).map(String::trim).filter(s -> !s.isEmpty())
+                            .toList());
+                }
+                req.setCategory(field(record, "category"));
+                req.setCategory2(field(record, "category2"));
+                req.setCategory3(field(record, "category3"));
+                req.setSize(field(record, "size"));
+                req.setQuantity(field(record, "quantity") != null ? number(record, "quantity", 0) : null);
+                return req;
+            }
+
+            private String field(List<String> record, String column) {
+                Integer index = columns.get(column);
+                if (index == null || index >= record.size()) {
+                    return null;
+                }
+                String value = record.get(index).trim();
+                return value.isEmpty() ? null : value;
+            }
+
+            private int number(List<String> record, String column, int fallback) throws RowException {
+                String value = field(record, column);
+                if (value == null) {
+                    return fallback;
+                }
+                try {
+                    return Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw new RowException(column + " is not a whole number: " + value);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                csv.close();
+            }
+        };
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
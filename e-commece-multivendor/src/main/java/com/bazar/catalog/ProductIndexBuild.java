@@ -0,0 +1,79 @@
+package com.bazar.catalog;
+
+import com.bazar.model.Product;
+import com.bazar.repository.ProductRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * One load of the product table into a fresh in-memory index (search, facets) while the live one keeps
+ * serving. Products are read in id order, one read-only transaction per batch.
+ * <p>
+ * Changes that commit during the load are applied to the fresh index as well and reported through
+ * {@link #changed}. A batch read just before such a commit still carries the old row and would overwrite
+ * the change, so the reported products are read again after the walk, until a pass reports nothing new.
+ */
+public class ProductIndexBuild<T> {
+
+    private final T target;
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    public ProductIndexBuild(T target) {
+        this.target = target;
+    }
+
+    public T target() {
+        return target;
+    }
+
+    /**
+     * Note a change just applied to the target, so the load does not leave an older copy behind
+     */
+    public void changed(Long productId) {
+        changed.add(productId);
+    }
+
+    /**
+     * Pass every product to {@code add}, and the changed ones that no longer exist to {@code remove}.
+     */
+    public void load(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+                     int batchSize, Consumer<Product> add, Consumer<Long> remove) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        long lastId = 0L;
+        while (true) {
+            long afterId = lastId;
+            List<Product> batch = tx.execute(status -> {
+                List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                        PageRequest.of(0, batchSize));
+                products.forEach(add);
+                return products;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        // Taken off the set before the read, so a change committing during it is read again next pass
+        while (!changed.isEmpty()) {
+            List<Long> ids = new ArrayList<>(changed);
+            changed.removeAll(ids);
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                tx.executeWithoutResult(status -> {
+                    Set<Long> missing = new HashSet<>(chunk);
+                    for (Product product : productRepository.findAllById(chunk)) {
+                        missing.remove(product.getId());
+                        add.accept(product);
+                    }
+                    missing.forEach(remove);
+                });
+            }
+        }
+    }
+}
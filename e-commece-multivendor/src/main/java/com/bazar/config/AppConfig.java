@@ -23,7 +23,7 @@ import java.util.Collections;
 public class AppConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService) throws Exception {
         http.sessionManagement(management -> management.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeRequests(authorize -> {
                     try {
@@ -32,7 +32,7 @@ public class AppConfig {
                                 .requestMatchers("/api/**").authenticated()
                                 .requestMatchers("/api/products/*/reviews").permitAll()
                                 .anyRequest().permitAll()
-                                .and().addFilterBefore(new JwtTokenValidator(), BasicAuthenticationFilter.class)
+                                .and().addFilterBefore(new JwtTokenValidator(tokenService), BasicAuthenticationFilter.class)
                                 .csrf(csrf -> csrf.disable())
                                 .cors(cors -> cors.configurationSource(corsConfigurationSource()));
                     } catch (Exception e) {
@@ -1,34 +1,30 @@
 package com.bazar.config;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
-import javax.crypto.SecretKey;
 import java.util.Collection;
 @Service
+@RequiredArgsConstructor
 public class JwtProvider {
-    SecretKey key= Keys.hmacShaKeyFor(JWT_CONSTANT.SECRET_KEY.getBytes());
+    private final TokenService tokenService;
 
     public String generateToken(Authentication auth) {
         Collection<? extends GrantedAuthority> authorities = auth.getAuthorities();
         String roles=populateAuthorities(authorities);
-        String jwt= Jwts.builder()
-                .setIssuedAt(new java.util.Date())
-                .setExpiration(new java.util.Date(System.currentTimeMillis()+3600000))
-                .claim("email",auth.getName())
-                .claim("authorities",roles)
-                .signWith(key)
-                .compact();
-        return jwt; // Placeholder return statement
+        return tokenService.issue(auth.getName(), roles);
     }
     public String getEmailFromToken(String jwt) {
         jwt=jwt.substring(7);
-        Claims claims= Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
-        return String.valueOf(claims.get("email"));
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && jwt.equals(request.getAttribute(JwtTokenValidator.VERIFIED_TOKEN, RequestAttributes.SCOPE_REQUEST))) {
+            return (String) request.getAttribute(JwtTokenValidator.VERIFIED_EMAIL, RequestAttributes.SCOPE_REQUEST);
+        }
+        return String.valueOf(tokenService.verify(jwt).email());
     }
 
     private String populateAuthorities(Collection<? extends GrantedAuthority> authorities) {
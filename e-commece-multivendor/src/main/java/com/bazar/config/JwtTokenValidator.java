@@ -1,8 +1,5 @@
 package com.bazar.config;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,7 +13,6 @@ import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.util.List;
 
@@ -24,6 +20,16 @@ public class JwtTokenValidator extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenValidator.class);
 
+    // The verified token and its email, so the services resolving the principal don't parse it again
+    public static final String VERIFIED_TOKEN = JwtTokenValidator.class.getName() + ".token";
+    public static final String VERIFIED_EMAIL = JwtTokenValidator.class.getName() + ".email";
+
+    private final TokenService tokenService;
+
+    public JwtTokenValidator(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String header = request.getHeader("Authorization");
@@ -36,14 +42,15 @@ public class JwtTokenValidator extends OncePerRequestFilter {
 
         String jwt = header.substring(7);
         try {
-            SecretKey key = Keys.hmacShaKeyFor(JWT_CONSTANT.SECRET_KEY.getBytes());
-            Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
-            String email = String.copyValueOf(claims.get("email", String.class).toCharArray());
-            String authorities = String.valueOf(claims.get("authorities"));
+            TokenService.TokenClaims claims = tokenService.verify(jwt);
+            String email = claims.email();
+            String authorities = claims.authorities();
 
             List<GrantedAuthority> auths = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
             Authentication authentication = new UsernamePasswordAuthenticationToken(email, null, auths);
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            request.setAttribute(VERIFIED_TOKEN, jwt);
+            request.setAttribute(VERIFIED_EMAIL, email);
         } catch (Exception e) {
             // Don't throw here to avoid returning 401 for public endpoints when token is malformed.
             logger.warn("Invalid JWT token: {}", e.getMessage());
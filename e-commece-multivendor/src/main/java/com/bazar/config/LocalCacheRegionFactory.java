@@ -0,0 +1,183 @@
+package com.bazar.config;
+
+import com.bazar.utils.TtlCache;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hibernate second-level and query cache held in this JVM, one bounded {@link TtlCache} per region.
+ * It serves the read-mostly reference entities (plans, categories, home sections, deals, coupons)
+ * without a cache provider dependency. Writes through Hibernate update this node's cache at once;
+ * other nodes see a change when their entry expires, so a region's TTL bounds how stale another node
+ * can be.
+ * <p>
+ * Settings (under spring.jpa.properties): hibernate.cache.local.max-size and hibernate.cache.local.ttl
+ * for every region, hibernate.cache.local.&lt;region&gt;.max-size and .ttl to override one region.
+ */
+public class LocalCacheRegionFactory extends RegionFactoryTemplate {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String PREFIX = "hibernate.cache.local.";
+    private static final int DEFAULT_MAX_SIZE = 1000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    public record RegionStats(String region, long hits, long misses, long puts, int size, int maxSize,
+            Duration ttl) {
+    }
+
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+    private final Map<String, String> settings = new HashMap<>();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions options, Map<String, Object> configValues) {
+        configValues.forEach((key, value) -> {
+            if (key.startsWith(PREFIX) && value != null) {
+                settings.put(key.substring(PREFIX.length()), value.toString().trim());
+            }
+        });
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(Region::evictData);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+            DomainDataRegionBuildingContext buildingContext) {
+        return region(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        return region(regionName);
+    }
+
+    // Update timestamps decide whether cached query results are still valid, so they never expire
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        return new Timestamps();
+    }
+
+    /**
+     * Hits, misses and puts per region since startup
+     */
+    public List<RegionStats> stats() {
+        List<RegionStats> stats = new ArrayList<>();
+        for (Region region : regions.values()) {
+            stats.add(new RegionStats(region.name, region.hits.sum(), region.misses.sum(), region.puts.sum(),
+                    region.cache.size(), region.maxSize, region.ttl));
+        }
+        stats.sort(Comparator.comparing(RegionStats::region));
+        return stats;
+    }
+
+    private Region region(String name) {
+        return regions.computeIfAbsent(name, key -> {
+            String maxSize = settings.getOrDefault(key + ".max-size", settings.get("max-size"));
+            String ttl = settings.getOrDefault(key + ".ttl", settings.get("ttl"));
+            return new Region(key, maxSize != null ? Integer.parseInt(maxSize) : DEFAULT_MAX_SIZE,
+                    ttl != null ? DurationStyle.detectAndParse(ttl) : DEFAULT_TTL);
+        });
+    }
+
+    private static class Region implements DomainDataStorageAccess {
+        final String name;
+        final int maxSize;
+        final Duration ttl;
+        final TtlCache<Object, Object> cache;
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder puts = new LongAdder();
+
+        Region(String name, int maxSize, Duration ttl) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+            this.cache = new TtlCache<>(maxSize, ttl);
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            Object value = cache.get(key);
+            (value != null ? hits : misses).increment();
+            return value;
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            cache.put(key, value);
+            puts.increment();
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return cache.get(key) != null;
+        }
+
+        @Override
+        public void evictData() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void release() {
+            cache.invalidateAll();
+        }
+    }
+
+    private static class Timestamps implements StorageAccess {
+        private final Map<Object, Object> timestamps = new ConcurrentHashMap<>();
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return timestamps.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            timestamps.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return timestamps.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            timestamps.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            timestamps.remove(key);
+        }
+
+        @Override
+        public void release() {
+            timestamps.clear();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.bazar.config;
+
+import com.bazar.model.Seller;
+import com.bazar.model.User;
+import com.bazar.repository.SellerRepository;
+import com.bazar.repository.UserRepository;
+import com.bazar.utils.TransactionHooks;
+import com.bazar.utils.TtlCache;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Users and sellers resolved from a JWT, memoized for the current request and for a short TTL
+ * across requests, so authenticated endpoints skip the lookup by email.
+ * <p>
+ * Entries are loaded in their own read-only transaction and are therefore detached and shared
+ * between requests: read them, link them from new rows, but load a managed instance before changing
+ * one. Every write to an account evicts it here, after saving it. Inside a transaction the eviction
+ * waits for the commit, otherwise a concurrent lookup could cache the old row again in between.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final String REQUEST_ATTRIBUTE = PrincipalCache.class.getName() + ".";
+
+    private final UserRepository userRepository;
+    private final SellerRepository sellerRepository;
+    private final TransactionTemplate loader;
+    private final TtlCache<String, User> users;
+    private final TtlCache<String, Seller> sellers;
+
+    public PrincipalCache(UserRepository userRepository, SellerRepository sellerRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${security.principal-cache.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.sellerRepository = sellerRepository;
+        this.loader = new TransactionTemplate(transactionManager);
+        this.loader.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loader.setReadOnly(true);
+        this.users = new TtlCache<>(maxSize, ttl);
+        this.sellers = new TtlCache<>(maxSize, ttl);
+    }
+
+    /**
+     * User with this email, null when there is none
+     */
+    public User user(String email) {
+        return resolve("user:" + email, email, users, key -> loader.execute(status -> {
+            User user = userRepository.findByEmail(key);
+            if (user != null) {
+                // Serialized with the profile, so it must be readable once detached
+                Hibernate.initialize(user.getAddresses());
+            }
+            return user;
+        }));
+    }
+
+    /**
+     * Seller with this email, null when there is none
+     */
+    public Seller seller(String email) {
+        return resolve("seller:" + email, email, sellers,
+                key -> loader.execute(status -> sellerRepository.findByEmail(key)));
+    }
+
+    public void evictUser(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            users.invalidateIf(user -> Objects.equals(user.getId(), userId));
+            forgetInRequest("user:");
+        });
+    }
+
+    public void evictSeller(Long sellerId) {
+        TransactionHooks.afterCommit(() -> {
+            sellers.invalidateIf(seller -> Objects.equals(seller.getId(), sellerId));
+            forgetInRequest("seller:");
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T resolve(String requestKey, String email, TtlCache<String, T> cache, Function<String, T> load) {
+        if (email == null) {
+            return null;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object memo = request.getAttribute(REQUEST_ATTRIBUTE + requestKey, RequestAttributes.SCOPE_REQUEST);
+            if (memo != null) {
+                return (T) memo;
+            }
+        }
+        T value = cache.computeIfAbsent(email, load);
+        if (value != null && request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE + requestKey, value, RequestAttributes.SCOPE_REQUEST);
+        }
+        return value;
+    }
+
+    private void forgetInRequest(String prefix) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return;
+        }
+        for (String name : request.getAttributeNames(RequestAttributes.SCOPE_REQUEST)) {
+            if (name.startsWith(REQUEST_ATTRIBUTE + prefix)) {
+                request.removeAttribute(name, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+    }
+}
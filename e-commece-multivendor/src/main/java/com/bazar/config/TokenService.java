@@ -0,0 +1,172 @@
+package com.bazar.config;
+
+import com.bazar.utils.TtlCache;
+import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Issues and verifies the API's JWTs. Keys and the (thread-safe) parser are built once, and the
+ * claims of recently verified tokens are kept in a bounded LRU keyed by the token's SHA-256 digest
+ * until the token expires, so a client sending the same token again skips the HMAC check and parse.
+ * <p>
+ * Keys are named by {@code kid}: new tokens are signed with the active key and any configured key
+ * still verifies, so a key can be rotated by adding the new one, making it active, and dropping
+ * the old one once its tokens have expired. Tokens without a kid are checked against the legacy key.
+ */
+@Service
+public class TokenService {
+
+    public record TokenClaims(String email, String authorities, long expiresAtMillis) {
+    }
+
+    public record TokenStats(long cacheHits, long verifications, long failures, double averageVerifyMicros,
+            int cachedTokens) {
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final SecretKey legacyKey = Keys.hmacShaKeyFor(JWT_CONSTANT.SECRET_KEY.getBytes());
+    private final Map<String, SecretKey> keys;
+    private final String activeKeyId;
+    private final Duration validity;
+    private final JwtParser parser;
+    private final TtlCache<String, TokenClaims> verified;
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+
+    /**
+     * @param keySpec comma separated {@code kid:secret} pairs; empty signs with the legacy key
+     */
+    public TokenService(@Value("${jwt.keys:}") String keySpec,
+            @Value("${jwt.active-key-id:}") String activeKeyId,
+            @Value("${jwt.validity:1h}") Duration validity,
+            @Value("${jwt.claims-cache.max-size:10000}") int cacheSize,
+            @Value("${jwt.claims-cache.max-ttl:15m}") Duration cacheTtl) {
+        this.keys = parseKeys(keySpec);
+        if (!activeKeyId.isBlank() && !keys.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("jwt.active-key-id " + activeKeyId + " is not among jwt.keys");
+        }
+        this.activeKeyId = !activeKeyId.isBlank() ? activeKeyId
+                : keys.isEmpty() ? null : keys.keySet().iterator().next();
+        this.validity = validity;
+        this.verified = new TtlCache<>(cacheSize, cacheTtl);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares the raw type, a JwsHeader<?> parameter would not override it
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyFor(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    public String issue(String email, String authorities) {
+        long now = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + validity.toMillis()))
+                .claim("email", email)
+                .claim("authorities", authorities);
+        if (activeKeyId != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, activeKeyId).signWith(keys.get(activeKeyId));
+        } else {
+            builder.signWith(legacyKey);
+        }
+        return builder.compact();
+    }
+
+    /**
+     * Claims of a valid token (without the "Bearer " prefix); throws JwtException otherwise
+     */
+    public TokenClaims verify(String jwt) {
+        String digest = digest(jwt);
+        TokenClaims cached = verified.get(digest);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            cacheHits.increment();
+            return cached;
+        }
+        long start = System.nanoTime();
+        try {
+            Claims claims = parser.parseClaimsJws(jwt).getBody();
+            Date expiration = claims.getExpiration();
+            TokenClaims result = new TokenClaims(claims.get("email", String.class),
+                    String.valueOf(claims.get("authorities")),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+            long remaining = result.expiresAtMillis() - System.currentTimeMillis();
+            if (remaining > 0) {
+                verified.put(digest, result, Duration.ofMillis(remaining));
+            }
+            return result;
+        } catch (JwtException | IllegalArgumentException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            verifications.increment();
+            verifyNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public TokenStats stats() {
+        long count = verifications.sum();
+        return new TokenStats(cacheHits.sum(), count, failures.sum(),
+                count == 0 ? 0 : verifyNanos.sum() / 1_000.0 / count, verified.size());
+    }
+
+    private Key keyFor(String keyId) {
+        if (keyId == null) {
+            return legacyKey;
+        }
+        SecretKey key = keys.get(keyId);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key " + keyId);
+        }
+        return key;
+    }
+
+    private static String digest(String jwt) {
+        byte[] hash = SHA_256.get().digest(jwt.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    private static Map<String, SecretKey> parseKeys(String keySpec) {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        for (String entry : keySpec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                throw new IllegalArgumentException("jwt.keys entries must be kid:secret");
+            }
+            keys.put(entry.substring(0, separator).trim(),
+                    Keys.hmacShaKeyFor(entry.substring(separator + 1).trim().getBytes(StandardCharsets.UTF_8)));
+        }
+        return Collections.unmodifiableMap(keys);
+    }
+}
@@ -0,0 +1,64 @@
+package com.bazar.controller;
+
+import com.bazar.config.LocalCacheRegionFactory;
+import com.bazar.domain.User_Role;
+import com.bazar.model.User;
+import com.bazar.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/cache")
+@RequiredArgsConstructor
+public class AdminCacheController {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserService userService;
+
+    private void verifyAdminRole(String jwt) throws Exception {
+        User currentUser = userService.findUserByJwtToken(jwt);
+        if (currentUser.getRole() != User_Role.ROLE_ADMIN) {
+            throw new RuntimeException("Access denied. Admin role required.");
+        }
+    }
+
+    // Hits, misses and size of every second-level and query cache region on this node
+    @GetMapping("/stats")
+    public ResponseEntity<List<LocalCacheRegionFactory.RegionStats>> getCacheStats(
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+        return ResponseEntity.ok(stats());
+    }
+
+    // After a change made outside the application, e.g. in SQL: drop one region, or all of them
+    @PostMapping("/evict")
+    public ResponseEntity<List<LocalCacheRegionFactory.RegionStats>> evictCache(
+            @RequestParam(required = false) String region,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+        CacheImplementor cache = cache();
+        if (region == null || region.isBlank()) {
+            cache.evictAllRegions();
+        } else if (cache.getRegion(region) != null) {
+            cache.evictRegion(region);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(stats());
+    }
+
+    private List<LocalCacheRegionFactory.RegionStats> stats() {
+        return cache().getRegionFactory() instanceof LocalCacheRegionFactory regionFactory
+                ? regionFactory.stats() : List.of();
+    }
+
+    private CacheImplementor cache() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache();
+    }
+}
@@ -0,0 +1,76 @@
+package com.bazar.controller;
+
+import com.bazar.domain.User_Role;
+import com.bazar.export.DataExporter;
+import com.bazar.export.ExportFormat;
+import com.bazar.model.User;
+import com.bazar.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/admin/exports")
+@RequiredArgsConstructor
+public class AdminExportController {
+
+    private final DataExporter dataExporter;
+    private final UserService userService;
+
+    private void verifyAdminRole(String jwt) throws Exception {
+        User currentUser = userService.findUserByJwtToken(jwt);
+        if (currentUser.getRole() != User_Role.ROLE_ADMIN) {
+            throw new RuntimeException("Access denied. Admin role required.");
+        }
+    }
+
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+        ExportFormat exportFormat = parse(format, from, to);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return dataExporter.download("orders", exportFormat, gzip,
+                dataExporter.orders(sellerId, from, to, exportFormat, gzip));
+    }
+
+    @GetMapping("/transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+        ExportFormat exportFormat = parse(format, from, to);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return dataExporter.download("transactions", exportFormat, gzip,
+                dataExporter.transactions(sellerId, from, to, exportFormat, gzip));
+    }
+
+    // Null when the format is unknown or the range is reversed
+    private static ExportFormat parse(String format, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return null;
+        }
+        try {
+            return ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
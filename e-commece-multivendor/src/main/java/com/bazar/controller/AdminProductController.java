@@ -1,10 +1,17 @@
 package com.bazar.controller;
 
+import com.bazar.catalog.ProductFacetEngine;
 import com.bazar.domain.User_Role;
 import com.bazar.model.Product;
 import com.bazar.model.User;
 import com.bazar.repository.ProductRepository;
+import com.bazar.request.StockUpdateRequest;
+import com.bazar.search.InvertedIndexSearchBackend;
+import com.bazar.service.EntitlementService;
+import com.bazar.service.InventoryService;
+import com.bazar.service.ProductVariantService;
 import com.bazar.service.UserService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/admin/products")
@@ -22,6 +30,11 @@ public class AdminProductController {
 
     private final ProductRepository productRepository;
     private final UserService userService;
+    private final Optional<InvertedIndexSearchBackend> indexSearchBackend;
+    private final ProductFacetEngine facetEngine;
+    private final ProductVariantService productVariantService;
+    private final InventoryService inventoryService;
+    private final EntitlementService entitlementService;
 
     private void verifyAdminRole(String jwt) throws Exception {
         User currentUser = userService.findUserByJwtToken(jwt);
@@ -89,8 +102,8 @@ public class AdminProductController {
         if (productUpdate.getSellingPrice() > 0) {
             product.setSellingPrice(productUpdate.getSellingPrice());
         }
-        if (productUpdate.getQuantity() >= 0) {
-            product.setQuantity(productUpdate.getQuantity());
+        if (productUpdate.getTrackInventory() != null) {
+            product.setTrackInventory(productUpdate.getTrackInventory());
         }
         if (productUpdate.getColor() != null) {
             product.setColor(productUpdate.getColor());
@@ -100,9 +113,27 @@ public class AdminProductController {
         }
 
         Product updatedProduct = productRepository.save(product);
+        productVariantService.syncVariants(updatedProduct);
+        indexSearchBackend.ifPresent(backend -> backend.index(updatedProduct));
+        facetEngine.index(updatedProduct);
         return ResponseEntity.ok(updatedProduct);
     }
 
+    // Stock is set here only, never through the product edit above
+    @PutMapping("/{id}/stock")
+    public ResponseEntity<Void> updateStock(
+            @PathVariable Long id,
+            @Valid @RequestBody StockUpdateRequest request,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+
+        if (!productRepository.existsById(id)) {
+            throw new RuntimeException("Product not found with id: " + id);
+        }
+        inventoryService.setStock(id, request.getQuantity());
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteProduct(
             @PathVariable Long id,
@@ -113,6 +144,11 @@ public class AdminProductController {
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
         productRepository.delete(product);
+        if (product.getSeller() != null) {
+            entitlementService.evict(product.getSeller().getId());
+        }
+        indexSearchBackend.ifPresent(backend -> backend.remove(id));
+        facetEngine.remove(id);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Product deleted successfully");
@@ -1,10 +1,13 @@
 package com.bazar.controller;
 
+import com.bazar.analytics.SellerReportRebuild;
+import com.bazar.config.PrincipalCache;
 import com.bazar.domain.AccountStatus;
 import com.bazar.domain.User_Role;
 import com.bazar.model.Seller;
 import com.bazar.model.User;
 import com.bazar.repository.SellerRepository;
+import com.bazar.scheduler.SubscriptionScheduler;
 import com.bazar.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -24,6 +27,9 @@ public class AdminSellerController {
 
     private final SellerRepository sellerRepository;
     private final UserService userService;
+    private final PrincipalCache principalCache;
+    private final SellerReportRebuild sellerReportRebuild;
+    private final SubscriptionScheduler subscriptionScheduler;
 
     private void verifyAdminRole(String jwt) throws Exception {
         User currentUser = userService.findUserByJwtToken(jwt);
@@ -89,6 +95,7 @@ public class AdminSellerController {
         }
 
         Seller updatedSeller = sellerRepository.save(seller);
+        principalCache.evictSeller(id);
         return ResponseEntity.ok(updatedSeller);
     }
 
@@ -103,6 +110,7 @@ public class AdminSellerController {
 
         seller.setEmailVerified(true);
         Seller updatedSeller = sellerRepository.save(seller);
+        principalCache.evictSeller(id);
         return ResponseEntity.ok(updatedSeller);
     }
 
@@ -116,9 +124,29 @@ public class AdminSellerController {
                 .orElseThrow(() -> new RuntimeException("Seller not found with id: " + id));
 
         sellerRepository.delete(seller);
+        principalCache.evictSeller(id);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Seller deleted successfully");
         return ResponseEntity.ok(response);
     }
+
+    // Reconcile every seller report with the orders and transactions
+    @PostMapping("/reports/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSellerReports(
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("missingEvents", sellerReportRebuild.rebuild());
+        response.put("message", "Seller reports rebuilt");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/subscription-expiry-stats")
+    public ResponseEntity<SubscriptionScheduler.ExpiryStats> getSubscriptionExpiryStats(
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+        return ResponseEntity.ok(subscriptionScheduler.stats());
+    }
 }
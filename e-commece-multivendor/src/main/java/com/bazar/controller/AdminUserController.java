@@ -1,5 +1,7 @@
 package com.bazar.controller;
 
+import com.bazar.config.PrincipalCache;
+import com.bazar.config.TokenService;
 import com.bazar.domain.User_Role;
 import com.bazar.model.User;
 import com.bazar.repository.UserRepository;
@@ -21,6 +23,8 @@ public class AdminUserController {
 
     private final UserRepository userRepository;
     private final UserService userService;
+    private final PrincipalCache principalCache;
+    private final TokenService tokenService;
 
     private void verifyAdminRole(String jwt) throws Exception {
         User currentUser = userService.findUserByJwtToken(jwt);
@@ -55,6 +59,13 @@ public class AdminUserController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/token-stats")
+    public ResponseEntity<TokenService.TokenStats> getTokenStats(
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        verifyAdminRole(jwt);
+        return ResponseEntity.ok(tokenService.stats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(
             @PathVariable Long id,
@@ -87,6 +98,7 @@ public class AdminUserController {
         }
 
         User updatedUser = userRepository.save(user);
+        principalCache.evictUser(id);
         return ResponseEntity.ok(updatedUser);
     }
 
@@ -105,6 +117,7 @@ public class AdminUserController {
         user.setRole(newRole);
 
         User updatedUser = userRepository.save(user);
+        principalCache.evictUser(id);
         return ResponseEntity.ok(updatedUser);
     }
 
@@ -118,6 +131,7 @@ public class AdminUserController {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
 
         userRepository.delete(user);
+        principalCache.evictUser(id);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "User deleted successfully");
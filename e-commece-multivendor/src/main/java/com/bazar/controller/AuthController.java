@@ -32,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import com.bazar.config.JwtProvider;
+import com.bazar.config.PrincipalCache;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -49,6 +50,7 @@ public class AuthController {
     private final JwtProvider jwtProvider;
     private final EmailService emailService;
     private final VerificationCodeRepository verificationCodeRepository;
+    private final PrincipalCache principalCache;
 
     // In-memory storage for pending signups (temporary data before OTP
     // verification)
@@ -314,6 +316,7 @@ public class AuthController {
         // Update password
         user.setPassword(passwordEncoder.encode(req.getNewPassword()));
         userRepository.save(user);
+        principalCache.evictUser(user.getId());
 
         // Delete verification code
         verificationCodeRepository.delete(verificationCode);
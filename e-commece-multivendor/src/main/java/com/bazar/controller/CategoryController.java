@@ -1,11 +1,14 @@
 package com.bazar.controller;
 
+import com.bazar.catalog.CategoryTreeSnapshot;
 import com.bazar.model.Category;
 import com.bazar.response.CategoryTreeDTO;
 import com.bazar.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -35,9 +38,15 @@ public class CategoryController {
     }
 
     @GetMapping("/tree")
-    public ResponseEntity<List<CategoryTreeDTO>> getCategoryTree() {
-        List<CategoryTreeDTO> tree = categoryService.getCategoryTree();
-        return ResponseEntity.ok(tree);
+    public ResponseEntity<List<CategoryTreeDTO>> getCategoryTree(WebRequest request) {
+        CategoryTreeSnapshot snapshot = categoryService.getCategoryTreeSnapshot();
+        if (request.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.getTree());
     }
 
     @GetMapping("/{id}")
@@ -1,13 +1,17 @@
 package com.bazar.controller;
 
-import com.bazar.model.Home;
+import com.bazar.catalog.HomePageCache;
+import com.bazar.catalog.HomePageSnapshot;
 import com.bazar.model.HomeCategory;
 import com.bazar.service.HomeCategoryService;
-import com.bazar.service.HomeService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,13 +19,27 @@ import java.util.List;
 @RequiredArgsConstructor
 public class HomeCategoryController {
     private final HomeCategoryService homeCategoryService;
-    private final HomeService homeService;
+    private final HomePageCache homePageCache;
 
+    // Seeds the home categories on the very first call, afterwards it serves the cached home page
     @PostMapping("/home/categories" )
-    public ResponseEntity<Home> createHomeCategories(@RequestBody List<HomeCategory> homeCategories){
-        List<HomeCategory> categories=homeCategoryService.createHomeCategories(homeCategories);
-        Home home=homeService.createHomePageData(categories);
-        return new ResponseEntity<>(home, HttpStatus.ACCEPTED);
+    public ResponseEntity<byte[]> createHomeCategories(@RequestBody List<HomeCategory> homeCategories,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        HomePageSnapshot snapshot = homePageCache.get();
+        if (snapshot.isEmpty()) {
+            homeCategoryService.createHomeCategories(homeCategories);
+            snapshot = homePageCache.get();
+        }
+        return homePage(ResponseEntity.status(HttpStatus.ACCEPTED), snapshot, acceptEncoding);
+    }
+    @GetMapping("/home")
+    public ResponseEntity<byte[]> getHomePage(WebRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        HomePageSnapshot snapshot = homePageCache.get();
+        if (request.checkNotModified(snapshot.getEtag(), snapshot.getLastModified().toEpochMilli())) {
+            return null;
+        }
+        return homePage(ResponseEntity.ok(), snapshot, acceptEncoding);
     }
     @GetMapping("/admin/home-categories" )
     public ResponseEntity<List<HomeCategory>> getHomeCategory(){
@@ -33,4 +51,17 @@ public class HomeCategoryController {
         HomeCategory updatedCategory = homeCategoryService.updateHomeCategory(homeCategory, id);
         return ResponseEntity.ok(updatedCategory);
     }
+
+    private static ResponseEntity<byte[]> homePage(ResponseEntity.BodyBuilder response, HomePageSnapshot snapshot,
+            String acceptEncoding) {
+        response.contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.getEtag())
+                .lastModified(snapshot.getLastModified())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzip());
+        }
+        return response.body(snapshot.getJson());
+    }
 }
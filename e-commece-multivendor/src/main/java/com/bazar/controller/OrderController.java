@@ -1,16 +1,23 @@
 package com.bazar.controller;
 
+import com.bazar.analytics.SellerAnalytics;
+import com.bazar.domain.OrderStatus;
 import com.bazar.domain.PaymentMethod;
 import com.bazar.domain.PaymentOrderStatus;
+import com.bazar.domain.PaymentStatus;
 import com.bazar.model.*;
 import com.bazar.repository.PaymentOrderRepository;
+import com.bazar.response.CursorPage;
+import com.bazar.response.OrderSummaryDTO;
 import com.bazar.response.PaymentLinkResponse;
 import com.bazar.service.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
 
@@ -21,10 +28,10 @@ public class OrderController {
     private final OrderService orderService;
     private final UserService userService;
     private final CartService cartService;
-    private final SellerService sellerService;
-    private final SellerReportService sellerReportService;
     private final PaymentService paymentService;
     private final PaymentOrderRepository paymentOrderRepository;
+    private final InventoryService inventoryService;
+    private final SellerAnalytics sellerAnalytics;
 
     @PostMapping
     public ResponseEntity<PaymentLinkResponse> createOrderHandler(
@@ -56,6 +63,10 @@ public class OrderController {
                 order.getPaymentDetails().setPaymentMethod(paymentMethod.toString());
                 orderService.updateOrderStatus(order.getId(), order.getOrderStatus());
             }
+            // No payment step to wait for, the stock is committed to these orders now
+            List<Long> orderIds = orders.stream().map(Order::getId).toList();
+            inventoryService.confirm(orderIds);
+            sellerAnalytics.record(orderIds, OrderStatus.CONFIRMED);
 
             response.setPayment_link_url("COD");
             response.setPayment_link_id("COD-" + paymentOrder.getId());
@@ -71,6 +82,22 @@ public class OrderController {
         return new ResponseEntity<>(orders, HttpStatus.ACCEPTED);
     }
 
+    // Paged history: pass an empty cursor for the first page, then the returned nextCursor
+    @GetMapping(value = "/user", params = "cursor")
+    public ResponseEntity<CursorPage<OrderSummaryDTO>> userOrderPageHandler(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) PaymentStatus paymentStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        User user = userService.findUserByJwtToken(jwt);
+        CursorPage<OrderSummaryDTO> orders = orderService.userOrderPage(user.getId(), status, paymentStatus, from,
+                to, cursor, pageSize);
+        return ResponseEntity.ok(orders);
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<Order> findOrderByIdHandler(@PathVariable Long orderId,
             @RequestHeader("Authorization") String jwt) throws Exception {
@@ -92,17 +119,8 @@ public class OrderController {
             @RequestHeader("Authorization") String jwt) throws Exception {
         System.out.println("Received cancel request for order: " + orderId);
         User user = userService.findUserByJwtToken(jwt);
-        Order order = orderService.cancelOrder(orderId, user);
-
-        try {
-            Seller seller = sellerService.getSellerById(order.getSellerId());
-            SellerReport report = sellerReportService.getSellerReport(seller);
-            report.setCancelledOrders(report.getCancelledOrders() + 1);
-            report.setTotalRefunds(report.getTotalRefunds() + order.getTotalSellingPrice());
-            sellerReportService.updateSellerReport(report);
-        } catch (Exception e) {
-            System.err.println("Error updating seller report: " + e.getMessage());
-        }
+        // The seller report is updated from the cancellation event
+        orderService.cancelOrder(orderId, user);
 
         return ResponseEntity.ok("Order cancelled successfully");
     }
@@ -1,5 +1,7 @@
 package com.bazar.controller;
 
+import com.bazar.analytics.OrderEventLog;
+import com.bazar.domain.OrderEventType;
 import com.bazar.model.*;
 import com.bazar.response.ApiResponse;
 import com.bazar.response.PaymentLinkResponse;
@@ -15,9 +17,8 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentController {
     private final PaymentService paymentService;
     private final UserService userService;
-    private final SellerService sellerService;
-    private final SellerReportService sellerReportService;
     private final TransactionService transactionService;
+    private final OrderEventLog orderEventLog;
 
     @GetMapping("/{paymentId}")
     public ResponseEntity<ApiResponse> paymentSuccessHandle(@PathVariable String paymentId, @RequestParam String paymentLinkId,@RequestHeader ("Authorizaion") String jwt) throws Exception {
@@ -28,14 +29,10 @@ public class PaymentController {
         if (paymentSuccess){
             for (Order order:payementOrder.getOrders()) {
                 transactionService.createTransaction(order);
-                Seller seller = sellerService.getSellerById(order.getSellerId());
-                SellerReport report=sellerReportService.getSellerReport(seller);
-                report.setTotalOrders(report.getTotalOrders()+1);
-                report.setTotalEarnings(report.getTotalEarnings()+order.getTotalSellingPrice());
-                report.setTotalSales(report.getTotalSales()+order.getOrderItems().size());
-                sellerReportService.updateSellerReport(report);
-
             }
+            // Seller reports follow from the event; the Stripe webhook publishes the same one
+            orderEventLog.publish(payementOrder.getOrders().stream().map(Order::getId).toList(),
+                    OrderEventType.PAID);
         }
         ApiResponse res= new ApiResponse();
         res.setMessage("Payment processed successfully");
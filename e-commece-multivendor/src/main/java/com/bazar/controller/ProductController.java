@@ -2,7 +2,12 @@ package com.bazar.controller;
 
 import com.bazar.exceptions.ProductException;
 import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ProductCardDTO;
+import com.bazar.response.ProductFacetsDTO;
 import com.bazar.service.ProductService;
+import com.bazar.service.ProductVariantService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
@@ -17,19 +22,33 @@ import java.util.List;
 @RequestMapping("/products")
 public class ProductController {
     private final ProductService productService;
+    private final ProductVariantService productVariantService;
 
     @GetMapping("/{productId}")
     public ResponseEntity<Product> getProductById(@PathVariable Long productId) throws ProductException {
         Product product = productService.findProductById(productId);
         return new ResponseEntity<>(product, HttpStatus.OK);
     }
+    @GetMapping("/{productId}/variants")
+    public ResponseEntity<List<ProductVariant>> getProductVariants(@PathVariable Long productId) {
+        List<ProductVariant> variants = productVariantService.getVariants(productId);
+        return new ResponseEntity<>(variants, HttpStatus.OK);
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProduct(@RequestParam(required = false)String query){
-        List<Product> products= productService.searchProducts(query);
+    public ResponseEntity<List<ProductCardDTO>> searchProduct(@RequestParam(required = false)String query){
+        List<ProductCardDTO> products= productService.searchProducts(query);
+        return new ResponseEntity<>(products, HttpStatus.OK);
+    }
+    @GetMapping("/search/paged")
+    public ResponseEntity<Page<ProductCardDTO>> searchProductPaged(@RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "0") Integer pageNumber,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        Page<ProductCardDTO> products = productService.searchProducts(query, pageNumber, pageSize);
         return new ResponseEntity<>(products, HttpStatus.OK);
     }
     @GetMapping
-    public ResponseEntity<Page<Product>> getAllProducts(
+    public ResponseEntity<Page<ProductCardDTO>> getAllProducts(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) String colors,
@@ -42,7 +61,39 @@ public class ProductController {
             @RequestParam(defaultValue = "0") Integer pageNumber,
             @RequestParam(defaultValue = "10") Integer pageSize
     ) {
-        Page<Product> products = productService.getAllProducts(category, brand, colors, sizes, minPrice, maxPrice, minDiscount, sort, stock, pageNumber, pageSize);
+        Page<ProductCardDTO> products = productService.getAllProducts(category, brand, colors, sizes, minPrice, maxPrice, minDiscount, sort, stock, pageNumber, pageSize);
+        return new ResponseEntity<>(products, HttpStatus.OK);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getProductFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String colors,
+            @RequestParam(required = false) String sizes,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) Integer minDiscount
+    ) {
+        ProductFacetsDTO facets = productService.getProductFacets(category, colors, sizes, minPrice, maxPrice, minDiscount);
+        return new ResponseEntity<>(facets, HttpStatus.OK);
+    }
+
+    // Keyset pagination: pass an empty cursor for the first page, then the returned nextCursor
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ProductCardDTO>> getProductsByCursor(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String colors,
+            @RequestParam(required = false) String sizes,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) Integer minDiscount,
+            @RequestParam(required = false) String sort,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        CursorPage<ProductCardDTO> products = productService.getProductsByCursor(category, colors, sizes, minPrice, maxPrice,
+                minDiscount, sort, cursor, pageSize, withTotal);
         return new ResponseEntity<>(products, HttpStatus.OK);
     }
 
@@ -4,6 +4,8 @@ import com.bazar.model.Review;
 import com.bazar.model.User;
 import com.bazar.request.CreateReviewRequest;
 import com.bazar.response.ApiResponse;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ReviewDTO;
 import com.bazar.service.ProductService;
 import com.bazar.service.ReviewService;
 import com.bazar.service.UserService;
@@ -27,6 +29,17 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
 
+    // Paged feed: pass an empty cursor for the first page, then the returned nextCursor
+    @GetMapping(value = "/products/{productId}/reviews", params = "cursor")
+    public ResponseEntity<CursorPage<ReviewDTO>> getReviewFeed(@PathVariable Long productId,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) List<Integer> stars,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        CursorPage<ReviewDTO> reviews = reviewService.getReviewFeed(productId, sort, stars, cursor, pageSize);
+        return ResponseEntity.ok(reviews);
+    }
+
     @PostMapping("/products/{productId}/reviews")
     public ResponseEntity<Review> writeReview(@RequestHeader("Authorization") String jwt,
             @PathVariable Long productId,
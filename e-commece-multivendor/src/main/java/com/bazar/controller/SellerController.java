@@ -1,6 +1,7 @@
 package com.bazar.controller;
 
 import com.bazar.config.JwtProvider;
+import com.bazar.analytics.AnalyticsRange;
 import com.bazar.domain.AccountStatus;
 import com.bazar.model.Order;
 import com.bazar.model.Seller;
@@ -152,10 +153,12 @@ public class SellerController {
     @GetMapping("/analytics/top-products")
     public ResponseEntity<List<TopSellingProductDTO>> getTopProducts(
             @RequestHeader("Authorization") String jwt,
-            @RequestParam(defaultValue = "5") int limit) throws Exception {
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "all") String range) throws Exception {
 
         Seller seller = sellerService.getSellerProfile(jwt);
-        List<TopSellingProductDTO> topProducts = sellerService.getTopSellingProducts(seller.getId(), limit);
+        List<TopSellingProductDTO> topProducts = sellerService.getTopSellingProducts(seller.getId(), limit,
+                AnalyticsRange.of(range));
         return ResponseEntity.ok(topProducts);
     }
 
@@ -1,17 +1,25 @@
 package com.bazar.controller;
 
 import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentStatus;
+import com.bazar.export.DataExporter;
+import com.bazar.export.ExportFormat;
 import com.bazar.model.Order;
 import com.bazar.model.Seller;
 import com.bazar.model.Address;
+import com.bazar.response.CursorPage;
+import com.bazar.response.OrderSummaryDTO;
 import com.bazar.service.OrderService;
 import com.bazar.service.SellerService;
 import com.bazar.service.EmailService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -21,6 +29,7 @@ public class SellerOrderController {
     private final OrderService orderService;
     private final SellerService sellerService;
     private final EmailService emailService;
+    private final DataExporter dataExporter;
 
     @GetMapping
     public ResponseEntity<List<Order>> getAllOrdersHandler(@RequestHeader("Authorization") String jwt)
@@ -30,6 +39,44 @@ public class SellerOrderController {
         return new ResponseEntity<>(orders, HttpStatus.ACCEPTED);
     }
 
+    // Paged history: pass an empty cursor for the first page, then the returned nextCursor
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<OrderSummaryDTO>> getOrderPageHandler(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) PaymentStatus paymentStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String customer,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        Seller seller = sellerService.getSellerProfile(jwt);
+        CursorPage<OrderSummaryDTO> orders = orderService.sellerOrderPage(seller.getId(), status, paymentStatus,
+                from, to, customer, cursor, pageSize);
+        return ResponseEntity.ok(orders);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrdersHandler(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        Seller seller = sellerService.getSellerProfile(jwt);
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return dataExporter.download("orders", exportFormat, gzip,
+                dataExporter.orders(seller.getId(), from, to, exportFormat, gzip));
+    }
+
     @PatchMapping("/{orderId}/status/{orderStatus}")
     public ResponseEntity<Order> updateOrderStatusHandler(@PathVariable Long orderId,
             @PathVariable OrderStatus orderStatus,
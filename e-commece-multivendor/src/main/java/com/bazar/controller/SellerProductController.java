@@ -1,18 +1,28 @@
 package com.bazar.controller;
 
+import com.bazar.catalog.ProductImportJob;
+import com.bazar.catalog.ProductImporter;
 import com.bazar.exceptions.ProductException;
 import com.bazar.model.Product;
 import com.bazar.model.Seller;
 import com.bazar.request.CreateProductRequest;
+import com.bazar.request.StockUpdateRequest;
+import com.bazar.response.ProductCardDTO;
+import com.bazar.response.ProductImportStatusDTO;
 import com.bazar.response.ProductStatsDTO;
 import com.bazar.service.ProductService;
 import com.bazar.service.SellerService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,12 +30,13 @@ import java.util.List;
 public class SellerProductController {
     private final ProductService productService;
     private final SellerService sellerService;
+    private final ProductImporter productImporter;
 
     @GetMapping()
-    public ResponseEntity<List<Product>> getProductBySellerId(@RequestHeader("Authorization") String jwt)
+    public ResponseEntity<List<ProductCardDTO>> getProductBySellerId(@RequestHeader("Authorization") String jwt)
             throws Exception {
         Seller seller = sellerService.getSellerProfile(jwt);
-        List<Product> products = productService.getProductsBySellerId(seller.getId());
+        List<ProductCardDTO> products = productService.getProductsBySellerId(seller.getId());
         return ResponseEntity.ok(products);
     }
 
@@ -57,6 +68,23 @@ public class SellerProductController {
         }
     }
 
+    @PutMapping("/{productId}/stock")
+    public ResponseEntity<Void> updateStock(@PathVariable Long productId,
+            @Valid @RequestBody StockUpdateRequest request,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        Seller seller = sellerService.getSellerProfile(jwt);
+        try {
+            Product product = productService.findProductById(productId);
+            if (product.getSeller() == null || !product.getSeller().getId().equals(seller.getId())) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            productService.updateStock(productId, request.getQuantity());
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (ProductException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
     @GetMapping("/statistics")
     public ResponseEntity<ProductStatsDTO> getProductStatistics(@RequestHeader("Authorization") String jwt)
             throws Exception {
@@ -64,4 +92,35 @@ public class SellerProductController {
         ProductStatsDTO stats = productService.getProductStatsBySellerId(seller.getId());
         return ResponseEntity.ok(stats);
     }
+
+    /**
+     * Start a bulk import of the request body: CSV with a header line, or JSON (an array or one object per line)
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(@RequestParam(defaultValue = "csv") String format,
+            @RequestHeader("Authorization") String jwt, HttpServletRequest request) throws Exception {
+        Seller seller = sellerService.getSellerProfile(jwt);
+        Map<String, String> error = new HashMap<>();
+        try {
+            ProductImportJob job = productImporter.start(seller, format, request.getInputStream());
+            return new ResponseEntity<>(job.status(), HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (RejectedExecutionException e) {
+            error.put("error", "Too many imports in progress, please retry later");
+            return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ProductImportStatusDTO> getImportStatus(@PathVariable String jobId,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        Seller seller = sellerService.getSellerProfile(jwt);
+        ProductImportJob job = productImporter.get(jobId);
+        if (job == null || !job.getSellerId().equals(seller.getId())) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(job.status());
+    }
 }
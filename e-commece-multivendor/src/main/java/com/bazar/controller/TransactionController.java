@@ -1,16 +1,22 @@
 package com.bazar.controller;
 
+import com.bazar.export.DataExporter;
+import com.bazar.export.ExportFormat;
 import com.bazar.model.Seller;
 import com.bazar.model.Transaction;
 import com.bazar.service.SellerService;
 import com.bazar.service.TransactionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,6 +25,7 @@ import java.util.List;
 public class TransactionController {
     private final TransactionService transactionService;
     private final SellerService sellerService;
+    private final DataExporter dataExporter;
     @GetMapping("/seller")
     public ResponseEntity<List<Transaction>> getTransactionBySeller(@RequestHeader("Authorization")String jwt) throws Exception {
         Seller seller=sellerService.getSellerProfile(jwt);
@@ -26,6 +33,26 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
 
     }
+    @GetMapping("/seller/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsBySeller(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader("Authorization") String jwt) throws Exception {
+        Seller seller = sellerService.getSellerProfile(jwt);
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return dataExporter.download("transactions", exportFormat, gzip,
+                dataExporter.transactions(seller.getId(), from, to, exportFormat, gzip));
+    }
     @GetMapping
     public ResponseEntity<List<Transaction>> getAllTransactions() {
         List<Transaction> transactions = transactionService.getAllTransactions();
@@ -0,0 +1,8 @@
+package com.bazar.domain;
+
+public enum ImportStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
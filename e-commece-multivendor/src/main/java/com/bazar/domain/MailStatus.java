@@ -0,0 +1,8 @@
+package com.bazar.domain;
+
+public enum MailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,10 @@
+package com.bazar.domain;
+
+public enum OrderEventType {
+    CREATED,
+    PAID,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED,
+    REFUNDED
+}
@@ -0,0 +1,7 @@
+package com.bazar.domain;
+
+public enum ReservationStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED
+}
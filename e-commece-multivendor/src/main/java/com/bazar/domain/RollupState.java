@@ -0,0 +1,10 @@
+package com.bazar.domain;
+
+/**
+ * How much of an order the seller analytics rollups currently hold; null means nothing
+ */
+public enum RollupState {
+    SOLD,
+    DELIVERED,
+    CANCELLED
+}
@@ -0,0 +1,8 @@
+package com.bazar.domain;
+
+public enum WebhookStatus {
+    RECEIVED,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
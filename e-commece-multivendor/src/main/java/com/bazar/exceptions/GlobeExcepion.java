@@ -3,8 +3,10 @@ package com.bazar.exceptions;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
+@RestControllerAdvice
 public class GlobeExcepion {
     @ExceptionHandler(SellerException.class)
     public ResponseEntity<ErrorDetails> sellerExceptionHandler(SellerException se, WebRequest req) {
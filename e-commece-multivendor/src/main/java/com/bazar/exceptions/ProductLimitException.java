@@ -0,0 +1,16 @@
+package com.bazar.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The seller's subscription plan has no room for more products.
+ */
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class ProductLimitException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ProductLimitException(String message) {
+        super(message);
+    }
+}
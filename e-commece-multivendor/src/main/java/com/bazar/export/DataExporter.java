@@ -0,0 +1,237 @@
+package com.bazar.export;
+
+import com.bazar.utils.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Order and transaction exports for sellers and admins. Rows are read with a forward-only cursor as
+ * flat projections (no entities, so nothing piles up in the persistence context and no lazy loads
+ * run on the connection being streamed) and written straight to the response, optionally gzipped.
+ * Heap use is the same for a hundred rows as for millions.
+ * <p>
+ * Unless {@code exports.fetch-size} is set, the cursor fetches 1000 rows per round trip, or streams
+ * row by row on MySQL, where Connector/J otherwise buffers the whole result. A download may run for
+ * {@code exports.timeout}, longer than other async requests.
+ */
+@Component
+public class DataExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataExporter.class);
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final String[] ORDER_COLUMNS = { "id", "orderId", "orderDate", "sellerId", "customerEmail",
+            "orderStatus", "paymentStatus", "totalItem", "totalMrpPrice", "totalSellingPrice", "city", "state",
+            "pincode", "deliverDate" };
+
+    private static final String ORDERS = "SELECT o.id, o.orderId, o.orderDate, o.sellerId, u.email, "
+            + "o.orderStatus, o.paymentStatus, o.totalItem, o.totalMrpPrice, o.totalSellingPrice, "
+            + "a.city, a.state, a.pincode, o.deliverDate "
+            + "FROM Order o LEFT JOIN o.user u LEFT JOIN o.shippingAddress a "
+            + "WHERE o.orderDate >= :from AND o.orderDate < :to";
+
+    private static final String[] TRANSACTION_COLUMNS = { "id", "date", "sellerId", "businessName",
+            "customerEmail", "orderId", "orderNumber", "amount", "paymentStatus" };
+
+    private static final String TRANSACTIONS = "SELECT t.id, t.date, s.id, s.businessDetails.businessName, "
+            + "c.email, o.id, o.orderId, o.totalSellingPrice, o.paymentStatus "
+            + "FROM Transaction t LEFT JOIN t.seller s LEFT JOIN t.customer c LEFT JOIN t.order o "
+            + "WHERE t.date >= :from AND t.date < :to";
+
+    private interface RowWriter extends Flushable {
+        void write(Object[] row) throws IOException;
+    }
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final int fetchSize;
+    private final Duration timeout;
+
+    public DataExporter(EntityManager entityManager, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager, DataSource dataSource,
+            @Value("${exports.fetch-size:0}") int fetchSize,
+            @Value("${exports.timeout:1h}") Duration timeout) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setReadOnly(true);
+        this.fetchSize = fetchSize != 0 ? fetchSize : defaultFetchSize(dataSource);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Orders placed in the date range (both days included), of one seller or of all sellers when null
+     */
+    public StreamingResponseBody orders(Long sellerId, LocalDate from, LocalDate to, ExportFormat format,
+            boolean gzip) {
+        // A seller's orders come in (seller_id, order_date) index order; all orders in primary key order
+        String jpql = sellerId != null
+                ? ORDERS + " AND o.sellerId = :sellerId ORDER BY o.orderDate, o.id"
+                : ORDERS + " ORDER BY o.id";
+        return body("orders", ORDER_COLUMNS, jpql, sellerId, from, to, format, gzip);
+    }
+
+    /**
+     * Transactions dated in the range (both days included), of one seller or of all sellers when null
+     */
+    public StreamingResponseBody transactions(Long sellerId, LocalDate from, LocalDate to, ExportFormat format,
+            boolean gzip) {
+        String jpql = sellerId != null
+                ? TRANSACTIONS + " AND t.seller.id = :sellerId ORDER BY t.date, t.id"
+                : TRANSACTIONS + " ORDER BY t.id";
+        return body("transactions", TRANSACTION_COLUMNS, jpql, sellerId, from, to, format, gzip);
+    }
+
+    /**
+     * Download response for an export body: chunked, with a file name such as orders.csv.gz. Extends the
+     * async timeout of the current request to the export timeout.
+     */
+    public ResponseEntity<StreamingResponseBody> download(String name, ExportFormat format, boolean gzip,
+            StreamingResponseBody body) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            // Set by the handler adapter before the controller runs, applied when the body starts streaming
+            AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(servlet.getRequest()).getAsyncWebRequest();
+            if (asyncRequest != null) {
+                asyncRequest.setTimeout(timeout.toMillis());
+            }
+        }
+        String fileName = name + "." + format.extension + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(format.contentType + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    private StreamingResponseBody body(String name, String[] columns, String jpql, Long sellerId, LocalDate from,
+            LocalDate to, ExportFormat format, boolean gzip) {
+        LocalDateTime start = (from != null ? from : LocalDate.of(1970, 1, 1)).atStartOfDay();
+        LocalDateTime end = (to != null ? to : LocalDate.now()).plusDays(1).atStartOfDay();
+        return out -> {
+            long started = System.currentTimeMillis();
+            GZIPOutputStream zip = gzip ? new GZIPOutputStream(out, 1 << 16) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(zip != null ? zip : out,
+                    StandardCharsets.UTF_8), 1 << 16);
+            RowWriter rows = format == ExportFormat.CSV ? csv(writer, columns) : ndjson(writer, columns);
+            long count;
+            try {
+                count = tx.execute(status -> {
+                    TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class)
+                            .setParameter("from", start)
+                            .setParameter("to", end)
+                            .setHint("org.hibernate.fetchSize", fetchSize)
+                            .setHint("org.hibernate.readOnly", true);
+                    if (sellerId != null) {
+                        query.setParameter("sellerId", sellerId);
+                    }
+                    long written = 0;
+                    try (Stream<Object[]> stream = query.getResultStream()) {
+                        Iterator<Object[]> it = stream.iterator();
+                        while (it.hasNext()) {
+                            rows.write(it.next());
+                            written++;
+                        }
+                    } catch (IOException e) {
+                        // Usually the client went away; ends the query and the transaction
+                        throw new UncheckedIOException(e);
+                    }
+                    return written;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rows.flush();
+            writer.flush();
+            if (zip != null) {
+                zip.finish();
+            }
+            logger.info("Exported {} {} rows{} in {} ms", count, name,
+                    sellerId != null ? " of seller " + sellerId : "", System.currentTimeMillis() - started);
+        };
+    }
+
+    private static int defaultFetchSize(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "MySQL".equalsIgnoreCase(product) ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
+        } catch (MetaDataAccessException e) {
+            logger.warn("Could not read the database product, exports fetch {} rows at a time", DEFAULT_FETCH_SIZE, e);
+            return DEFAULT_FETCH_SIZE;
+        }
+    }
+
+    private static RowWriter csv(Writer writer, String[] columns) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeRecord((Object[]) columns);
+        return new RowWriter() {
+            @Override
+            public void write(Object[] row) throws IOException {
+                csv.writeRecord(row);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                csv.flush();
+            }
+        };
+    }
+
+    // One JSON object per line, written with the application's mapper so dates and enums look like the API's
+    private RowWriter ndjson(Writer writer, String[] columns) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        return new RowWriter() {
+            @Override
+            public void write(Object[] row) throws IOException {
+                json.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    json.writeFieldName(columns[i]);
+                    json.writeObject(row[i]);
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+
+            @Override
+            public void flush() throws IOException {
+                json.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.bazar.export;
+
+import java.util.Locale;
+
+/**
+ * File formats of the order and transaction exports
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv"),
+    NDJSON("ndjson", "application/x-ndjson");
+
+    final String extension;
+    final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public static ExportFormat of(String code) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equals(code == null ? "" : code.trim().toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format " + code + ", expected csv or ndjson");
+    }
+}
@@ -0,0 +1,171 @@
+package com.bazar.inventory;
+
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.StockReservationRepository;
+import com.bazar.utils.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flash-sale mode: the available quantity of a few designated products (explicit ids plus the
+ * stock-tracked products of the home page deals) lives in {@link StripedStock} counters, so
+ * checkouts take it without touching the product row. The reservations written by those
+ * checkouts are flagged deferred and {@code InventoryService.applyDeferred} subtracts them from
+ * product.quantity in batches; since that log commits with the order, a restart rebuilds each
+ * counter as quantity minus the deferred reservations and nothing is lost.
+ * <p>
+ * The counters are per JVM: only enable this when a single node takes checkouts.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.hot.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class HotInventory {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotInventory.class);
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.hot.product-ids:}")
+    private Set<Long> pinnedProductIds;
+
+    @Value("${inventory.hot.max-products:100}")
+    private int maxProducts;
+
+    @Value("${inventory.hot.stripes:0}")
+    private int stripes;
+
+    private final Map<Long, StripedStock> counters = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    /**
+     * Counter of a hot product, null when the product is not hot
+     */
+    public StripedStock counter(Long productId) {
+        return counters.get(productId);
+    }
+
+    /**
+     * Take stock from a counter inside the current transaction; the units go back automatically
+     * if it rolls back. Returns false when the counter is short.
+     */
+    public boolean take(StripedStock stock, int quantity) {
+        if (!stock.tryTake(quantity)) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stock.add(quantity);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Put units back once the current transaction commits; no-op for products that are not hot
+     */
+    public void giveBack(Long productId, int quantity) {
+        TransactionHooks.afterCommit(() -> {
+            StripedStock stock = counters.get(productId);
+            if (stock != null) {
+                stock.add(quantity);
+            }
+        });
+    }
+
+    /**
+     * Follow an absolute stock change made on the product row by the same delta
+     */
+    public void adjust(Long productId, long delta) {
+        TransactionHooks.afterCommit(() -> {
+            StripedStock stock = counters.get(productId);
+            if (stock == null) {
+                return;
+            }
+            if (delta > 0) {
+                stock.add(delta);
+            } else {
+                // Units already reserved stay reserved, the counter just bottoms out at zero
+                stock.takeUpTo(-delta);
+            }
+        });
+    }
+
+    /**
+     * Re-read which products are hot: new ones get a counter rebuilt from the database, products
+     * that left the set go back to the conditional UPDATE path (their deferred backlog is still applied)
+     */
+    @Scheduled(initialDelayString = "${inventory.hot.refresh-interval:PT5M}",
+            fixedDelayString = "${inventory.hot.refresh-interval:PT5M}")
+    public void refresh() {
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            Set<Long> designated = new LinkedHashSet<>(pinnedProductIds);
+            List<Long> dealProducts = tx.execute(status -> productRepository.findDealProductIds(
+                    PageRequest.of(0, Math.max(1, maxProducts))));
+            if (dealProducts != null) {
+                for (Long productId : dealProducts) {
+                    if (designated.size() >= maxProducts) {
+                        break;
+                    }
+                    designated.add(productId);
+                }
+            }
+
+            boolean changed = counters.keySet().retainAll(designated);
+            for (Long productId : designated) {
+                if (!counters.containsKey(productId)) {
+                    Long available = tx.execute(status -> availableInDatabase(productId));
+                    if (available != null) {
+                        counters.putIfAbsent(productId, new StripedStock(available, stripeCount()));
+                        changed = true;
+                    }
+                }
+            }
+            if (changed) {
+                logger.info("Hot inventory: {} products held in memory", counters.size());
+            }
+        } catch (Exception e) {
+            logger.error("Hot inventory refresh failed", e);
+        }
+    }
+
+    private Long availableInDatabase(Long productId) {
+        List<Integer> quantity = jdbcTemplate.queryForList(
+                "SELECT quantity FROM product WHERE id = ? AND track_inventory = true", Integer.class, productId);
+        if (quantity.isEmpty() || quantity.get(0) == null) {
+            return null;
+        }
+        return Math.max(0, quantity.get(0) - reservationRepository.sumDeferred(productId));
+    }
+
+    private int stripeCount() {
+        return stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,112 @@
+package com.bazar.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Available quantity of one product spread over cache-line padded CAS cells. A take tries the
+ * calling thread's own cell first and only then gathers from the others, so concurrent checkouts
+ * rarely touch the same cell, and no cell ever goes below zero, so the total cannot either.
+ * <p>
+ * Near the last units a take can report out of stock while another thread is mid-gather and
+ * briefly holds units it will put back; it never oversells.
+ */
+public final class StripedStock {
+
+    // 8 longs = 64 bytes, one cell per cache line
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedStock(long available, int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes));
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size * PAD);
+        long share = Math.max(0, available) / size;
+        long extra = Math.max(0, available) % size;
+        for (int i = 0; i < size; i++) {
+            cells.set(i * PAD, share + (i < extra ? 1 : 0));
+        }
+    }
+
+    /**
+     * Take all of {@code quantity} or nothing
+     */
+    public boolean tryTake(int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        int home = home();
+        if (takeFromCell(home, quantity)) {
+            return true;
+        }
+        long taken = gather(home, quantity);
+        if (taken == quantity) {
+            return true;
+        }
+        add(taken);
+        return false;
+    }
+
+    /**
+     * Take as much of {@code quantity} as is available, returns the amount taken
+     */
+    public long takeUpTo(long quantity) {
+        return quantity <= 0 ? 0 : gather(home(), quantity);
+    }
+
+    public void add(long quantity) {
+        if (quantity > 0) {
+            cells.getAndAdd(home() * PAD, quantity);
+        }
+    }
+
+    /**
+     * Sum of all cells; exact only when no take or add is in flight
+     */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+    private boolean takeFromCell(int cell, long quantity) {
+        int index = cell * PAD;
+        long current;
+        do {
+            current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!cells.compareAndSet(index, current, current - quantity));
+        return true;
+    }
+
+    // Drain cells starting at home until quantity is collected or every cell has been visited once
+    private long gather(int home, long quantity) {
+        long taken = 0;
+        for (int step = 0; step <= mask && taken < quantity; step++) {
+            int index = ((home + step) & mask) * PAD;
+            long current;
+            long part;
+            do {
+                current = cells.get(index);
+                part = Math.min(current, quantity - taken);
+                if (part <= 0) {
+                    break;
+                }
+            } while (!cells.compareAndSet(index, current, current - part));
+            if (part > 0) {
+                taken += part;
+            }
+        }
+        return taken;
+    }
+
+    private int home() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
@@ -0,0 +1,244 @@
+package com.bazar.mail;
+
+import com.bazar.domain.MailStatus;
+import com.bazar.model.OutboundMail;
+import com.bazar.repository.OutboundMailRepository;
+import com.bazar.utils.DaemonThreads;
+import com.bazar.utils.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Outbound mail pipeline. {@link #enqueue} only inserts a row, so requests never wait on SMTP; the
+ * mail is delivered once the caller's transaction commits. A single dispatcher claims due rows
+ * (SKIP LOCKED, so several nodes can share the outbox) and hands them to a bounded pool of senders,
+ * each of which pushes a chunk of messages through one SMTP connection. Failures are retried with
+ * exponential backoff and dead-lettered after {@code mail.max-attempts}.
+ */
+@Component
+public class MailOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutbox.class);
+
+    private static final List<MailStatus> DUE = List.of(MailStatus.PENDING, MailStatus.SENDING);
+
+    private final OutboundMailRepository repository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate tx;
+    private final String from;
+    private final int batchSize;
+    private final int messagesPerConnection;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final ThreadPoolExecutor dispatcher;
+    private final ThreadPoolExecutor senders;
+
+    public MailOutbox(OutboundMailRepository repository, JavaMailSender mailSender,
+            PlatformTransactionManager transactionManager,
+            @Value("${mail.from:noreply@bazaar.com}") String from,
+            @Value("${mail.outbox.senders:4}") int senderThreads,
+            @Value("${mail.outbox.batch-size:100}") int batchSize,
+            @Value("${mail.outbox.messages-per-connection:20}") int messagesPerConnection,
+            @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${mail.outbox.initial-backoff:30s}") Duration initialBackoff,
+            @Value("${mail.outbox.max-backoff:1h}") Duration maxBackoff,
+            @Value("${mail.outbox.claim-timeout:5m}") Duration claimTimeout) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.from = from;
+        this.batchSize = batchSize;
+        this.messagesPerConnection = Math.max(1, messagesPerConnection);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+        // One running drain plus at most one queued wake-up; further wake-ups are already covered
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                DaemonThreads.named("mail-dispatcher"), new ThreadPoolExecutor.DiscardPolicy());
+        // A full queue makes the dispatcher send the chunk itself, which throttles claiming
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(senderThreads), DaemonThreads.named("mail-sender"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Queue a mail for delivery after the current transaction commits (immediately without one)
+     */
+    public void enqueue(String recipient, String subject, String html) {
+        OutboundMail mail = new OutboundMail();
+        mail.setRecipient(recipient);
+        mail.setSubject(subject);
+        mail.setBody(html);
+        repository.save(mail);
+        TransactionHooks.afterCommit(this::wake);
+    }
+
+    public void wake() {
+        dispatcher.execute(this::drain);
+    }
+
+    // Retries, mail from other nodes and anything a lost wake-up left behind
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:PT15S}")
+    public void poll() {
+        wake();
+    }
+
+    /**
+     * Deliver everything that is due, batch by batch; runs on the dispatcher thread
+     */
+    void drain() {
+        try {
+            while (true) {
+                List<OutboundMail> claimed = claim();
+                if (claimed == null || claimed.isEmpty()) {
+                    return;
+                }
+                record(claimed, deliver(claimed));
+                if (claimed.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Mail dispatch failed, the outbox is retried on the next poll", e);
+        }
+    }
+
+    private List<OutboundMail> claim() {
+        return tx.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboundMail> due = repository.lockDue(DUE, now, PageRequest.of(0, batchSize));
+            for (OutboundMail mail : due) {
+                // Counted up front, so a mail that keeps crashing its sender still ends up dead-lettered
+                mail.setStatus(MailStatus.SENDING);
+                mail.setAttempts(mail.getAttempts() + 1);
+                mail.setNextAttemptAt(now.plus(claimTimeout));
+            }
+            return due;
+        });
+    }
+
+    /**
+     * Send the claimed mail in chunks on the sender pool; returns the failure of each mail that was not sent
+     */
+    private Map<Long, Exception> deliver(List<OutboundMail> claimed) throws InterruptedException {
+        Map<List<OutboundMail>, Future<Map<Long, Exception>>> chunks = new LinkedHashMap<>();
+        for (int start = 0; start < claimed.size(); start += messagesPerConnection) {
+            List<OutboundMail> chunk = claimed.subList(start, Math.min(claimed.size(), start + messagesPerConnection));
+            chunks.put(chunk, senders.submit(() -> send(chunk)));
+        }
+        Map<Long, Exception> failures = new HashMap<>();
+        for (Map.Entry<List<OutboundMail>, Future<Map<Long, Exception>>> chunk : chunks.entrySet()) {
+            try {
+                failures.putAll(chunk.getValue().get());
+            } catch (ExecutionException e) {
+                // send() reports its own failures, so this is unexpected; count the whole chunk as failed
+                Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                chunk.getKey().forEach(mail -> failures.put(mail.getId(), cause));
+            }
+        }
+        return failures;
+    }
+
+    private Map<Long, Exception> send(List<OutboundMail> chunk) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, Long> ids = new IdentityHashMap<>();
+        for (OutboundMail mail : chunk) {
+            try {
+                ids.put(toMessage(mail), mail.getId());
+            } catch (MessagingException | MailException e) {
+                failures.put(mail.getId(), e);
+            }
+        }
+        if (ids.isEmpty()) {
+            return failures;
+        }
+        try {
+            // JavaMailSenderImpl sends the whole array over a single connection
+            mailSender.send(ids.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                ids.values().forEach(id -> failures.put(id, e));
+            }
+            failed.forEach((message, cause) -> failures.put(ids.get(message), cause));
+        } catch (MailException e) {
+            ids.values().forEach(id -> failures.put(id, e));
+        }
+        return failures;
+    }
+
+    private MimeMessage toMessage(OutboundMail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
+        helper.setSubject(mail.getSubject());
+        helper.setText(mail.getBody(), true);
+        helper.setTo(mail.getRecipient());
+        helper.setFrom(from);
+        return message;
+    }
+
+    private void record(List<OutboundMail> claimed, Map<Long, Exception> failures) {
+        List<Long> ids = claimed.stream().map(OutboundMail::getId).toList();
+        tx.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (OutboundMail mail : repository.findAllById(ids)) {
+                Exception failure = failures.get(mail.getId());
+                if (failure == null) {
+                    mail.setStatus(MailStatus.SENT);
+                    mail.setSentAt(now);
+                    mail.setLastError(null);
+                    continue;
+                }
+                mail.setLastError(abbreviate(String.valueOf(failure.getMessage())));
+                if (mail.getAttempts() >= maxAttempts) {
+                    mail.setStatus(MailStatus.DEAD);
+                    logger.error("Mail {} to {} ({}) dead-lettered after {} attempts: {}", mail.getId(),
+                            mail.getRecipient(), mail.getSubject(), mail.getAttempts(), failure.getMessage());
+                } else {
+                    mail.setStatus(MailStatus.PENDING);
+                    mail.setNextAttemptAt(now.plus(backoff(mail.getAttempts())));
+                    logger.warn("Mail {} to {} failed (attempt {}), retrying at {}: {}", mail.getId(),
+                            mail.getRecipient(), mail.getAttempts(), mail.getNextAttemptAt(), failure.getMessage());
+                }
+            }
+        });
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        // Up to 20% jitter so a burst of failures does not retry in lockstep
+        long jitter = (long) (delay.toMillis() * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay.plusMillis(jitter);
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,73 @@
+package com.bazar.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTML template split once into literal text and {@code {{name}}} placeholders, so rendering is
+ * a single pass of appends. Placeholder values are HTML-escaped.
+ */
+public final class MailTemplate {
+
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private MailTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static MailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, open));
+            names.add(source.substring(open + 2, close).trim());
+            position = close + 2;
+        }
+        return new MailTemplate(literals.toArray(String[]::new), names.toArray(String[]::new));
+    }
+
+    /**
+     * Render with the given values; a missing value renders as empty
+     */
+    public String render(Map<String, String> model) {
+        StringBuilder html = new StringBuilder(literalLength + 64 * names.length);
+        for (int i = 0; i < names.length; i++) {
+            html.append(literals[i]);
+            escape(model.get(names[i]), html);
+        }
+        return html.append(literals[names.length]).toString();
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.bazar.mail;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The mail templates under {@code templates/mail/}, read and compiled on first use and kept for
+ * the life of the application.
+ */
+@Component
+public class MailTemplates {
+
+    private static final String LOCATION = "templates/mail/";
+
+    private final Map<String, MailTemplate> compiled = new ConcurrentHashMap<>();
+
+    public String render(String name, Map<String, String> model) {
+        return compiled.computeIfAbsent(name, MailTemplates::load).render(model);
+    }
+
+    private static MailTemplate load(String name) {
+        try (InputStream in = new ClassPathResource(LOCATION + name + ".html").getInputStream()) {
+            return MailTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Mail template " + name + " could not be read", e);
+        }
+    }
+}
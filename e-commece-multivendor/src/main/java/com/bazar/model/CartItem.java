@@ -25,6 +25,8 @@ public class CartItem {
     @ManyToOne
     private Product product;
     private String size;
+    @ManyToOne
+    private ProductVariant variant;
     private int quantity = 1;
     private Integer mrpPrice;
     private Integer sellingPrice;
@@ -2,6 +2,8 @@ package com.bazar.model;
 
 import com.bazar.domain.OrderStatus;
 import com.bazar.domain.PaymentStatus;
+import com.bazar.domain.RollupState;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -15,10 +17,15 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode(exclude = { "orderItems" })
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_seller_date", columnList = "seller_id, order_date"),
+        @Index(name = "idx_orders_user_date", columnList = "user_id, order_date")
+})
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // Pooled sequence (a table on MySQL): one round trip hands out 50 ids, which keeps checkout inserts batchable
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     private String orderId;
     @ManyToOne
@@ -37,4 +44,9 @@ public class Order {
     private PaymentStatus paymentStatus = PaymentStatus.PENDING;
     private LocalDateTime orderDate = LocalDateTime.now();
     private LocalDateTime deliverDate = orderDate.plusDays(7);
+    // Written only by SellerAnalytics through JDBC, never by an entity flush
+    @JsonIgnore
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rollup_state", length = 16, insertable = false, updatable = false)
+    private RollupState rollupState;
 }
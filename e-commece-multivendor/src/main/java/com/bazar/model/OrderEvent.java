@@ -0,0 +1,49 @@
+package com.bazar.model;
+
+import com.bazar.domain.OrderEventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only history of what happened to an order. Each event happens at most once per order
+ * (unique order_id, type), which is what makes replaying a status change harmless; the seller
+ * reports are a projection of these rows.
+ */
+@Entity
+@Table(name = "order_event", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_order_event", columnNames = { "order_id", "type" })
+}, indexes = {
+        @Index(name = "idx_order_event_seller", columnList = "seller_id, type")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class OrderEvent {
+    @Id
+    // Only ever inserted through JDBC (INSERT IGNORE), so the database assigns ids
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private OrderEventType type;
+
+    // Order total (selling price) at the time of the event
+    private long amount;
+
+    // Order lines
+    private int items;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -12,7 +12,9 @@ import lombok.*;
 @EqualsAndHashCode(exclude = { "order" })
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // Same pooled scheme as Order, items are inserted in the same JDBC batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
     @JsonIgnore
     @ManyToOne
@@ -20,6 +22,8 @@ public class OrderItem {
     @ManyToOne
     private Product product;
     private String size;
+    @ManyToOne
+    private ProductVariant variant;
     private int quantity;
     private Integer mrpPrice;
     private Integer sellingPrice;
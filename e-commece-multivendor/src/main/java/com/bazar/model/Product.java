@@ -1,5 +1,6 @@
 package com.bazar.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_color", columnList = "color"),
+        @Index(name = "idx_product_rating", columnList = "average_rating, num_ratings, id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -22,20 +27,44 @@ public class Product {
     private float mrpPrice;
     private float sellingPrice;
     private int discountPercentage;
+    // Units on hand. Checkout and the hot inventory change it with atomic UPDATEs, so a saved entity
+    // never writes it back; edits go through InventoryService.setStock
+    @Column(updatable = false)
     private int quantity;
+    private Boolean trackInventory; // null for products listed before stock was tracked
     private String color;
     private int stock;
     @ElementCollection
-    @Column(columnDefinition = "TEXT")
-    private List<String> images = new ArrayList<>();
+    @Column(length = 1024)
+    private List<String> images = new ArrayList<>(); // ImageStore references or external URLs, never inline data
+    // Rating aggregates, only written by the atomic UPDATEs in ReviewServiceImpl,
+    // never by saving a (possibly stale) Product
+    @Column(updatable = false)
     private int numRatings;
+    @Column(updatable = false)
+    private double ratingSum;
+    @Column(updatable = false)
+    private double averageRating;
+    @Column(updatable = false)
+    private int oneStarCount;
+    @Column(updatable = false)
+    private int twoStarCount;
+    @Column(updatable = false)
+    private int threeStarCount;
+    @Column(updatable = false)
+    private int fourStarCount;
+    @Column(updatable = false)
+    private int fiveStarCount;
     @ManyToOne
     private Category category;
     @ManyToOne
     private Seller seller;
     private LocalDate createdAt;
-    private String sizes;
+    private String sizes; // display string, the variants are the source of truth for size filtering
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Review> reviews = new ArrayList<>();
+    @JsonIgnore
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
+    private List<ProductVariant> variants = new ArrayList<>();
 
 }
@@ -0,0 +1,66 @@
+package com.bazar.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@Entity
+@Table(name = "product_variant",
+        uniqueConstraints = @UniqueConstraint(name = "uk_variant_product_size_color",
+                columnNames = { "product_id", "size", "color" }),
+        indexes = @Index(name = "idx_variant_size_product", columnList = "size, active, product_id"))
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ProductVariant {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id")
+    private Product product;
+
+    private String sku;
+
+    private String size; // normalized, null for one-size products
+
+    private String color;
+
+    // Sizes dropped from a product are deactivated, not deleted, so cart and order items keep their reference
+    private boolean active = true;
+
+    /**
+     * Normalized form used for storage and lookups ("xl " -> "XL"), null for blank input
+     */
+    public static String normalizeSize(String size) {
+        if (size == null || size.isBlank()) {
+            return null;
+        }
+        return size.trim().toUpperCase();
+    }
+
+    /**
+     * Split the free-form Product.sizes string ("S, M, XL" or "38/39/40") into normalized sizes
+     */
+    public static Set<String> parseSizes(String sizes) {
+        Set<String> values = new LinkedHashSet<>();
+        if (sizes == null) {
+            return values;
+        }
+        for (String part : sizes.split("[,;/|\\s]+")) {
+            String size = normalizeSize(part);
+            if (size != null) {
+                values.add(size);
+            }
+        }
+        return values;
+    }
+}
@@ -3,11 +3,16 @@ package com.bazar.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_review_product_created", columnList = "product_id, created_at, id"),
+        @Index(name = "idx_review_product_rating", columnList = "product_id, rating, id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -24,8 +29,9 @@ public class Review {
     @Column(nullable = false)
     private double rating;
     @ElementCollection
-    @Column(length = 1000000)
-    private List<String> productImages;
+    @BatchSize(size = 50) // a feed page loads all its image lists in one query
+    @Column(length = 1024)
+    private List<String> productImages; // ImageStore references or external URLs
     @JsonIgnore
     @ManyToOne
     private Product product;
@@ -0,0 +1,32 @@
+package com.bazar.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease on a scheduled job, so only one node runs it at a time. Held while locked_until is in the future.
+ */
+@Entity
+@Table(name = "scheduler_lock")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class SchedulerLock {
+    @Id
+    @Column(length = 64)
+    @EqualsAndHashCode.Include
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(length = 255, nullable = false)
+    private String lockedBy;
+}
@@ -0,0 +1,54 @@
+package com.bazar.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Sales of one product by one seller on one day (the day the orders were placed). Maintained
+ * incrementally by {@code SellerAnalytics} as orders are confirmed, delivered or cancelled.
+ */
+@Entity
+@Table(name = "seller_product_daily", indexes = {
+        @Index(name = "idx_rollup_seller_date", columnList = "seller_id, sales_date")
+})
+@IdClass(SellerProductDaily.Key.class)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SellerProductDaily {
+    @Id
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    private long unitsSold;
+
+    private long revenue;
+
+    // Order lines, the "orderCount" of the dashboard
+    private long orderLines;
+
+    private long unitsDelivered;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long sellerId;
+        private Long productId;
+        private LocalDate salesDate;
+    }
+}
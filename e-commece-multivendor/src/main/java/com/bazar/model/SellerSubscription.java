@@ -7,6 +7,9 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_subscription_expiry", columnList = "end_date, plan_type")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -0,0 +1,54 @@
+package com.bazar.model;
+
+import com.bazar.domain.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock taken from a product (and its variant) for one order line. The stock itself is decremented
+ * when the reservation is created; releasing it puts the quantity back. For hot products the
+ * decrement is taken in memory and the reservation doubles as the write-behind log.
+ */
+@Entity
+@Table(name = "stock_reservation", indexes = {
+        @Index(name = "idx_reservation_order", columnList = "order_id"),
+        @Index(name = "idx_reservation_status_expiry", columnList = "status, expires_at"),
+        @Index(name = "idx_reservation_deferred", columnList = "deferred, id")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservation_seq")
+    @SequenceGenerator(name = "stock_reservation_seq", sequenceName = "stock_reservation_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    private Long variantId;
+
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private ReservationStatus status = ReservationStatus.HELD;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // Taken from a hot in-memory counter and not yet subtracted from product.quantity
+    @Column(name = "deferred")
+    private boolean deferred;
+}
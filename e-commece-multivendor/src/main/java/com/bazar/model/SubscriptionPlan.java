@@ -3,6 +3,8 @@ package com.bazar.model;
 import com.bazar.domain.PlanType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Getter
@@ -10,6 +12,8 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "subscription-plan")
 public class SubscriptionPlan {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -11,6 +11,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode
+@Table(indexes = {
+        @Index(name = "idx_transaction_seller_date", columnList = "seller_id, date")
+})
 public class Transaction {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -0,0 +1,49 @@
+package com.bazar.model;
+
+import com.bazar.domain.WebhookStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Stripe event as received, keyed by the Stripe event id so a redelivery is recognised and
+ * dropped. Events are acknowledged as soon as this row is stored and applied in the background.
+ */
+@Entity
+@Table(name = "webhook_event", indexes = {
+        @Index(name = "idx_webhook_status_due", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class WebhookEvent {
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private WebhookStatus status = WebhookStatus.RECEIVED;
+
+    private int attempts;
+
+    // When RECEIVED: earliest next try. When PROCESSING: end of the claim, after which another run may retry it
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime receivedAt = LocalDateTime.now();
+
+    private LocalDateTime processedAt;
+}
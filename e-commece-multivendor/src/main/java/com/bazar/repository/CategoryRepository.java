@@ -1,13 +1,17 @@
 package com.bazar.repository;
 
 import com.bazar.model.Category;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Category findByCategoryId(String categoryId);
 
     // Search categories by name or category ID
@@ -25,4 +29,8 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     boolean existsByParentCategoryId(Long parentId);
 
     List<Category> findByParentCategoryIsNull();
+
+    // Flat rows for the in-memory tree: id, categoryId, name, image, level, parent id
+    @Query("SELECT c.id, c.categoryId, c.name, c.image, c.level, p.id FROM Category c LEFT JOIN c.parentCategory p")
+    List<Object[]> findAllTreeRows();
 }
@@ -1,8 +1,11 @@
 package com.bazar.repository;
 
 import com.bazar.model.Coupon;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Coupon findByCode(String code);
 }
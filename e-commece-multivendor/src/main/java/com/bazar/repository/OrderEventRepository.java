@@ -0,0 +1,15 @@
+package com.bazar.repository;
+
+import com.bazar.model.OrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    // sellerId, type, count, amount, items
+    @Query("SELECT e.sellerId, e.type, COUNT(e), SUM(e.amount), SUM(e.items) FROM OrderEvent e "
+            + "WHERE e.sellerId IS NOT NULL GROUP BY e.sellerId, e.type")
+    List<Object[]> totalsBySellerAndType();
+}
@@ -2,6 +2,15 @@ package com.bazar.repository;
 
 import com.bazar.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+    // Lines of a page of orders in one query: order id, item id, product id, title, size, quantity, mrp, price
+    @Query("SELECT oi.order.id, oi.id, p.id, p.title, oi.size, oi.quantity, oi.mrpPrice, oi.sellingPrice "
+            + "FROM OrderItem oi LEFT JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<Object[]> findSummaries(@Param("orderIds") Collection<Long> orderIds);
 }
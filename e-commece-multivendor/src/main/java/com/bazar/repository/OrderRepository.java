@@ -1,12 +1,39 @@
 package com.bazar.repository;
 
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentStatus;
 import com.bazar.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     List<Order> findByUserId(Long userId);
 
     List<Order> findBySellerId(Long sellerId);
+
+    List<Order> findBySellerIdOrderByOrderDateDesc(Long sellerId, Pageable pageable);
+
+    // id, status and payment status of every order, for rebuilding the order events
+    @Query("SELECT o.id, o.orderStatus, o.paymentStatus FROM Order o WHERE o.id > :afterId ORDER BY o.id")
+    List<Object[]> findStatusesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // id and status of orders in a counted status the analytics rollups have not seen yet
+    @Query("SELECT o.id, o.orderStatus FROM Order o WHERE o.rollupState IS NULL AND o.orderStatus IN :statuses "
+            + "AND o.id > :afterId ORDER BY o.id")
+    List<Object[]> findNotRolledUp(@Param("statuses") Collection<OrderStatus> statuses, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // Marks all orders of a payment in one statement instead of loading and saving each of them
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentStatus = :paymentStatus, o.orderStatus = :orderStatus, "
+            + "o.paymentDetails.paymentMethod = :paymentMethod WHERE o.id IN :ids")
+    int updatePayment(@Param("ids") Collection<Long> ids, @Param("paymentStatus") PaymentStatus paymentStatus,
+            @Param("orderStatus") OrderStatus orderStatus, @Param("paymentMethod") String paymentMethod);
 }
@@ -2,6 +2,10 @@ package com.bazar.repository;
 
 import com.bazar.model.PayementOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface PaymentOrderRepository extends JpaRepository<PayementOrder, Long> {
     PayementOrder findByPaymentLinkId(String paymentLinkId);
@@ -9,4 +13,7 @@ public interface PaymentOrderRepository extends JpaRepository<PayementOrder, Lon
     PayementOrder findByPaymentId(String paymentId);
 
     PayementOrder findByOrdersId(Long orderId);
+
+    @Query("SELECT o.id FROM PayementOrder p JOIN p.orders o WHERE p.id = :paymentOrderId")
+    List<Long> findOrderIds(@Param("paymentOrderId") Long paymentOrderId);
 }
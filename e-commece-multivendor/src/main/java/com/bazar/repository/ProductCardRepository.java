@@ -0,0 +1,29 @@
+package com.bazar.repository;
+
+import com.bazar.model.Product;
+import com.bazar.response.ProductCardDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Listing queries that select only card columns instead of whole Product graphs.
+ */
+public interface ProductCardRepository {
+
+    Page<ProductCardDTO> findCards(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Up to {@code limit} cards in the given order, without a count query
+     */
+    List<ProductCardDTO> findCards(Specification<Product> spec, Sort sort, int limit);
+
+    /**
+     * Cards for the given ids, in the order of the ids
+     */
+    List<ProductCardDTO> findCardsByIds(Collection<Long> ids);
+}
@@ -0,0 +1,115 @@
+package com.bazar.repository;
+
+import com.bazar.model.Product;
+import com.bazar.response.ProductCardDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class ProductCardRepositoryImpl implements ProductCardRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductCardDTO> findCards(Specification<Product> spec, Pageable pageable) {
+        List<ProductCardDTO> content = query(spec, pageable.getSort(),
+                pageable.isPaged() ? (int) pageable.getOffset() : 0,
+                pageable.isPaged() ? pageable.getPageSize() : -1);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductCardDTO> findCards(Specification<Product> spec, Sort sort, int limit) {
+        return query(spec, sort, 0, limit);
+    }
+
+    @Override
+    public List<ProductCardDTO> findCardsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductCardDTO> byId = query((root, q, cb) -> root.get("id").in(ids), Sort.unsorted(), 0, -1)
+                .stream()
+                .collect(Collectors.toMap(ProductCardDTO::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private List<ProductCardDTO> query(Specification<Product> spec, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductCardDTO> query = cb.createQuery(ProductCardDTO.class);
+        Root<Product> root = query.from(Product.class);
+        Join<Object, Object> category = root.join("category", JoinType.LEFT);
+        Join<Object, Object> seller = root.join("seller", JoinType.LEFT);
+
+        query.select(cb.construct(ProductCardDTO.class,
+                root.get("id"), root.get("title"), root.get("mrpPrice"), root.get("sellingPrice"),
+                root.get("discountPercentage"), root.get("color"), root.get("sizes"), root.get("quantity"),
+                category.get("categoryId"), seller.get("id"), seller.get("businessDetails").get("businessName"),
+                root.get("averageRating"), root.get("numRatings")));
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<ProductCardDTO> typed = entityManager.createQuery(query);
+        if (offset > 0) {
+            typed.setFirstResult(offset);
+        }
+        if (limit >= 0) {
+            typed.setMaxResults(limit);
+        }
+        List<ProductCardDTO> cards = typed.getResultList();
+        fillImages(cards);
+        return cards;
+    }
+
+    // One query for the first image of every card on the page
+    private void fillImages(List<ProductCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductCardDTO> byId = new HashMap<>();
+        cards.forEach(card -> byId.put(card.getId(), card));
+        List<Object[]> rows = entityManager
+                .createQuery("SELECT p.id, i FROM Product p JOIN p.images i WHERE p.id IN :ids", Object[].class)
+                .setParameter("ids", byId.keySet())
+                .getResultList();
+        for (Object[] row : rows) {
+            ProductCardDTO card = byId.get((Long) row[0]);
+            if (card != null && card.getImage() == null) {
+                card.setImage((String) row[1]);
+            }
+        }
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.count(root));
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
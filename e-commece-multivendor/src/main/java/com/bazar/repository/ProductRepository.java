@@ -5,14 +5,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductCardRepository {
     List<Product> findBySellerId(Long id);
 
+    // Product id and image pairs, for filling the first image into summaries
+    @Query("SELECT p.id, i FROM Product p JOIN p.images i WHERE p.id IN :ids")
+    List<Object[]> findImages(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT p FROM Product p " +
             "WHERE (:query IS NULL " +
             "   OR LOWER(p.title) LIKE LOWER(CONCAT('%', :query, '%')) " +
@@ -20,6 +27,20 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
             ")")
     List<Product> searchProduct(@Param("query") String query);
 
+    @Query("SELECT p.id FROM Product p " +
+            "WHERE (:query IS NULL " +
+            "   OR LOWER(p.title) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "   OR LOWER(p.category.name) LIKE LOWER(CONCAT('%', :query, '%'))" +
+            ")")
+    Page<Long> searchProductIds(@Param("query") String query, Pageable pageable);
+
+    // Keyset batches for bulk index builds
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Products still holding base64 data URLs in images, for the image store migration
+    @Query("SELECT DISTINCT p FROM Product p JOIN p.images i WHERE p.id > :afterId AND i LIKE 'data:%' ORDER BY p.id")
+    List<Product> findWithInlineImages(@Param("afterId") Long afterId, Pageable pageable);
+
     // Search products by title with pagination
     Page<Product> findByTitleContaining(String title, Pageable pageable);
 
@@ -33,6 +54,43 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
     Long countBySellerIdAndQuantity(Long sellerId, int quantity);
 
+    // Stock-tracked products listed under a category that has a deal on the home page
+    @Query("SELECT p.id FROM Product p WHERE p.trackInventory = true AND p.category.categoryId IN " +
+            "(SELECT d.category.categoryId FROM Deal d) ORDER BY p.id")
+    List<Long> findDealProductIds(Pageable pageable);
+
+    // Rating aggregates: the average is assigned first so it reads the pre-update count and sum (MySQL
+    // applies SET assignments left to right). Plain SQL, as Hibernate would wrap :sum in a dialect cast
+    @Modifying
+    @Query(value = "UPDATE product SET " +
+            "average_rating = CASE WHEN num_ratings + :count > 0 " +
+            "   THEN (rating_sum + :sum) / (num_ratings + :count) ELSE 0 END, " +
+            "num_ratings = num_ratings + :count, " +
+            "rating_sum = rating_sum + :sum, " +
+            "one_star_count = one_star_count + :one, " +
+            "two_star_count = two_star_count + :two, " +
+            "three_star_count = three_star_count + :three, " +
+            "four_star_count = four_star_count + :four, " +
+            "five_star_count = five_star_count + :five " +
+            "WHERE id = :productId", nativeQuery = true)
+    int applyRatingDelta(@Param("productId") Long productId, @Param("count") int count, @Param("sum") double sum,
+            @Param("one") int one, @Param("two") int two, @Param("three") int three, @Param("four") int four,
+            @Param("five") int five);
+
+    // Rebuild aggregates from the review table where they are out of step (rows that predate them)
+    @Modifying
+    @Query("UPDATE Product p SET " +
+            "p.averageRating = COALESCE((SELECT AVG(r.rating) FROM Review r WHERE r.product = p), 0), " +
+            "p.numRatings = (SELECT COUNT(r) FROM Review r WHERE r.product = p), " +
+            "p.ratingSum = COALESCE((SELECT SUM(r.rating) FROM Review r WHERE r.product = p), 0), " +
+            "p.oneStarCount = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating < 1.5), " +
+            "p.twoStarCount = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating >= 1.5 AND r.rating < 2.5), " +
+            "p.threeStarCount = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating >= 2.5 AND r.rating < 3.5), " +
+            "p.fourStarCount = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating >= 3.5 AND r.rating < 4.5), " +
+            "p.fiveStarCount = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating >= 4.5) " +
+            "WHERE p.numRatings <> (SELECT COUNT(r) FROM Review r WHERE r.product = p)")
+    int recomputeStaleRatingAggregates();
+
     // Category-related queries
     Long countByCategoryId(Long categoryId);
 }
@@ -0,0 +1,42 @@
+package com.bazar.repository;
+
+import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+    List<ProductVariant> findByProductId(Long productId);
+
+    List<ProductVariant> findByProductIdAndActiveTrue(Long productId);
+
+    // Products created before variants existed, in id order for keyset batching
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId " +
+            "AND NOT EXISTS (SELECT v.id FROM ProductVariant v WHERE v.product = p) ORDER BY p.id")
+    List<Product> findProductsWithoutVariants(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Link cart and order lines written before variants existed to the variant of their size; a blank
+    // size matches the one-size variant. Plain correlated subqueries, so it runs on any database
+    @Modifying
+    @Query(value = "UPDATE cart_item SET variant_id = (SELECT MIN(v.id) FROM product_variant v " +
+            "WHERE v.product_id = cart_item.product_id " +
+            "AND COALESCE(v.size, '') = COALESCE(UPPER(TRIM(cart_item.size)), '')) " +
+            "WHERE variant_id IS NULL AND EXISTS (SELECT 1 FROM product_variant v " +
+            "WHERE v.product_id = cart_item.product_id " +
+            "AND COALESCE(v.size, '') = COALESCE(UPPER(TRIM(cart_item.size)), ''))", nativeQuery = true)
+    int linkCartItemsToVariants();
+
+    @Modifying
+    @Query(value = "UPDATE order_item SET variant_id = (SELECT MIN(v.id) FROM product_variant v " +
+            "WHERE v.product_id = order_item.product_id " +
+            "AND COALESCE(v.size, '') = COALESCE(UPPER(TRIM(order_item.size)), '')) " +
+            "WHERE variant_id IS NULL AND EXISTS (SELECT 1 FROM product_variant v " +
+            "WHERE v.product_id = order_item.product_id " +
+            "AND COALESCE(v.size, '') = COALESCE(UPPER(TRIM(order_item.size)), ''))", nativeQuery = true)
+    int linkOrderItemsToVariants();
+}
@@ -1,13 +1,21 @@
 package com.bazar.repository;
 
 import com.bazar.model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
     List<Review> findByProductId(Long productId);
 
     Optional<Review> findByProduct_IdAndUser_Id(Long productId, Long userId);
+
+    // Reviews still holding base64 data URLs, for the image store migration
+    @Query("SELECT DISTINCT r FROM Review r JOIN r.productImages i WHERE r.id > :afterId AND i LIKE 'data:%' ORDER BY r.id")
+    List<Review> findWithInlineImages(@Param("afterId") Long afterId, Pageable pageable);
 }
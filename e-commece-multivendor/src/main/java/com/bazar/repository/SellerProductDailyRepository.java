@@ -0,0 +1,19 @@
+package com.bazar.repository;
+
+import com.bazar.model.SellerProductDaily;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SellerProductDailyRepository extends JpaRepository<SellerProductDaily, SellerProductDaily.Key> {
+
+    // productId, units sold, revenue, order lines; best sellers first
+    @Query("SELECT r.productId, SUM(r.unitsSold), SUM(r.revenue), SUM(r.orderLines) FROM SellerProductDaily r "
+            + "WHERE r.sellerId = :sellerId AND r.salesDate >= :from GROUP BY r.productId "
+            + "HAVING SUM(r.unitsSold) > 0 ORDER BY SUM(r.revenue) DESC")
+    List<Object[]> findTopProducts(@Param("sellerId") Long sellerId, @Param("from") LocalDate from, Pageable pageable);
+}
@@ -5,4 +5,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface SellerReportRepository extends JpaRepository<SellerReport, Long> {
     SellerReport findBySellerId(Long sellerId);
+
+    boolean existsBySellerId(Long sellerId);
 }
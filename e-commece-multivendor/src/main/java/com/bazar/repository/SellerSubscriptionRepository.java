@@ -1,13 +1,34 @@
 package com.bazar.repository;
 
+import com.bazar.domain.PlanType;
 import com.bazar.model.Seller;
 import com.bazar.model.SellerSubscription;
+import com.bazar.model.SubscriptionPlan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface SellerSubscriptionRepository extends JpaRepository<SellerSubscription, Long> {
     Optional<SellerSubscription> findBySeller(Seller seller);
 
     Optional<SellerSubscription> findByStripeSubscriptionId(String stripeSubscriptionId);
+
+    // id and seller id of subscriptions on a paid plan that ended before today
+    @Query("SELECT s.id, seller.id FROM SellerSubscription s LEFT JOIN s.seller seller "
+            + "WHERE s.endDate < :today AND (s.planType IS NULL OR s.planType <> :free) ORDER BY s.endDate, s.id")
+    List<Object[]> findExpired(@Param("today") LocalDate today, @Param("free") PlanType free, Pageable pageable);
+
+    // Same condition again, so a subscription renewed since it was read is left alone
+    @Modifying
+    @Query("UPDATE SellerSubscription s SET s.plan = :plan, s.planType = :free, s.startDate = :today, s.endDate = :endDate "
+            + "WHERE s.id IN :ids AND s.endDate < :today AND (s.planType IS NULL OR s.planType <> :free)")
+    int downgrade(@Param("ids") Collection<Long> ids, @Param("plan") SubscriptionPlan plan, @Param("free") PlanType free,
+            @Param("today") LocalDate today, @Param("endDate") LocalDate endDate);
 }
@@ -0,0 +1,40 @@
+package com.bazar.repository;
+
+import com.bazar.domain.ReservationStatus;
+import com.bazar.model.StockReservation;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Row locks on the reservations only, so a confirm and a release of the same order cannot both apply
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.orderId IN :orderIds ORDER BY r.id")
+    List<StockReservation> lockByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // Expired holds, skipping rows another node is already sweeping (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM StockReservation r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> lockExpired(@Param("status") ReservationStatus status, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    // Write-behind backlog of the hot inventory, same SKIP LOCKED scheme as the sweep
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM StockReservation r WHERE r.deferred = true ORDER BY r.id")
+    List<StockReservation> lockDeferred(Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM StockReservation r WHERE r.productId = :productId AND r.deferred = true")
+    long sumDeferred(@Param("productId") Long productId);
+}
@@ -2,10 +2,14 @@ package com.bazar.repository;
 
 import com.bazar.domain.PlanType;
 import com.bazar.model.SubscriptionPlan;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface SubscriptionPlanRepository extends JpaRepository<SubscriptionPlan, Long> {
+    // Query cache keeps the id, the plan itself comes from the second-level cache
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<SubscriptionPlan> findByPlanType(PlanType planType);
 }
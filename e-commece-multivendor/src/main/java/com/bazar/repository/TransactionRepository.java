@@ -2,11 +2,17 @@ package com.bazar.repository;
 
 import com.bazar.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findBySellerId(Long sellerId);
 
     List<Transaction> findByOrderId(Long orderId);
+
+    @Query("SELECT t.order.id FROM Transaction t WHERE t.order.id IN :orderIds")
+    List<Long> findOrderIdsIn(@Param("orderIds") Collection<Long> orderIds);
 }
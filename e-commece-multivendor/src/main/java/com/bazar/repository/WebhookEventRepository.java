@@ -0,0 +1,29 @@
+package com.bazar.repository;
+
+import com.bazar.domain.WebhookStatus;
+import com.bazar.model.WebhookEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, String> {
+
+    // Events due for processing, including claims abandoned by a crashed node (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM WebhookEvent e WHERE e.status IN :statuses AND e.nextAttemptAt <= :now ORDER BY e.receivedAt")
+    List<WebhookEvent> lockDue(@Param("statuses") Collection<WebhookStatus> statuses, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    long countByStatus(WebhookStatus status);
+
+    @Modifying
+    @Query("DELETE FROM WebhookEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") WebhookStatus status, @Param("before") LocalDateTime before);
+}
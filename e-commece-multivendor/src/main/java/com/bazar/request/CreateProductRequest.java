@@ -15,5 +15,6 @@ public class CreateProductRequest {
     private String category2;
     private String category3;
     private String size;
+    private Integer quantity; // units on hand; leave empty to sell without stock tracking
 
 }
@@ -0,0 +1,18 @@
+package com.bazar.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    private List<T> content = new ArrayList<>();
+    private String nextCursor; // null on the last page
+    private boolean hasNext;
+    private Long approximateTotal; // only filled when requested, may lag behind writes
+}
@@ -0,0 +1,14 @@
+package com.bazar.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetBucketDTO {
+    private Integer from; // inclusive, null for the first bucket
+    private Integer to;   // exclusive, null for the last bucket
+    private int count;
+}
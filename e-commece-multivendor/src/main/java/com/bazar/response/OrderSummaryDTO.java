@@ -0,0 +1,50 @@
+package com.bazar.response;
+
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentStatus;
+import com.bazar.model.Address;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An order in a paged order history: what the order lists show, without the full product and user graphs.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSummaryDTO {
+    private Long id;
+    private String orderId;
+    private Long sellerId;
+    private LocalDateTime orderDate;
+    private LocalDateTime deliverDate;
+    private OrderStatus orderStatus;
+    private PaymentStatus paymentStatus;
+    private int totalItem;
+    private double totalMrpPrice;
+    private Integer totalSellingPrice;
+    private Long customerId;
+    private String customerName;
+    private String customerEmail;
+    private Address shippingAddress;
+    private List<Item> orderItems = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private Long id;
+        private Long productId;
+        private String title;
+        private String image;
+        private String size;
+        private int quantity;
+        private Integer mrpPrice;
+        private Integer sellingPrice;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bazar.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a product tile in a listing needs. The full entity stays on /products/{productId}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductCardDTO {
+    private Long id;
+    private String title;
+    private float mrpPrice;
+    private float sellingPrice;
+    private int discountPercentage;
+    private String color;
+    private String sizes;
+    private int quantity;
+    private String image;
+    private String categoryId;
+    private Long sellerId;
+    private String sellerName;
+    private Double averageRating;
+    private long numRatings;
+
+    // Used by the criteria query, the image is filled in afterwards
+    public ProductCardDTO(Long id, String title, Float mrpPrice, Float sellingPrice, Integer discountPercentage,
+                          String color, String sizes, Integer quantity, String categoryId, Long sellerId,
+                          String sellerName, Double averageRating, Integer numRatings) {
+        this(id, title, mrpPrice, sellingPrice, discountPercentage, color, sizes, quantity, null, categoryId,
+                sellerId, sellerName, averageRating, numRatings != null ? numRatings : 0);
+    }
+}
@@ -0,0 +1,22 @@
+package com.bazar.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFacetsDTO {
+    private int total;
+    private Map<String, Integer> colors = new LinkedHashMap<>();
+    private Map<String, Integer> sizes = new LinkedHashMap<>();
+    private Map<String, Integer> categories = new LinkedHashMap<>();
+    private List<FacetBucketDTO> priceBuckets = new ArrayList<>();
+    private List<FacetBucketDTO> discountBands = new ArrayList<>();
+}
@@ -0,0 +1,34 @@
+package com.bazar.response;
+
+import com.bazar.domain.ImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportStatusDTO {
+    private String jobId;
+    private ImportStatus status;
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private double rowsPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt; // null while running
+    private String error; // why the whole job failed, null otherwise
+    private List<RowError> rowErrors = new ArrayList<>(); // the first errors only, failed has the full count
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bazar.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReviewDTO {
+    private Long id;
+    private String reviewText;
+    private double rating;
+    private List<String> productImages = new ArrayList<>();
+    private LocalDateTime createdAt;
+    private ReviewerSummaryDTO reviewer;
+}
@@ -0,0 +1,49 @@
+package com.bazar.scheduler;
+
+import com.bazar.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ReservationSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationSweeper.class);
+
+    private final InventoryService inventoryService;
+
+    @Value("${inventory.hot.enabled:false}")
+    private boolean hotInventoryEnabled;
+
+    // Checkouts abandoned without a Stripe event still get their stock back
+    @Scheduled(fixedDelayString = "${inventory.sweep-interval:PT1M}")
+    public void releaseExpiredReservations() {
+        try {
+            int released = inventoryService.releaseExpired();
+            if (released > 0) {
+                logger.info("Released {} expired stock reservations", released);
+            }
+            // Also drains a backlog left behind when hot inventory was switched off
+            inventoryService.applyDeferred();
+        } catch (Exception e) {
+            logger.error("Reservation sweep failed", e);
+        }
+    }
+
+    // Write-behind of the hot inventory counters
+    @Scheduled(fixedDelayString = "${inventory.hot.flush-interval:PT1S}")
+    public void applyDeferredStock() {
+        if (!hotInventoryEnabled) {
+            return;
+        }
+        try {
+            inventoryService.applyDeferred();
+        } catch (Exception e) {
+            logger.error("Hot inventory flush failed, the deferred reservations are retried on the next run", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bazar.scheduler;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database lease (scheduler_lock) for jobs that must run on one node of a multi-instance
+ * deployment. A node takes the lease by moving locked_until forward, which only one UPDATE can do
+ * while the lease has run out. The lease expires on its own after {@code lockAtMostFor}, so a node
+ * that dies mid-run does not block the job forever; {@code lockAtLeastFor} keeps a fast run from
+ * being repeated by a node whose clock fires slightly later.
+ */
+@Component
+public class SchedulerLease {
+
+    private static final String TAKE = "UPDATE scheduler_lock SET locked_until = ?, locked_at = ?, locked_by = ? "
+            + "WHERE name = ? AND locked_until <= ?";
+
+    private static final String CREATE = "INSERT INTO scheduler_lock (name, locked_until, locked_at, locked_by) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private static final String RELEASE = "UPDATE scheduler_lock SET locked_until = ? WHERE name = ? AND locked_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    public SchedulerLease(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // pid@host plus a random part, distinct per bean even for two contexts in one JVM
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Run the task if the lease is free, holding it for the duration. Returns whether the task ran.
+     */
+    public boolean runExclusively(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        LocalDateTime lockedAt = LocalDateTime.now();
+        if (!acquire(name, lockedAt, lockAtMostFor)) {
+            return false;
+        }
+        try {
+            task.run();
+        } finally {
+            LocalDateTime earliest = lockedAt.plus(lockAtLeastFor);
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.update(RELEASE, Timestamp.valueOf(earliest.isAfter(now) ? earliest : now), name, owner);
+        }
+        return true;
+    }
+
+    private boolean acquire(String name, LocalDateTime now, Duration lockAtMostFor) {
+        Timestamp until = Timestamp.valueOf(now.plus(lockAtMostFor));
+        Timestamp lockedAt = Timestamp.valueOf(now);
+        if (jdbcTemplate.update(TAKE, until, lockedAt, owner, name, lockedAt) > 0) {
+            return true;
+        }
+        try {
+            // First run of this job anywhere
+            return jdbcTemplate.update(CREATE, name, until, lockedAt, owner) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -1,45 +1,133 @@
 package com.bazar.scheduler;
 
+import com.bazar.config.PrincipalCache;
 import com.bazar.domain.PlanType;
-import com.bazar.model.SellerSubscription;
 import com.bazar.model.SubscriptionPlan;
 import com.bazar.repository.SellerSubscriptionRepository;
 import com.bazar.repository.SubscriptionPlanRepository;
-import lombok.RequiredArgsConstructor;
+import com.bazar.service.EntitlementService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Downgrades expired paid subscriptions to the Free plan. Expired rows are found through the
+ * (end_date, plan_type) index and downgraded in chunks, each with one bulk UPDATE in its own
+ * transaction, so a large backlog never holds one long transaction. A {@link SchedulerLease} keeps
+ * the job to one node at a time.
+ */
 @Component
-@RequiredArgsConstructor
 public class SubscriptionScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionScheduler.class);
+
+    static final String LEASE = "subscription-expiry";
+
+    public record ExpiryStats(long runs, long skippedRuns, long scanned, long downgraded, long lastRunMillis) {
+    }
+
     private final SellerSubscriptionRepository subscriptionRepository;
     private final SubscriptionPlanRepository planRepository;
+    private final PrincipalCache principalCache;
+    private final EntitlementService entitlementService;
+    private final SchedulerLease lease;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final Duration lockAtMostFor;
+    private final Duration lockAtLeastFor;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder skippedRuns = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder downgraded = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public SubscriptionScheduler(SellerSubscriptionRepository subscriptionRepository,
+            SubscriptionPlanRepository planRepository, PrincipalCache principalCache,
+            EntitlementService entitlementService, SchedulerLease lease,
+            PlatformTransactionManager transactionManager,
+            @Value("${subscription.expiry.batch-size:500}") int batchSize,
+            @Value("${subscription.expiry.lock-at-most-for:30m}") Duration lockAtMostFor,
+            @Value("${subscription.expiry.lock-at-least-for:1m}") Duration lockAtLeastFor) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.planRepository = planRepository;
+        this.principalCache = principalCache;
+        this.entitlementService = entitlementService;
+        this.lease = lease;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lockAtMostFor = lockAtMostFor;
+        this.lockAtLeastFor = lockAtLeastFor;
+    }
 
     // Run every day at midnight
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
+    @Scheduled(cron = "${subscription.expiry.cron:0 0 0 * * ?}")
     public void checkSubscriptionExpiry() {
-        List<SellerSubscription> subscriptions = subscriptionRepository.findAll();
-        LocalDate today = LocalDate.now();
+        try {
+            if (!lease.runExclusively(LEASE, lockAtMostFor, lockAtLeastFor, this::downgradeExpired)) {
+                skippedRuns.increment();
+                logger.debug("Subscription expiry is running on another node");
+            }
+        } catch (Exception e) {
+            logger.error("Subscription expiry failed, the remaining subscriptions are picked up on the next run", e);
+        }
+    }
 
+    /**
+     * Downgrade every subscription that ended before today. Returns the number downgraded.
+     */
+    public int downgradeExpired() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
         SubscriptionPlan freePlan = planRepository.findByPlanType(PlanType.FREE)
                 .orElseThrow(() -> new RuntimeException("Free plan not found"));
-
-        for (SellerSubscription sub : subscriptions) {
-            if (sub.getEndDate() != null && sub.getEndDate().isBefore(today) && sub.getPlanType() != PlanType.FREE) {
-                // Downgrade to Free plan
-                sub.setPlan(freePlan);
-                sub.setPlanType(PlanType.FREE);
-                sub.setStartDate(today);
-                sub.setEndDate(today.plusYears(100)); // Free plan indefinite
-                subscriptionRepository.save(sub);
-                System.out.println("Downgraded subscription for seller: " + sub.getSeller().getId());
+        int total = 0;
+        while (true) {
+            // Downgraded rows drop out of the query, so every chunk starts from the front again
+            List<Object[]> chunk = tx.execute(status -> {
+                List<Object[]> expired = subscriptionRepository.findExpired(today, PlanType.FREE,
+                        PageRequest.of(0, batchSize));
+                if (!expired.isEmpty()) {
+                    int changed = subscriptionRepository.downgrade(expired.stream().map(row -> (Long) row[0]).toList(),
+                            freePlan, PlanType.FREE, today, today.plusYears(100)); // Free plan indefinite
+                    downgraded.add(changed);
+                }
+                return expired;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                break;
             }
+            scanned.add(chunk.size());
+            total += chunk.size();
+            chunk.stream().map(row -> (Long) row[1]).filter(Objects::nonNull).forEach(sellerId -> {
+                principalCache.evictSeller(sellerId);
+                entitlementService.evict(sellerId);
+            });
+            if (chunk.size() < batchSize) {
+                break;
+            }
+        }
+        runs.increment();
+        lastRunMillis.set(System.currentTimeMillis() - start);
+        if (total > 0) {
+            logger.info("Downgraded {} expired subscriptions to the Free plan", total);
         }
+        return total;
+    }
+
+    public ExpiryStats stats() {
+        return new ExpiryStats(runs.sum(), skippedRuns.sum(), scanned.sum(), downgraded.sum(), lastRunMillis.get());
     }
 }
@@ -0,0 +1,139 @@
+package com.bazar.search;
+
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.ProductIndexBuild;
+import com.bazar.model.Product;
+import com.bazar.repository.ProductRepository;
+import com.bazar.utils.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Search backend answering queries from a {@link ProductSearchIndex} held in memory.
+ * The index is rebuilt in batches once the application is up and kept current by the product service.
+ * Changes made inside a transaction reach the index only once it commits, so a rollback leaves no trace.
+ */
+@Component
+@ConditionalOnProperty(name = "search.backend", havingValue = "index", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InvertedIndexSearchBackend implements ProductSearchBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvertedIndexSearchBackend.class);
+
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final CategoryTreeCache categoryTreeCache;
+
+    @Value("${search.index.batch-size:1000}")
+    private int batchSize;
+
+    private volatile ProductSearchIndex index;
+    private volatile ProductIndexBuild<ProductSearchIndex> building;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread builder = new Thread(this::rebuild, "product-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Build a fresh index from the product table and swap it in once complete.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ProductSearchIndex fresh = new ProductSearchIndex();
+        ProductIndexBuild<ProductSearchIndex> build = new ProductIndexBuild<>(fresh);
+        building = build;
+        try {
+            build.load(productRepository, transactionManager, batchSize,
+                    product -> fresh.add(product.getId(), documentOf(product)), fresh::remove);
+            index = fresh;
+            logger.info("Product search index built: {} products in {} ms", fresh.size(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Product search index build failed, searches fall back to the database", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return index != null;
+    }
+
+    @Override
+    public Page<Long> searchIds(String query, Pageable pageable) {
+        ProductSearchIndex current = index;
+        if (current == null) {
+            throw new IllegalStateException("Product search index is not built yet");
+        }
+        ProductSearchIndex.SearchHits hits = current.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(hits.productIds(), pageable, hits.totalHits());
+    }
+
+    @Override
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        // Read the lazy associations now, while the session is still open
+        long productId = product.getId();
+        Map<ProductSearchIndex.Field, String> document = documentOf(product);
+        TransactionHooks.afterCommit(() -> apply(productId, target -> target.add(productId, document)));
+    }
+
+    @Override
+    public void remove(Long productId) {
+        if (productId != null) {
+            TransactionHooks.afterCommit(() -> apply(productId, target -> target.remove(productId)));
+        }
+    }
+
+    private void apply(Long productId, Consumer<ProductSearchIndex> change) {
+        ProductSearchIndex current = index;
+        ProductIndexBuild<ProductSearchIndex> inProgress = building;
+        if (current != null) {
+            change.accept(current);
+        }
+        if (inProgress != null && inProgress.target() != current) {
+            change.accept(inProgress.target());
+            inProgress.changed(productId);
+        }
+    }
+
+    private Map<ProductSearchIndex.Field, String> documentOf(Product product) {
+        Map<ProductSearchIndex.Field, String> document = new EnumMap<>(ProductSearchIndex.Field.class);
+        document.put(ProductSearchIndex.Field.TITLE, product.getTitle());
+        document.put(ProductSearchIndex.Field.DESCRIPTION, product.getDescription());
+        document.put(ProductSearchIndex.Field.COLOR, product.getColor());
+        if (product.getCategory() != null) {
+            // The cached tree has the path precomputed, no walk up the lazy parents
+            String path = categoryTreeCache.get().getPath(product.getCategory().getId());
+            document.put(ProductSearchIndex.Field.CATEGORY,
+                    path != null ? path : product.getCategory().getCategoryPath());
+        }
+        if (product.getSeller() != null) {
+            String businessName = product.getSeller().getBusinessDetails() != null
+                    ? product.getSeller().getBusinessDetails().getBusinessName()
+                    : null;
+            document.put(ProductSearchIndex.Field.SELLER,
+                    Objects.toString(product.getSeller().getSellerName(), "") + " " + Objects.toString(businessName, ""));
+        }
+        return document;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bazar.search;
+
+import com.bazar.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fallback backend: the original LIKE query against the product table.
+ */
+@Component
+@RequiredArgsConstructor
+public class JpaSearchBackend implements ProductSearchBackend {
+
+    private final ProductRepository productRepository;
+
+    @Override
+    public Page<Long> searchIds(String query, Pageable pageable) {
+        return productRepository.searchProductIds(query, pageable);
+    }
+}
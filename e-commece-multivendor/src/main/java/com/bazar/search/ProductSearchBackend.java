@@ -0,0 +1,32 @@
+package com.bazar.search;
+
+import com.bazar.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ProductSearchBackend {
+
+    /**
+     * Ranked, paged full-text search over the product catalog, returning product ids in rank order
+     */
+    Page<Long> searchIds(String query, Pageable pageable);
+
+    /**
+     * False while the backend cannot answer queries yet (e.g. index still building)
+     */
+    default boolean isReady() {
+        return true;
+    }
+
+    /**
+     * Called after a product was created or updated
+     */
+    default void index(Product product) {
+    }
+
+    /**
+     * Called after a product was deleted
+     */
+    default void remove(Long productId) {
+    }
+}
@@ -0,0 +1,401 @@
+package com.bazar.search;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product text fields.
+ * <p>
+ * Products are mapped to dense internal doc ids that only ever grow, so every posting list stays sorted
+ * by doc id and can be probed with a binary search. Updating a product tombstones its old doc and appends
+ * a new one; tombstoned docs are purged from the posting lists once they make up a quarter of the index.
+ */
+public class ProductSearchIndex {
+
+    public enum Field {
+        TITLE(3.0f),
+        CATEGORY(2.0f),
+        COLOR(1.5f),
+        SELLER(1.0f),
+        DESCRIPTION(0.5f);
+
+        private final float boost;
+
+        Field(float boost) {
+            this.boost = boost;
+        }
+    }
+
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float FUZZY_FACTOR = 0.35f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_FUZZY_EXPANSIONS = 16;
+    private static final int COMPACTION_MIN_DELETED = 10_000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private long[] productByDoc = new long[1024];
+    private int nextDoc;
+    private int pendingDeletes;
+    // Bounded so idle memory stays at a few accumulators; queries beyond that allocate their own
+    private final BlockingQueue<Accumulator> accumulatorPool =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+    public record SearchHits(List<Long> productIds, int totalHits) {
+    }
+
+    /**
+     * Index a product, replacing any previous version of it.
+     */
+    public void add(long productId, Map<Field, String> fields) {
+        Map<String, Float> termWeights = new HashMap<>();
+        for (Map.Entry<Field, String> field : fields.entrySet()) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : SearchTokenizer.tokenize(field.getValue())) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            float boost = field.getKey().boost;
+            frequencies.forEach((term, tf) -> termWeights.merge(term, boost * (1 + (float) Math.log(tf)), Float::sum));
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            if (termWeights.isEmpty()) {
+                return;
+            }
+            int doc = nextDoc++;
+            if (doc == productByDoc.length) {
+                productByDoc = Arrays.copyOf(productByDoc, doc * 2);
+            }
+            productByDoc[doc] = productId;
+            docByProduct.put(productId, doc);
+            termWeights.forEach((term, weight) -> dictionary.computeIfAbsent(term, t -> new Postings()).append(doc, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked search. Every query token has to match (exactly, by prefix or, failing both, by edit distance);
+     * a document's score is the sum of its best weight per token.
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        Accumulator candidates = null;
+        Accumulator tokenScores = null;
+        try {
+            List<List<Expansion>> expansionsPerToken = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                List<Expansion> expansions = expand(token);
+                if (expansions.isEmpty()) {
+                    return new SearchHits(List.of(), 0);
+                }
+                expansionsPerToken.add(expansions);
+            }
+            // Most selective token first so the candidate set is as small as possible from the start
+            expansionsPerToken.sort(Comparator.comparingLong(ProductSearchIndex::postingsVolume));
+
+            candidates = acquire();
+            scoreAll(expansionsPerToken.get(0), candidates);
+            for (int t = 1; t < expansionsPerToken.size() && candidates.count > 0; t++) {
+                if (tokenScores == null) {
+                    tokenScores = acquire();
+                }
+                scoreCandidates(expansionsPerToken.get(t), candidates, tokenScores);
+            }
+            return topHits(candidates, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+            release(candidates);
+            release(tokenScores);
+        }
+    }
+
+    private void removeLocked(long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        pendingDeletes++;
+        if (pendingDeletes >= COMPACTION_MIN_DELETED && pendingDeletes * 4 >= docByProduct.size()) {
+            compactLocked();
+        }
+    }
+
+    private void compactLocked() {
+        Iterator<Postings> it = dictionary.values().iterator();
+        while (it.hasNext()) {
+            Postings postings = it.next();
+            postings.purge(deleted);
+            if (postings.size == 0) {
+                it.remove();
+            }
+        }
+        pendingDeletes = 0;
+    }
+
+    private List<Expansion> expand(String token) {
+        List<Expansion> expansions = new ArrayList<>();
+        Postings exact = dictionary.get(token);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, 1.0f));
+        }
+        for (Postings postings : dictionary.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+            if (expansions.size() > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            expansions.add(new Expansion(postings, PREFIX_FACTOR));
+        }
+        if (expansions.isEmpty() && token.length() >= 4) {
+            int maxDistance = token.length() >= 8 ? 2 : 1;
+            char first = token.charAt(0);
+            for (Map.Entry<String, Postings> entry : dictionary.subMap(String.valueOf(first), true,
+                    String.valueOf((char) (first + 1)), false).entrySet()) {
+                String term = entry.getKey();
+                if (Math.abs(term.length() - token.length()) <= maxDistance
+                        && editDistance(token, term, maxDistance) <= maxDistance) {
+                    expansions.add(new Expansion(entry.getValue(), FUZZY_FACTOR));
+                    if (expansions.size() >= MAX_FUZZY_EXPANSIONS) {
+                        break;
+                    }
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private void scoreAll(List<Expansion> expansions, Accumulator scores) {
+        for (Expansion expansion : expansions) {
+            Postings postings = expansion.postings;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                if (!deleted.get(doc)) {
+                    scores.max(doc, postings.weights[i] * expansion.factor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keep only candidates matching this token, adding the token's best weight to their score.
+     */
+    private void scoreCandidates(List<Expansion> expansions, Accumulator candidates, Accumulator tokenScores) {
+        for (Expansion expansion : expansions) {
+            Postings postings = expansion.postings;
+            if (postings.size > candidates.count * 8L) {
+                // Few candidates against a long list: probe the list instead of scanning it
+                for (int c = 0; c < candidates.count; c++) {
+                    int doc = candidates.touched[c];
+                    float weight = postings.weightOf(doc);
+                    if (weight > 0) {
+                        tokenScores.max(doc, weight * expansion.factor);
+                    }
+                }
+            } else {
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = postings.docs[i];
+                    if (candidates.scores[doc] > 0) {
+                        tokenScores.max(doc, postings.weights[i] * expansion.factor);
+                    }
+                }
+            }
+        }
+        int kept = 0;
+        for (int c = 0; c < candidates.count; c++) {
+            int doc = candidates.touched[c];
+            float tokenScore = tokenScores.scores[doc];
+            if (tokenScore > 0) {
+                candidates.scores[doc] += tokenScore;
+                candidates.touched[kept++] = doc;
+            } else {
+                candidates.scores[doc] = 0f;
+            }
+        }
+        candidates.count = kept;
+        tokenScores.clear();
+    }
+
+    private SearchHits topHits(Accumulator scores, int offset, int limit) {
+        int wanted = (int) Math.min((long) offset + limit, scores.count);
+        // Min-heap of the best `wanted` docs; ties go to the most recently indexed product
+        PriorityQueue<long[]> heap = new PriorityQueue<>(Math.max(1, wanted),
+                Comparator.<long[]>comparingDouble(e -> Float.intBitsToFloat((int) e[1])).thenComparingLong(e -> e[0]));
+        for (int c = 0; c < scores.count && wanted > 0; c++) {
+            int doc = scores.touched[c];
+            float score = scores.scores[doc];
+            if (heap.size() < wanted) {
+                heap.add(new long[]{doc, Float.floatToIntBits(score)});
+                continue;
+            }
+            long[] weakest = heap.peek();
+            float weakestScore = Float.intBitsToFloat((int) weakest[1]);
+            if (score > weakestScore || (score == weakestScore && doc > weakest[0])) {
+                heap.poll();
+                heap.add(new long[]{doc, Float.floatToIntBits(score)});
+            }
+        }
+        long[] ranked = new long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = productByDoc[(int) heap.poll()[0]];
+        }
+        List<Long> page = new ArrayList<>(Math.max(0, ranked.length - offset));
+        for (int i = offset; i < ranked.length; i++) {
+            page.add(ranked[i]);
+        }
+        return new SearchHits(page, scores.count);
+    }
+
+    private Accumulator acquire() {
+        Accumulator accumulator = accumulatorPool.poll();
+        if (accumulator == null) {
+            accumulator = new Accumulator();
+        }
+        accumulator.ensureCapacity(nextDoc);
+        return accumulator;
+    }
+
+    private void release(Accumulator accumulator) {
+        if (accumulator != null) {
+            accumulator.clear();
+            accumulatorPool.offer(accumulator);
+        }
+    }
+
+    private static long postingsVolume(List<Expansion> expansions) {
+        long volume = 0;
+        for (Expansion expansion : expansions) {
+            volume += expansion.postings.size;
+        }
+        return volume;
+    }
+
+    /**
+     * Levenshtein distance that gives up as soon as every cell in a row exceeds {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private record Expansion(Postings postings, float factor) {
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void append(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        float weightOf(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            return i >= 0 ? weights[i] : 0f;
+        }
+
+        void purge(BitSet deleted) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!deleted.get(docs[i])) {
+                    docs[kept] = docs[i];
+                    weights[kept] = weights[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (docs.length > 16 && size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(4, size * 2));
+                weights = Arrays.copyOf(weights, Math.max(4, size * 2));
+            }
+        }
+    }
+
+    /**
+     * Dense per-doc score array plus the list of docs it holds, so clearing costs only what was touched.
+     * Weights are always positive, a score of zero means the doc is absent.
+     */
+    private static final class Accumulator {
+        private float[] scores = new float[0];
+        private int[] touched = new int[0];
+        private int count;
+
+        void ensureCapacity(int docs) {
+            if (scores.length < docs) {
+                scores = new float[docs + docs / 4];
+                touched = new int[scores.length];
+            }
+        }
+
+        void max(int doc, float score) {
+            float current = scores[doc];
+            if (current == 0f) {
+                touched[count++] = doc;
+                scores[doc] = score;
+            } else if (score > current) {
+                scores[doc] = score;
+            }
+        }
+
+        void clear() {
+            for (int c = 0; c < count; c++) {
+                scores[touched[c]] = 0f;
+            }
+            count = 0;
+        }
+    }
+}
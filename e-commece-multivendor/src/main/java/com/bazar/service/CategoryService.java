@@ -1,5 +1,6 @@
 package com.bazar.service;
 
+import com.bazar.catalog.CategoryTreeSnapshot;
 import com.bazar.model.Category;
 import com.bazar.request.CategoryRequest;
 import com.bazar.response.CategoryTreeDTO;
@@ -28,6 +29,11 @@ public interface CategoryService {
      */
     List<CategoryTreeDTO> getCategoryTree();
 
+    /**
+     * Get the cached category tree together with its ETag
+     */
+    CategoryTreeSnapshot getCategoryTreeSnapshot();
+
     /**
      * Get single category by ID
      */
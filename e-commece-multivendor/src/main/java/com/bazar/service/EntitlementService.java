@@ -0,0 +1,22 @@
+package com.bazar.service;
+
+import com.bazar.model.Seller;
+
+public interface EntitlementService {
+    /**
+     * Take room for new products of a seller under their plan's product limit, in the caller's
+     * transaction. Throws {@link com.bazar.exceptions.ProductLimitException} when the plan has no room left;
+     * the room is given back if the transaction rolls back.
+     */
+    void reserveProducts(Seller seller, int count);
+
+    /**
+     * Whether the seller's plan has room for one more product
+     */
+    boolean canAddProduct(Seller seller);
+
+    /**
+     * Forget the cached quota of a seller, e.g. after a plan change or a product deletion
+     */
+    void evict(Long sellerId);
+}
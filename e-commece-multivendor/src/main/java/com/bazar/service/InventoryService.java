@@ -0,0 +1,38 @@
+package com.bazar.service;
+
+import com.bazar.model.Order;
+
+import java.util.Collection;
+
+public interface InventoryService {
+    /**
+     * Take stock for every line of the given orders and record time-limited reservations.
+     * Must run in the checkout transaction; throws OutOfStockException when any product runs short.
+     */
+    void reserve(Collection<Order> orders);
+
+    /**
+     * Mark the reservations of paid orders as final
+     */
+    void confirm(Collection<Long> orderIds);
+
+    /**
+     * Put the stock of cancelled orders back
+     */
+    void release(Collection<Long> orderIds);
+
+    /**
+     * Release holds that were neither paid nor cancelled before they expired, returns how many were released
+     */
+    int releaseExpired();
+
+    /**
+     * Subtract reservations taken from hot in-memory counters from product.quantity, returns how many were applied
+     */
+    int applyDeferred();
+
+    /**
+     * Set a product's quantity outright (seller or admin edit); the column is not written through the entity
+     */
+    void setStock(Long productId, int quantity);
+}
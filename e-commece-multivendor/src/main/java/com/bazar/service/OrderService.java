@@ -1,8 +1,12 @@
 package com.bazar.service;
 
 import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentStatus;
 import com.bazar.model.*;
+import com.bazar.response.CursorPage;
+import com.bazar.response.OrderSummaryDTO;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
 
@@ -15,6 +19,19 @@ public interface OrderService {
 
     List<Order> sellerOderHistory(Long sellerId);
 
+    /**
+     * A seller's orders, newest first, filtered by status, payment status, order date range (days included)
+     * and customer (user id, or part of the email). Pass the previous page's nextCursor for the next page.
+     */
+    CursorPage<OrderSummaryDTO> sellerOrderPage(Long sellerId, OrderStatus status, PaymentStatus paymentStatus,
+            LocalDate from, LocalDate to, String customer, String cursor, Integer pageSize);
+
+    /**
+     * A customer's orders, newest first, with the same filters as the seller's
+     */
+    CursorPage<OrderSummaryDTO> userOrderPage(Long userId, OrderStatus status, PaymentStatus paymentStatus,
+            LocalDate from, LocalDate to, String cursor, Integer pageSize);
+
     Order updateOrderStatus(Long orderId, OrderStatus status) throws Exception;
 
     Order cancelOrder(Long orderId, User user) throws Exception;
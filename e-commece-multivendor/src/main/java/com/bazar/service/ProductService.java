@@ -4,6 +4,9 @@ import com.bazar.exceptions.ProductException;
 import com.bazar.model.Product;
 import com.bazar.model.Seller;
 import com.bazar.request.CreateProductRequest;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ProductCardDTO;
+import com.bazar.response.ProductFacetsDTO;
 import com.bazar.response.ProductStatsDTO;
 import org.springframework.data.domain.Page;
 
@@ -16,14 +19,31 @@ public interface ProductService {
 
     public Product updateProduct(Long productId, Product product) throws ProductException;
 
+    /**
+     * Set the stock level outright. Product edits never touch stock, so units sold or reserved since
+     * the client read the product are not overwritten by accident
+     */
+    void updateStock(Long productId, int quantity) throws ProductException;
+
     Product findProductById(Long productId) throws ProductException;
 
-    List<Product> searchProducts(String query);
+    List<ProductCardDTO> searchProducts(String query);
+
+    Page<ProductCardDTO> searchProducts(String query, Integer pageNumber, Integer pageSize);
 
-    public Page<Product> getAllProducts(String category, String brand, String colors, String sizes, Integer minPrice,
+    public Page<ProductCardDTO> getAllProducts(String category, String brand, String colors, String sizes, Integer minPrice,
             Integer maxPrice, Integer minDiscount, String sort, String stock, Integer pageNumber, Integer pageSize);
 
-    List<Product> getProductsBySellerId(Long sellerId);
+    CursorPage<ProductCardDTO> getProductsByCursor(String category, String colors, String sizes, Integer minPrice,
+            Integer maxPrice, Integer minDiscount, String sort, String cursor, Integer pageSize, boolean withTotal);
+
+    /**
+     * Per-value counts for the listing filters; answered from the database while the facet index is building
+     */
+    ProductFacetsDTO getProductFacets(String category, String colors, String sizes, Integer minPrice,
+            Integer maxPrice, Integer minDiscount);
+
+    List<ProductCardDTO> getProductsBySellerId(Long sellerId);
 
     ProductStatsDTO getProductStatsBySellerId(Long sellerId);
 }
@@ -0,0 +1,31 @@
+package com.bazar.service;
+
+import com.bazar.exceptions.ProductException;
+import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+
+import java.util.List;
+
+public interface ProductVariantService {
+
+    /**
+     * Bring the product's variants in line with its sizes and color: one variant per size,
+     * dropped sizes are deactivated
+     */
+    List<ProductVariant> syncVariants(Product product);
+
+    /**
+     * Active variants of a product
+     */
+    List<ProductVariant> getVariants(Long productId);
+
+    /**
+     * Variant a cart line should point at; throws ProductException for a size the product does not offer
+     */
+    ProductVariant resolveVariant(Product product, String size) throws ProductException;
+
+    /**
+     * Create variants for products that predate them and link existing cart and order items
+     */
+    void backfillVariants();
+}
@@ -4,6 +4,8 @@ import com.bazar.model.Product;
 import com.bazar.model.Review;
 import com.bazar.model.User;
 import com.bazar.request.CreateReviewRequest;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ReviewDTO;
 
 import java.util.List;
 
@@ -12,6 +14,13 @@ public interface ReviewService {
 
     List<Review> getReviewsByProductId(Long productId);
 
+    /**
+     * One page of a product's reviews. sort is newest (default), highest, lowest or with_images;
+     * stars limits to those star ratings; pass the previous page's nextCursor for the next page.
+     */
+    CursorPage<ReviewDTO> getReviewFeed(Long productId, String sort, List<Integer> stars, String cursor,
+            Integer pageSize);
+
     Review updateReview(Long reviewId, String reviewText, double reviewRating, List<String> productImages, Long userId)
             throws Exception;
 
@@ -1,5 +1,6 @@
 package com.bazar.service;
 
+import com.bazar.analytics.AnalyticsRange;
 import com.bazar.domain.AccountStatus;
 import com.bazar.model.Order;
 import com.bazar.model.Seller;
@@ -27,7 +28,7 @@ public interface SellerService {
     Seller updateSellerAccountStatus(Long id, AccountStatus status) throws Exception;
 
     // Analytics methods
-    List<TopSellingProductDTO> getTopSellingProducts(Long sellerId, int limit);
+    List<TopSellingProductDTO> getTopSellingProducts(Long sellerId, int limit, AnalyticsRange range);
 
     List<Order> getRecentOrders(Long sellerId, int limit);
 
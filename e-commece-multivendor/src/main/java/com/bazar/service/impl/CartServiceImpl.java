@@ -1,11 +1,14 @@
 package com.bazar.service.impl;
 
+import com.bazar.exceptions.ProductException;
 import com.bazar.model.Cart;
 import com.bazar.model.CartItem;
 import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
 import com.bazar.model.User;
 import com.bazar.repository.CartItemRepository;
 import com.bazar.repository.CartRepository;
+import com.bazar.service.ProductVariantService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -14,9 +17,10 @@ import org.springframework.stereotype.Service;
 public class CartServiceImpl implements com.bazar.service.CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final ProductVariantService productVariantService;
 
     @Override
-    public CartItem addCartItem(User user, Product product, String size, int quantity) {
+    public CartItem addCartItem(User user, Product product, String size, int quantity) throws ProductException {
         // Validate product prices (using primitive float, so check for zero instead of
         // null)
         if (product.getSellingPrice() <= 0 || product.getMrpPrice() <= 0) {
@@ -28,6 +32,8 @@ public class CartServiceImpl implements com.bazar.service.CartService {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
 
+        ProductVariant variant = productVariantService.resolveVariant(product, size);
+
         Cart cart = findUserCart(user);
         CartItem isPresent = cartItemRepository.findByCartAndProductAndSize(cart, product, size);
         if (isPresent == null) {
@@ -35,6 +41,7 @@ public class CartServiceImpl implements com.bazar.service.CartService {
             cartItem.setUserId(user.getId());
             cartItem.setProduct(product);
             cartItem.setSize(size);
+            cartItem.setVariant(variant);
             cartItem.setQuantity(quantity);
             float totalPrice = quantity * product.getSellingPrice();
             cartItem.setSellingPrice((int) totalPrice);
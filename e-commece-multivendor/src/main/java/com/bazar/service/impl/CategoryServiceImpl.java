@@ -1,5 +1,7 @@
 package com.bazar.service.impl;
 
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.CategoryTreeSnapshot;
 import com.bazar.model.Category;
 import com.bazar.repository.CategoryRepository;
 import com.bazar.repository.ProductRepository;
@@ -12,7 +14,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +21,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CategoryTreeCache categoryTreeCache;
 
     @Override
     public List<Category> getAllParentCategories() {
@@ -38,28 +40,12 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public List<CategoryTreeDTO> getCategoryTree() {
-        List<Category> parentCategories = getAllParentCategories();
-        return parentCategories.stream()
-                .map(this::buildCategoryTree)
-                .collect(Collectors.toList());
+        return categoryTreeCache.get().getTree();
     }
 
-    private CategoryTreeDTO buildCategoryTree(Category category) {
-        CategoryTreeDTO dto = new CategoryTreeDTO();
-        dto.setId(category.getId());
-        dto.setCategoryId(category.getCategoryId());
-        dto.setName(category.getName());
-        dto.setImage(category.getImage());
-        dto.setLevel(category.getLevel());
-        dto.setCategoryPath(category.getCategoryPath());
-
-        // Recursively build children
-        List<Category> children = categoryRepository.findByParentCategoryId(category.getId());
-        dto.setChildren(children.stream()
-                .map(this::buildCategoryTree)
-                .collect(Collectors.toList()));
-
-        return dto;
+    @Override
+    public CategoryTreeSnapshot getCategoryTreeSnapshot() {
+        return categoryTreeCache.get();
     }
 
     @Override
@@ -109,7 +95,9 @@ public class CategoryServiceImpl implements CategoryService {
             category.setParentCategory(parent);
         }
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
+        return saved;
     }
 
     @Override
@@ -124,7 +112,9 @@ public class CategoryServiceImpl implements CategoryService {
         // Note: We don't allow changing level or parent after creation
         // to maintain data integrity
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
+        return saved;
     }
 
     @Override
@@ -145,6 +135,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.delete(category);
+        categoryTreeCache.invalidate();
     }
 
     @Override
@@ -21,7 +21,9 @@ public class CouponServiceImpl implements CouponService {
     private final UserRepository userRepository;
 
     @Override
-    public Cart applyCoupon(String code, double orderValue, User user) throws Exception {
+    public Cart applyCoupon(String code, double orderValue, User principal) throws Exception {
+        // Used coupons are a lazy collection, a cached principal is detached
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new Exception("User not found"));
         Coupon coupon = couponRepository.findByCode(code);
         Cart cart= cartRepository.findByUserId(user.getId());
         if(coupon==null){
@@ -1,5 +1,6 @@
 package com.bazar.service.impl;
 
+import com.bazar.catalog.HomePageCache;
 import com.bazar.model.Deal;
 import com.bazar.model.HomeCategory;
 import com.bazar.repository.DealRepository;
@@ -14,6 +15,7 @@ import java.util.List;
 public class DealServiceImpl implements DealService {
     private final DealRepository dealRepository;
     private final HomeCategoryRepository homeCategoryRepository;
+    private final HomePageCache homePageCache;
     @Override
     public List<Deal> getAllDeals() {
         return dealRepository.findAll();
@@ -25,7 +27,9 @@ public class DealServiceImpl implements DealService {
         Deal newDeal = dealRepository.save(deal);
         newDeal.setCategory(category);
         newDeal.setDiscount(deal.getDiscount());
-        return dealRepository.save(newDeal);
+        Deal saved = dealRepository.save(newDeal);
+        homePageCache.refresh();
+        return saved;
 
     }
 
@@ -40,7 +44,9 @@ public class DealServiceImpl implements DealService {
             if (category!=null) {
                 existingDeal.setCategory(category);
             }
-            return dealRepository.save(existingDeal);
+            Deal saved = dealRepository.save(existingDeal);
+            homePageCache.refresh();
+            return saved;
         }
         throw new Exception("Deal not found");
     }
@@ -49,5 +55,6 @@ public class DealServiceImpl implements DealService {
     public void deleteDeal(Long id) throws Exception {
         Deal deal=dealRepository.findById(id).orElseThrow(()->new Exception("Deal not found"));
         dealRepository.delete(deal);
+        homePageCache.refresh();
     }
 }
@@ -0,0 +1,118 @@
+package com.bazar.service.impl;
+
+import com.bazar.domain.PlanType;
+import com.bazar.exceptions.ProductLimitException;
+import com.bazar.model.Seller;
+import com.bazar.model.SellerSubscription;
+import com.bazar.model.SubscriptionPlan;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.SellerSubscriptionRepository;
+import com.bazar.repository.SubscriptionPlanRepository;
+import com.bazar.service.EntitlementService;
+import com.bazar.utils.TtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Product quotas per seller: the plan's product limit and a product count, loaded once and then
+ * kept by counting the products created here. A creation costs no queries while the quota is cached.
+ * <p>
+ * The count is per node, so products created on another node are only seen once the entry expires
+ * ({@code subscription.entitlement-cache.ttl}); plan changes and deletions evict the entry.
+ */
+@Service
+public class EntitlementServiceImpl implements EntitlementService {
+
+    private static final class Quota {
+        private final Integer maxProducts;
+        private long products;
+
+        private Quota(Integer maxProducts, long products) {
+            this.maxProducts = maxProducts;
+            this.products = products;
+        }
+    }
+
+    private final SellerSubscriptionRepository subscriptionRepository;
+    private final SubscriptionPlanRepository planRepository;
+    private final ProductRepository productRepository;
+    private final TtlCache<Long, Quota> quotas;
+    // Quotas being loaded, by seller; only held until the loaded quota is in the cache
+    private final ConcurrentHashMap<Long, Quota> loading = new ConcurrentHashMap<>();
+
+    public EntitlementServiceImpl(SellerSubscriptionRepository subscriptionRepository,
+            SubscriptionPlanRepository planRepository, ProductRepository productRepository,
+            @Value("${subscription.entitlement-cache.max-size:10000}") int maxSize,
+            @Value("${subscription.entitlement-cache.ttl:5m}") Duration ttl) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.planRepository = planRepository;
+        this.productRepository = productRepository;
+        this.quotas = new TtlCache<>(maxSize, ttl);
+    }
+
+    @Override
+    public void reserveProducts(Seller seller, int count) {
+        Quota quota = quota(seller);
+        synchronized (quota) {
+            if (quota.maxProducts != null && quota.products + count > quota.maxProducts) {
+                throw new ProductLimitException("Product limit reached for your subscription plan. Please upgrade.");
+            }
+            quota.products += count;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Long sellerId = seller.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        evict(sellerId);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean canAddProduct(Seller seller) {
+        Quota quota = quota(seller);
+        synchronized (quota) {
+            return quota.maxProducts == null || quota.products < quota.maxProducts;
+        }
+    }
+
+    @Override
+    public void evict(Long sellerId) {
+        quotas.invalidate(sellerId);
+    }
+
+    private Quota quota(Seller seller) {
+        Long sellerId = seller.getId();
+        Quota quota = quotas.get(sellerId);
+        if (quota != null) {
+            return quota;
+        }
+        // Concurrent first creations of a seller wait for one load and count on the same quota;
+        // other sellers load in parallel
+        quota = loading.computeIfAbsent(sellerId, id -> {
+            Quota cached = quotas.get(id);
+            return cached != null ? cached : load(seller);
+        });
+        quotas.put(sellerId, quota);
+        loading.remove(sellerId, quota);
+        return quota;
+    }
+
+    private Quota load(Seller seller) {
+        // No subscription yet means the Free plan, which is what getSellerSubscription assigns
+        SubscriptionPlan plan = subscriptionRepository.findBySeller(seller)
+                .map(SellerSubscription::getPlan)
+                .orElseGet(() -> planRepository.findByPlanType(PlanType.FREE)
+                        .orElseThrow(() -> new RuntimeException("Free plan not found")));
+        return new Quota(plan.getMaxProducts(), productRepository.countBySellerId(seller.getId()));
+    }
+}
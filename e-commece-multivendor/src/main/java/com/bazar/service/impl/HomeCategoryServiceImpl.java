@@ -1,5 +1,6 @@
 package com.bazar.service.impl;
 
+import com.bazar.catalog.HomePageCache;
 import com.bazar.model.HomeCategory;
 import com.bazar.repository.HomeCategoryRepository;
 import com.bazar.service.HomeCategoryService;
@@ -11,18 +12,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class HomeCategoryServiceImpl implements HomeCategoryService {
     private final HomeCategoryRepository homeCategoryRepository;
+    private final HomePageCache homePageCache;
     @Override
     public HomeCategory createHomeCategory(HomeCategory homeCategory) {
-        return homeCategoryRepository.save(homeCategory);
+        HomeCategory saved = homeCategoryRepository.save(homeCategory);
+        homePageCache.refresh();
+        return saved;
     }
 
     @Override
     public List<HomeCategory> createHomeCategories(List<HomeCategory> homeCategories) {
-        if (homeCategoryRepository.findAll().isEmpty())
+        List<HomeCategory> existing = homeCategoryRepository.findAll();
+        if (existing.isEmpty())
         {
-            return homeCategoryRepository.saveAll(homeCategories);
+            List<HomeCategory> saved = homeCategoryRepository.saveAll(homeCategories);
+            homePageCache.refresh();
+            return saved;
         }
-        return homeCategoryRepository.findAll();
+        return existing;
     }
 
     @Override
@@ -35,7 +42,9 @@ public class HomeCategoryServiceImpl implements HomeCategoryService {
         if (category.getCategoryId()!=null){
             existingCategory.setCategoryId(category.getCategoryId());
         }
-        return homeCategoryRepository.save(existingCategory);
+        HomeCategory saved = homeCategoryRepository.save(existingCategory);
+        homePageCache.refresh();
+        return saved;
     }
 
     @Override
@@ -10,35 +10,41 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class HomeServiceImpl implements HomeService {
-    private DealRepository dealRepository;
+    private final DealRepository dealRepository;
+
     @Override
     public Home createHomePageData(List<HomeCategory> allCategories) {
-        List<HomeCategory> gridCategories = allCategories.stream().filter(category -> category.getSection() == HomeCategorySection.GRID).collect(Collectors.toList());
-        List<HomeCategory> shopByCategories = allCategories.stream().filter(category -> category.getSection() == HomeCategorySection.SHOP_BY_CATEGORIES).collect(Collectors.toList());
-        List<HomeCategory> electricCategories = allCategories.stream().filter(category -> category.getSection() == HomeCategorySection.ELECTRIC_CATEGORIES).collect(Collectors.toList());
-        List<HomeCategory> dealCategories = allCategories.stream().filter(category -> category.getSection() == HomeCategorySection.DEALS).collect(Collectors.toList());
-        List<Deal> createdDeals = new ArrayList<>();
-        for (HomeCategory dealCategory : dealCategories) {
-            Deal deal = dealRepository.findById(Long.valueOf(dealCategory.getCategoryId())).orElseThrow(() -> new RuntimeException("Deal not found with id: " + dealCategory.getCategoryId()));
-            createdDeals.add(deal);
+        // One pass over the categories, grouped by the section they are shown in
+        Map<HomeCategorySection, List<HomeCategory>> sections = new EnumMap<>(HomeCategorySection.class);
+        for (HomeCategorySection section : HomeCategorySection.values()) {
+            sections.put(section, new ArrayList<>());
+        }
+        for (HomeCategory category : allCategories) {
+            if (category.getSection() != null) {
+                sections.get(category.getSection()).add(category);
+            }
+        }
+        List<HomeCategory> dealCategories = sections.get(HomeCategorySection.DEALS);
+
+        List<Deal> deals = dealRepository.findAll();
+        if (deals.isEmpty() && !dealCategories.isEmpty()) {
+            // First run: a default deal per deal category
+            deals = dealRepository.saveAll(dealCategories.stream().map(category -> new Deal(null, 10, category)).toList());
         }
-        if (dealRepository.findAll().isEmpty()) {
-            List<Deal> deals = allCategories.stream().filter(category -> category.getSection() == HomeCategorySection.DEALS).map(category -> new Deal(null, 10, category)).collect(Collectors.toList());
-            createdDeals = dealRepository.saveAll(deals);
-        } else createdDeals = dealRepository.findAll();
 
         Home home = new Home();
-        home.setGridCategories(gridCategories);
-        home.setShopByCategories(shopByCategories);
-        home.setElectricCategories(electricCategories);
+        home.setGridCategories(sections.get(HomeCategorySection.GRID));
+        home.setShopByCategories(sections.get(HomeCategorySection.SHOP_BY_CATEGORIES));
+        home.setElectricCategories(sections.get(HomeCategorySection.ELECTRIC_CATEGORIES));
         home.setDealCategories(dealCategories);
-        home.setDeals(createdDeals);
+        home.setDeals(deals);
         return home;
-        }
     }
+}
@@ -0,0 +1,276 @@
+package com.bazar.service.impl;
+
+import com.bazar.domain.ReservationStatus;
+import com.bazar.exceptions.OutOfStockException;
+import com.bazar.inventory.HotInventory;
+import com.bazar.inventory.StripedStock;
+import com.bazar.model.Order;
+import com.bazar.model.OrderItem;
+import com.bazar.model.Product;
+import com.bazar.model.StockReservation;
+import com.bazar.repository.StockReservationRepository;
+import com.bazar.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Stock is taken with conditional UPDATEs rather than locking the product rows up front: the
+ * {@code quantity >= ?} guard makes each decrement atomic, so concurrent checkouts of the same
+ * product only contend for the duration of one row update. Products are always updated in id
+ * order to keep lock acquisition consistent between checkouts. Products held by the optional
+ * {@link HotInventory} are taken from memory instead and written behind by {@link #applyDeferred()}.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryServiceImpl.class);
+
+    private static final String TAKE_STOCK = "UPDATE product SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+    private static final String RETURN_STOCK = "UPDATE product SET quantity = quantity + ? WHERE id = ?";
+    private static final String APPLY_DEFERRED = "UPDATE product SET quantity = quantity - ? WHERE id = ?";
+
+    private final StockReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Optional<HotInventory> hotInventory;
+
+    @Value("${inventory.reservation-ttl:30m}")
+    private Duration reservationTtl;
+
+    @Value("${inventory.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    @Value("${inventory.hot.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    @Override
+    @Transactional
+    public void reserve(Collection<Order> orders) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(reservationTtl);
+        List<StockReservation> reservations = new ArrayList<>();
+        // One order per seller and a product belongs to one seller, so (seller, product) is a global order
+        List<Order> bySeller = new ArrayList<>(orders);
+        bySeller.sort(Comparator.comparing(Order::getSellerId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (Order order : bySeller) {
+            Map<Long, Integer> quantities = new TreeMap<>();
+            Map<Long, List<StockReservation>> lines = new HashMap<>();
+            for (OrderItem item : order.getOrderItems()) {
+                Product product = item.getProduct();
+                if (!Boolean.TRUE.equals(product.getTrackInventory()) || item.getQuantity() <= 0) {
+                    continue;
+                }
+                quantities.merge(product.getId(), item.getQuantity(), Integer::sum);
+                StockReservation reservation = new StockReservation();
+                reservation.setOrderId(order.getId());
+                reservation.setProductId(product.getId());
+                reservation.setVariantId(item.getVariant() != null ? item.getVariant().getId() : null);
+                reservation.setQuantity(item.getQuantity());
+                reservation.setCreatedAt(now);
+                reservation.setExpiresAt(expiresAt);
+                reservations.add(reservation);
+                lines.computeIfAbsent(product.getId(), id -> new ArrayList<>()).add(reservation);
+            }
+            takeHotStock(quantities, lines);
+            takeStock(quantities);
+        }
+        reservationRepository.saveAll(reservations);
+    }
+
+    @Override
+    @Transactional
+    public void confirm(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        for (StockReservation reservation : reservationRepository.lockByOrderIds(orderIds)) {
+            if (reservation.getStatus() == ReservationStatus.HELD) {
+                reservation.setStatus(ReservationStatus.CONFIRMED);
+            } else if (reservation.getStatus() == ReservationStatus.RELEASED) {
+                // Paid after the hold expired, take the stock again if it is still there
+                if (retake(reservation)) {
+                    reservation.setStatus(ReservationStatus.CONFIRMED);
+                } else {
+                    logger.warn("Order {} was paid after its reservation expired and product {} is out of stock",
+                            reservation.getOrderId(), reservation.getProductId());
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void release(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<StockReservation> released = new ArrayList<>();
+        for (StockReservation reservation : reservationRepository.lockByOrderIds(orderIds)) {
+            if (reservation.getStatus() != ReservationStatus.RELEASED) {
+                released.add(reservation);
+            }
+        }
+        releaseAll(released);
+    }
+
+    @Override
+    public int releaseExpired() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            Integer released = tx.execute(status -> {
+                List<StockReservation> expired = reservationRepository.lockExpired(ReservationStatus.HELD,
+                        LocalDateTime.now(), PageRequest.of(0, sweepBatchSize));
+                releaseAll(expired);
+                return expired.size();
+            });
+            if (released == null || released == 0) {
+                break;
+            }
+            total += released;
+            if (released < sweepBatchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public int applyDeferred() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            Integer applied = tx.execute(status -> {
+                List<StockReservation> batch = reservationRepository.lockDeferred(PageRequest.of(0, flushBatchSize));
+                Map<Long, Integer> quantities = new TreeMap<>();
+                for (StockReservation reservation : batch) {
+                    quantities.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+                    reservation.setDeferred(false);
+                }
+                batchUpdate(APPLY_DEFERRED, quantities);
+                return batch.size();
+            });
+            if (applied == null || applied == 0) {
+                break;
+            }
+            total += applied;
+            if (applied < flushBatchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    @Transactional
+    public void setStock(Long productId, int quantity) {
+        int target = Math.max(quantity, 0);
+        List<Integer> current = jdbcTemplate.queryForList("SELECT quantity FROM product WHERE id = ? FOR UPDATE",
+                Integer.class, productId);
+        if (current.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE product SET quantity = ? WHERE id = ?", target, productId);
+        // The hot counter follows by the same delta, so checkouts in flight keep what they took
+        int previous = current.get(0) != null ? current.get(0) : 0;
+        hotInventory.ifPresent(hot -> hot.adjust(productId, (long) target - previous));
+    }
+
+    // Hot products are taken from memory and removed from the map, leaving the rest to the batched UPDATE
+    private void takeHotStock(Map<Long, Integer> quantities, Map<Long, List<StockReservation>> lines) {
+        if (hotInventory.isEmpty()) {
+            return;
+        }
+        HotInventory hot = hotInventory.get();
+        Iterator<Map.Entry<Long, Integer>> entries = quantities.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, Integer> entry = entries.next();
+            StripedStock stock = hot.counter(entry.getKey());
+            if (stock == null) {
+                continue;
+            }
+            if (!hot.take(stock, entry.getValue())) {
+                throw new OutOfStockException(entry.getKey(), "Not enough stock for product " + entry.getKey());
+            }
+            lines.get(entry.getKey()).forEach(reservation -> reservation.setDeferred(true));
+            entries.remove();
+        }
+    }
+
+    private boolean retake(StockReservation reservation) {
+        StripedStock stock = hotInventory.map(hot -> hot.counter(reservation.getProductId())).orElse(null);
+        if (stock != null) {
+            if (!hotInventory.get().take(stock, reservation.getQuantity())) {
+                return false;
+            }
+            reservation.setDeferred(true);
+            return true;
+        }
+        return jdbcTemplate.update(TAKE_STOCK, reservation.getQuantity(), reservation.getProductId(),
+                reservation.getQuantity()) == 1;
+    }
+
+    private void releaseAll(List<StockReservation> reservations) {
+        List<StockReservation> applied = new ArrayList<>(reservations.size());
+        for (StockReservation reservation : reservations) {
+            reservation.setStatus(ReservationStatus.RELEASED);
+            if (reservation.isDeferred()) {
+                // Never reached product.quantity, dropping it from the write-behind log is enough
+                reservation.setDeferred(false);
+            } else {
+                applied.add(reservation);
+            }
+            hotInventory.ifPresent(hot -> hot.giveBack(reservation.getProductId(), reservation.getQuantity()));
+        }
+        returnStock(applied);
+    }
+
+    private void takeStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> args.add(new Object[] { quantity, productId, quantity }));
+        int[] updated = jdbcTemplate.batchUpdate(TAKE_STOCK, args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 1) {
+                // Throwing rolls back the whole checkout, including the decrements that did apply
+                Long productId = (Long) args.get(i)[1];
+                throw new OutOfStockException(productId, "Not enough stock for product " + productId);
+            }
+        }
+    }
+
+    private void returnStock(List<StockReservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservation reservation : reservations) {
+            quantities.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+        }
+        batchUpdate(RETURN_STOCK, quantities);
+    }
+
+    private void batchUpdate(String sql, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> args.add(new Object[] { quantity, productId }));
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+}
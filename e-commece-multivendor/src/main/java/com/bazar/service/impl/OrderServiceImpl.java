@@ -1,39 +1,76 @@
 package com.bazar.service.impl;
 
+import com.bazar.analytics.OrderEventLog;
+import com.bazar.analytics.SellerAnalytics;
+import com.bazar.config.PrincipalCache;
+import com.bazar.domain.OrderEventType;
 import com.bazar.domain.OrderStatus;
 import com.bazar.domain.PaymentStatus;
+import com.bazar.exceptions.BadRequestException;
 import com.bazar.model.*;
 import com.bazar.repository.AddressRepository;
 import com.bazar.repository.OrderItemRepository;
 import com.bazar.repository.OrderRepository;
 import com.bazar.repository.PaymentOrderRepository;
+import com.bazar.repository.ProductRepository;
 import com.bazar.repository.TransactionRepository;
+import com.bazar.repository.UserRepository;
+import com.bazar.response.CursorPage;
+import com.bazar.response.OrderSummaryDTO;
+import com.bazar.service.InventoryService;
 import com.bazar.service.OrderService;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final AddressRepository addressRepository;
     private final OrderItemRepository orderItemRepository;
     private final TransactionRepository transactionRepository;
     private final PaymentOrderRepository paymentOrderRepository;
+    private final InventoryService inventoryService;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final PrincipalCache principalCache;
+    private final SellerAnalytics sellerAnalytics;
+    private final OrderEventLog orderEventLog;
 
+    /**
+     * Split the cart into one order per seller and persist everything in a single transaction.
+     * Items are cascaded from their order and ids come from pooled sequences, so with JDBC
+     * batching enabled a checkout costs a handful of statements regardless of cart size.
+     * Stock is reserved in the same transaction, so an out-of-stock line rolls back the whole checkout.
+     */
     @Override
+    @Transactional
     public Set<Order> createOrder(User user, Address ShippingAddress, Cart cart) {
-        if (!user.getAddresses().add(ShippingAddress)) {
-            user.getAddresses().add(ShippingAddress);
+        // The caller's user can be a detached cached principal, the address link needs the managed one
+        User owner = userRepository.findById(user.getId()).orElse(user);
+        if (!owner.getAddresses().add(ShippingAddress)) {
+            owner.getAddresses().add(ShippingAddress);
         }
         Address address = addressRepository.save(ShippingAddress);
+        principalCache.evictUser(owner.getId());
         Map<Long, List<CartItem>> itemsBySeller = cart.getCartItems().stream()
                 .collect(Collectors.groupingBy(item -> item.getProduct().getSeller().getId()));
-        Set<Order> orders = new HashSet<>();
+        List<Order> pending = new ArrayList<>(itemsBySeller.size());
         for (Map.Entry<Long, List<CartItem>> entry : itemsBySeller.entrySet()) {
             Long sellerId = entry.getKey();
             List<CartItem> items = entry.getValue();
@@ -48,26 +85,26 @@ public class OrderServiceImpl implements OrderService {
             order.setTotalItem(totalItem);
             order.setOrderStatus(OrderStatus.PENDING);
             order.getPaymentDetails().setStatus(PaymentStatus.PENDING);
-            Order savedOrder = orderRepository.save(order);
-            orders.add(savedOrder);
-            List<OrderItem> orderItems = new ArrayList<>();
             for (CartItem item : items) {
                 OrderItem orderItem = new OrderItem();
-                orderItem.setOrder(savedOrder);
+                orderItem.setOrder(order);
                 orderItem.setProduct(item.getProduct());
+                orderItem.setSize(item.getSize());
+                orderItem.setVariant(item.getVariant());
                 orderItem.setQuantity(item.getQuantity());
                 orderItem.setMrpPrice(item.getMrpPrice());
                 orderItem.setSellingPrice(item.getSellingPrice());
                 orderItem.setUserId(item.getUserId());
-                savedOrder.getOrderItems().add(orderItem);
-
-                OrderItem savedOrderItem = orderItemRepository.save(orderItem);
-                orderItems.add(savedOrderItem);
-
+                order.getOrderItems().add(orderItem);
             }
+            pending.add(order);
         }
 
-        return orders;
+        List<Order> saved = orderRepository.saveAll(pending);
+        inventoryService.reserve(saved);
+        orderEventLog.created(saved);
+        // Order hashes on its id, so only collect into the set once ids are assigned
+        return new HashSet<>(saved);
     }
 
     @Override
@@ -86,9 +123,158 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryDTO> sellerOrderPage(Long sellerId, OrderStatus status, PaymentStatus paymentStatus,
+            LocalDate from, LocalDate to, String customer, String cursor, Integer pageSize) {
+        return orderPage("sellerId", sellerId, status, paymentStatus, from, to, customer, cursor, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryDTO> userOrderPage(Long userId, OrderStatus status, PaymentStatus paymentStatus,
+            LocalDate from, LocalDate to, String cursor, Integer pageSize) {
+        return orderPage("user", userId, status, paymentStatus, from, to, null, cursor, pageSize);
+    }
+
+    // Newest first on (order_date, id), which the (seller_id, order_date) and (user_id, order_date) indexes serve
+    private CursorPage<OrderSummaryDTO> orderPage(String owner, Long ownerId, OrderStatus status,
+            PaymentStatus paymentStatus, LocalDate from, LocalDate to, String customer, String cursor,
+            Integer pageSize) {
+        int size = pageSize != null ? Math.max(1, Math.min(pageSize, MAX_HISTORY_PAGE_SIZE)) : 20;
+        String match = customer != null ? customer.trim() : "";
+        Long customerId = !match.isEmpty() && match.chars().allMatch(Character::isDigit) ? customerId(match) : null;
+        Specification<Order> spec = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add("user".equals(owner) ? cb.equal(root.get("user").get("id"), ownerId)
+                    : cb.equal(root.get(owner), ownerId));
+            if (status != null) {
+                predicates.add(cb.equal(root.get("orderStatus"), status));
+            }
+            if (paymentStatus != null) {
+                predicates.add(cb.equal(root.get("paymentStatus"), paymentStatus));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("orderDate"), from.atStartOfDay()));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThan(root.get("orderDate"), to.plusDays(1).atStartOfDay()));
+            }
+            // The page's customers and addresses come with the orders; the lines follow in one more query
+            Join<Order, User> user;
+            if (Order.class.equals(query.getResultType())) {
+                user = (Join<Order, User>) root.<Order, User>fetch("user", JoinType.LEFT);
+                root.fetch("shippingAddress", JoinType.LEFT);
+            } else {
+                user = root.join("user", JoinType.LEFT);
+            }
+            if (!match.isEmpty()) {
+                predicates.add(customerId != null
+                        ? cb.equal(user.get("id"), customerId)
+                        : cb.like(cb.lower(user.get("email")), "%" + match.toLowerCase(Locale.ROOT) + "%"));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(beforeOrderCursor(decodeOrderCursor(cursor)));
+        }
+        Sort order = Sort.by("orderDate").descending().and(Sort.by("id").descending());
+
+        // size + 1 rows: the extra one only says whether there is a next page
+        List<Order> rows = orderRepository.findBy(spec, q -> q.sortBy(order).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Order> page = hasNext ? rows.subList(0, size) : rows;
+        List<OrderSummaryDTO> content = summaries(page);
+        String nextCursor = hasNext ? encodeOrderCursor(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(content, nextCursor, hasNext, null);
+    }
+
+    private List<OrderSummaryDTO> summaries(List<Order> orders) {
+        Map<Long, OrderSummaryDTO> byId = new LinkedHashMap<>();
+        for (Order order : orders) {
+            User user = order.getUser();
+            byId.put(order.getId(), new OrderSummaryDTO(order.getId(), order.getOrderId(), order.getSellerId(),
+                    order.getOrderDate(), order.getDeliverDate(), order.getOrderStatus(), order.getPaymentStatus(),
+                    order.getTotalItem(), order.getTotalMrpPrice(), order.getTotalSellingPrice(),
+                    user != null ? user.getId() : null, user != null ? user.getFullName() : null,
+                    user != null ? user.getEmail() : null, order.getShippingAddress(), new ArrayList<>()));
+        }
+        if (byId.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, List<OrderSummaryDTO.Item>> byProduct = new HashMap<>();
+        for (Object[] row : orderItemRepository.findSummaries(byId.keySet())) {
+            OrderSummaryDTO.Item item = new OrderSummaryDTO.Item((Long) row[1], (Long) row[2], (String) row[3], null,
+                    (String) row[4], (Integer) row[5], (Integer) row[6], (Integer) row[7]);
+            byId.get((Long) row[0]).getOrderItems().add(item);
+            if (item.getProductId() != null) {
+                byProduct.computeIfAbsent(item.getProductId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        if (!byProduct.isEmpty()) {
+            for (Object[] row : productRepository.findImages(byProduct.keySet())) {
+                for (OrderSummaryDTO.Item item : byProduct.get((Long) row[0])) {
+                    if (item.getImage() == null) {
+                        item.setImage((String) row[1]);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    // Seek predicate: orders strictly older than the (orderDate, id) position
+    private static Specification<Order> beforeOrderCursor(Object[] position) {
+        return (root, query, cb) -> {
+            LocalDateTime last = (LocalDateTime) position[0];
+            Long lastId = (Long) position[1];
+            return cb.or(cb.lessThan(root.get("orderDate"), last),
+                    cb.and(cb.equal(root.get("orderDate"), last), cb.lessThan(root.get("id"), lastId)));
+        };
+    }
+
+    private static String encodeOrderCursor(Order last) {
+        String raw = "o|" + last.getOrderDate() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeOrderCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 3 && parts[0].equals("o")) {
+                return new Object[]{LocalDateTime.parse(parts[1]), Long.valueOf(parts[2])};
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ignored) {
+            // fall through to the error below
+        }
+        throw new BadRequestException("Invalid or expired cursor");
+    }
+
+    private static Long customerId(String digits) {
+        try {
+            return Long.valueOf(digits);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Customer id " + digits + " is out of range");
+        }
+    }
+
+    @Override
+    @Transactional
     public Order updateOrderStatus(Long orderId, OrderStatus status) throws Exception {
         Order order = findOrderById(orderId);
         order.setOrderStatus(status);
+        sellerAnalytics.record(List.of(orderId), status);
+        switch (status) {
+            case SHIPPED -> orderEventLog.publish(List.of(orderId), OrderEventType.SHIPPED);
+            // Delivery is also when cash on delivery gets paid; an order paid online already has its event
+            case DELIVERED -> orderEventLog.publish(List.of(orderId), OrderEventType.PAID, OrderEventType.SHIPPED,
+                    OrderEventType.DELIVERED);
+            case CANCELLED -> {
+                publishCancellation(order);
+                inventoryService.release(List.of(orderId));
+            }
+            default -> {
+            }
+        }
 
         return orderRepository.save(order);
     }
@@ -101,8 +287,11 @@ public class OrderServiceImpl implements OrderService {
             throw new Exception("You are not authorized to cancel this order");
 
         }
+        publishCancellation(order);
         order.setOrderStatus(OrderStatus.CANCELLED);
         order.getPaymentDetails().setStatus(PaymentStatus.CANCELLED);
+        inventoryService.release(List.of(orderId));
+        sellerAnalytics.record(List.of(orderId), OrderStatus.CANCELLED);
 
         return orderRepository.save(order);
     }
@@ -116,6 +305,9 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public void deleteOrder(Long orderId) throws Exception {
         Order order = findOrderById(orderId);
+        inventoryService.release(List.of(orderId));
+        sellerAnalytics.record(List.of(orderId), OrderStatus.CANCELLED);
+        publishCancellation(order);
 
         // Delete associated transactions first to avoid foreign key constraint
         // violation
@@ -133,4 +325,13 @@ public class OrderServiceImpl implements OrderService {
 
         orderRepository.delete(order);
     }
+
+    // A cancelled order that was already paid is refunded as well
+    private void publishCancellation(Order order) {
+        if (order.getPaymentStatus() == PaymentStatus.COMPLETED) {
+            orderEventLog.publish(List.of(order.getId()), OrderEventType.CANCELLED, OrderEventType.REFUNDED);
+        } else {
+            orderEventLog.publish(List.of(order.getId()), OrderEventType.CANCELLED);
+        }
+    }
 }
@@ -1,18 +1,37 @@
 package com.bazar.service.impl;
 
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.ProductFacetEngine;
+import com.bazar.exceptions.BadRequestException;
 import com.bazar.exceptions.ProductException;
 import com.bazar.model.Category;
 import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
 import com.bazar.model.Seller;
 import com.bazar.repository.CategoryRepository;
 import com.bazar.repository.ProductRepository;
 import com.bazar.request.CreateProductRequest;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ProductCardDTO;
+import com.bazar.response.ProductFacetsDTO;
 import com.bazar.response.ProductStatsDTO;
+import com.bazar.search.InvertedIndexSearchBackend;
+import com.bazar.search.JpaSearchBackend;
+import com.bazar.search.ProductSearchBackend;
+import com.bazar.service.EntitlementService;
+import com.bazar.service.InventoryService;
 import com.bazar.service.ProductService;
+import com.bazar.service.ProductVariantService;
+import com.bazar.storage.ImageStore;
+import com.bazar.utils.TtlCache;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -20,10 +39,14 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @Transactional
@@ -31,9 +54,26 @@ import java.util.List;
 public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+    private final Optional<InvertedIndexSearchBackend> indexSearchBackend;
+    private final JpaSearchBackend jpaSearchBackend;
+    private final ProductFacetEngine facetEngine;
+    private final ProductVariantService productVariantService;
+    private final ImageStore imageStore;
+    private final InventoryService inventoryService;
+    private final EntitlementService entitlementService;
+
+    @Value("${search.max-results:100}")
+    private int searchMaxResults;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    // Filter signature -> row count, good enough for "about N results" in cursor mode
+    private final TtlCache<String, Long> totalEstimates = new TtlCache<>(1000, Duration.ofMinutes(5));
 
     @Override
     public Product createProduct(CreateProductRequest req, Seller seller) {
+        entitlementService.reserveProducts(seller, 1);
         Category category1 = categoryRepository.findByCategoryId((req.getCategory()));
         if (category1 == null) {
             Category category = new Category();
@@ -41,6 +81,7 @@ public class ProductServiceImpl implements ProductService {
             category.setName(req.getCategory()); // Set name same as ID
             category.setLevel(1);
             category1 = categoryRepository.save(category);
+            categoryTreeCache.invalidate();
 
         }
         Category category2 = categoryRepository.findByCategoryId((req.getCategory2()));
@@ -51,6 +92,7 @@ public class ProductServiceImpl implements ProductService {
             category.setLevel(2);
             category.setParentCategory(category1);
             category2 = categoryRepository.save(category);
+            categoryTreeCache.invalidate();
 
         }
         Category category3 = categoryRepository.findByCategoryId((req.getCategory3()));
@@ -61,6 +103,7 @@ public class ProductServiceImpl implements ProductService {
             category.setLevel(3);
             category.setParentCategory(category2);
             category3 = categoryRepository.save(category);
+            categoryTreeCache.invalidate();
 
         }
         int discountPercentage = calculateDiscountPercentage(req.getMrpPrice(), req.getSellingPrice());
@@ -72,11 +115,19 @@ public class ProductServiceImpl implements ProductService {
         product.setMrpPrice(req.getMrpPrice());
         product.setSellingPrice(req.getSellingPrice());
         product.setColor(req.getColor());
-        product.setImages(req.getImages());
+        product.setImages(imageStore.toReferences(req.getImages()));
         product.setCreatedAt(LocalDate.from(LocalDateTime.now()));
         product.setSizes(req.getSize());
         product.setDiscountPercentage(discountPercentage);
+        if (req.getQuantity() != null) {
+            product.setQuantity(Math.max(req.getQuantity(), 0));
+            product.setTrackInventory(true);
+        }
         product = productRepository.save(product);
+        productVariantService.syncVariants(product);
+        Product saved = product;
+        indexSearchBackend.ifPresent(backend -> backend.index(saved));
+        facetEngine.index(saved);
 
         return product;
     }
@@ -94,14 +145,29 @@ public class ProductServiceImpl implements ProductService {
     public void deleteProduct(Long productId) throws ProductException {
         Product product = findProductById(productId);
         productRepository.delete(product);
-
+        if (product.getSeller() != null) {
+            entitlementService.evict(product.getSeller().getId());
+        }
+        indexSearchBackend.ifPresent(backend -> backend.remove(productId));
+        facetEngine.remove(productId);
     }
 
     @Override
     public Product updateProduct(Long productId, Product product) throws ProductException {
         findProductById(productId);
         product.setId(productId);
-        return productRepository.save(product);
+        product.setImages(imageStore.toReferences(product.getImages()));
+        Product saved = productRepository.save(product);
+        productVariantService.syncVariants(saved);
+        indexSearchBackend.ifPresent(backend -> backend.index(saved));
+        facetEngine.index(saved);
+        return saved;
+    }
+
+    @Override
+    public void updateStock(Long productId, int quantity) throws ProductException {
+        findProductById(productId);
+        inventoryService.setStock(productId, quantity);
     }
 
     @Override
@@ -110,15 +176,100 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public List<Product> searchProducts(String query) {
+    public List<ProductCardDTO> searchProducts(String query) {
+        if (query == null || query.isBlank()) {
+            return productRepository.findCards(null, Sort.unsorted(), -1);
+        }
+        return productRepository.findCardsByIds(
+                searchBackend().searchIds(query, PageRequest.of(0, searchMaxResults)).getContent());
+    }
+
+    @Override
+    public Page<ProductCardDTO> searchProducts(String query, Integer pageNumber, Integer pageSize) {
+        Pageable pageable = PageRequest.of(pageNumber != null ? pageNumber : 0,
+                pageSize != null ? Math.min(pageSize, searchMaxResults) : 10);
+        if (query == null || query.isBlank()) {
+            return productRepository.findCards(null, pageable);
+        }
+        Page<Long> ids = searchBackend().searchIds(query, pageable);
+        return new PageImpl<>(productRepository.findCardsByIds(ids.getContent()), pageable, ids.getTotalElements());
+    }
 
-        return productRepository.searchProduct(query);
+    // Use the in-memory index when it is enabled and built, the LIKE query otherwise
+    private ProductSearchBackend searchBackend() {
+        return indexSearchBackend
+                .filter(ProductSearchBackend::isReady)
+                .<ProductSearchBackend>map(backend -> backend)
+                .orElse(jpaSearchBackend);
     }
 
     @Override
-    public Page<Product> getAllProducts(String category, String brand, String colors, String sizes, Integer minPrice,
+    public Page<ProductCardDTO> getAllProducts(String category, String brand, String colors, String sizes, Integer minPrice,
             Integer maxPrice, Integer minDiscount, String sort, String stock, Integer pageNumber, Integer pageSize) {
-        Specification<Product> spec = ((root, query, criteriaBuilder) -> {
+        Specification<Product> spec = productFilter(category, colors, sizes, minPrice, maxPrice, minDiscount);
+        Pageable pageable;
+        if (sort != null && !sort.isEmpty()) {
+            pageable = switch (sort) {
+                case "price_low" ->
+                    PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.by("sellingPrice").ascending());
+                case "price_high" ->
+                    PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.by("sellingPrice").descending());
+                case "rating" ->
+                    PageRequest.of(pageNumber != null ? pageNumber : 0, 10,
+                            Sort.by("averageRating").descending().and(Sort.by("numRatings").descending()));
+                default -> PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.unsorted());
+            };
+        } else {
+            pageable = PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.unsorted());
+        }
+        return productRepository.findCards(spec, pageable);
+    }
+
+    @Override
+    public CursorPage<ProductCardDTO> getProductsByCursor(String category, String colors, String sizes, Integer minPrice,
+            Integer maxPrice, Integer minDiscount, String sort, String cursor, Integer pageSize, boolean withTotal) {
+        Specification<Product> filter = productFilter(category, colors, sizes, minPrice, maxPrice, minDiscount);
+        int size = pageSize != null ? Math.max(1, Math.min(pageSize, MAX_CURSOR_PAGE_SIZE)) : 10;
+        // Seek column for the sort; ties and the unsorted case fall back to id
+        String seekField = switch (sort != null ? sort : "") {
+            case "price_low", "price_high" -> "sellingPrice";
+            case "rating" -> "averageRating";
+            default -> null;
+        };
+        boolean descending = "price_high".equals(sort) || "rating".equals(sort);
+
+        Specification<Product> spec = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(afterCursor(decodeCursor(cursor, seekField), seekField, descending));
+        }
+        Sort order = seekField == null ? Sort.by("id").ascending()
+                : descending ? Sort.by(seekField).descending().and(Sort.by("id").descending())
+                : Sort.by(seekField).ascending().and(Sort.by("id").ascending());
+
+        // One extra row tells us whether there is a next page without a COUNT query
+        List<ProductCardDTO> rows = productRepository.findCards(spec, order, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ProductCardDTO> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1), seekField) : null;
+
+        Long approximateTotal = null;
+        if (withTotal) {
+            String key = String.join("|", String.valueOf(category), String.valueOf(colors), String.valueOf(sizes),
+                    String.valueOf(minPrice), String.valueOf(maxPrice), String.valueOf(minDiscount));
+            approximateTotal = totalEstimates.computeIfAbsent(key, k -> productRepository.count(filter));
+        }
+        return new CursorPage<>(content, nextCursor, hasNext, approximateTotal);
+    }
+
+    @Override
+    public ProductFacetsDTO getProductFacets(String category, String colors, String sizes, Integer minPrice,
+            Integer maxPrice, Integer minDiscount) {
+        return facetEngine.facets(category, colors, sizes, minPrice, maxPrice, minDiscount);
+    }
+
+    private Specification<Product> productFilter(String category, String colors, String sizes, Integer minPrice,
+            Integer maxPrice, Integer minDiscount) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             if (category != null) {
                 Join<Object, Object> categoryJoin = root.join("category");
@@ -127,9 +278,6 @@ public class ProductServiceImpl implements ProductService {
             if (colors != null) {
                 predicates.add(criteriaBuilder.equal(root.get("color"), colors));
             }
-            if (sizes != null) {
-                predicates.add(criteriaBuilder.like(root.get("sizes"), "%" + sizes + "%"));
-            }
             if (minPrice != null) {
                 predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("sellingPrice"), minPrice));
             }
@@ -139,29 +287,70 @@ public class ProductServiceImpl implements ProductService {
             if (minDiscount != null) {
                 predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("discountPercentage"), minDiscount));
             }
-            if (sizes != null) {
-                predicates.add(criteriaBuilder.like(root.get("sizes"), "%" + sizes + "%"));
+            String size = ProductVariant.normalizeSize(sizes);
+            if (size != null) {
+                // EXISTS on the (size, active, product_id) index: exact size match, no row duplication
+                Subquery<Long> variant = query.subquery(Long.class);
+                Root<ProductVariant> v = variant.from(ProductVariant.class);
+                variant.select(v.get("id")).where(
+                        criteriaBuilder.equal(v.get("product"), root),
+                        criteriaBuilder.equal(v.get("size"), size),
+                        criteriaBuilder.isTrue(v.get("active")));
+                predicates.add(criteriaBuilder.exists(variant));
             }
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        });
-        Pageable pageable;
-        if (sort != null && !sort.isEmpty()) {
-            pageable = switch (sort) {
-                case "price_low" ->
-                    PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.by("sellingPrice").ascending());
-                case "price_high" ->
-                    PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.by("sellingPrice").descending());
-                default -> PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.unsorted());
-            };
+        };
+    }
+
+    // Seek predicate: rows strictly after the (seekField, id) or (id) position in the chosen order
+    private Specification<Product> afterCursor(Object[] position, String seekField, boolean descending) {
+        return (root, query, cb) -> {
+            Long lastId = (Long) position[position.length - 1];
+            if (seekField == null) {
+                return cb.greaterThan(root.get("id"), lastId);
+            }
+            Double lastValue = (Double) position[0];
+            if (descending) {
+                return cb.or(cb.lessThan(root.get(seekField), lastValue),
+                        cb.and(cb.equal(root.get(seekField), lastValue), cb.lessThan(root.get("id"), lastId)));
+            }
+            return cb.or(cb.greaterThan(root.get(seekField), lastValue),
+                    cb.and(cb.equal(root.get(seekField), lastValue), cb.greaterThan(root.get("id"), lastId)));
+        };
+    }
+
+    private String encodeCursor(ProductCardDTO last, String seekField) {
+        String raw;
+        if ("sellingPrice".equals(seekField)) {
+            raw = "p:" + (double) last.getSellingPrice() + ":" + last.getId();
+        } else if ("averageRating".equals(seekField)) {
+            raw = "r:" + last.getAverageRating() + ":" + last.getId();
         } else {
-            pageable = PageRequest.of(pageNumber != null ? pageNumber : 0, 10, Sort.unsorted());
+            raw = "i:" + last.getId();
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object[] decodeCursor(String cursor, String seekField) {
+        String tag = "sellingPrice".equals(seekField) ? "p" : "averageRating".equals(seekField) ? "r" : "i";
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (seekField != null && parts.length == 3 && parts[0].equals(tag)) {
+                return new Object[]{Double.valueOf(parts[1]), Long.valueOf(parts[2])};
+            }
+            if (seekField == null && parts.length == 2 && parts[0].equals(tag)) {
+                return new Object[]{Long.valueOf(parts[1])};
+            }
+        } catch (IllegalArgumentException ignored) {
+            // fall through, NumberFormatException is an IllegalArgumentException too
         }
-        return productRepository.findAll(spec, pageable);
+        throw new BadRequestException("Invalid or expired cursor");
     }
 
     @Override
-    public List<Product> getProductsBySellerId(Long sellerId) {
-        return productRepository.findBySellerId(sellerId);
+    public List<ProductCardDTO> getProductsBySellerId(Long sellerId) {
+        return productRepository.findCards((root, query, cb) -> cb.equal(root.get("seller").get("id"), sellerId),
+                Sort.by("id").descending(), -1);
     }
 
     @Override
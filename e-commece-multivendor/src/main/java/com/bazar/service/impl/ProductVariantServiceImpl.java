@@ -0,0 +1,127 @@
+package com.bazar.service.impl;
+
+import com.bazar.exceptions.ProductException;
+import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+import com.bazar.repository.ProductVariantRepository;
+import com.bazar.service.ProductVariantService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class ProductVariantServiceImpl implements ProductVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductVariantServiceImpl.class);
+
+    private final ProductVariantRepository productVariantRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${search.index.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public List<ProductVariant> syncVariants(Product product) {
+        Set<String> sizes = ProductVariant.parseSizes(product.getSizes());
+        if (sizes.isEmpty()) {
+            sizes = Collections.singleton(null);
+        }
+        Map<String, ProductVariant> existing = new HashMap<>();
+        for (ProductVariant variant : productVariantRepository.findByProductId(product.getId())) {
+            existing.put(variant.getSize(), variant);
+        }
+
+        List<ProductVariant> changed = new ArrayList<>();
+        for (String size : sizes) {
+            ProductVariant variant = existing.remove(size);
+            if (variant == null) {
+                variant = new ProductVariant();
+                variant.setProduct(product);
+                variant.setSize(size);
+                variant.setSku(product.getId() + "-" + (size != null ? size : "OS"));
+            }
+            variant.setColor(product.getColor());
+            variant.setActive(true);
+            changed.add(variant);
+        }
+        for (ProductVariant dropped : existing.values()) {
+            dropped.setActive(false);
+            changed.add(dropped);
+        }
+        productVariantRepository.saveAll(changed);
+        return changed.stream().filter(ProductVariant::isActive).toList();
+    }
+
+    @Override
+    public List<ProductVariant> getVariants(Long productId) {
+        return productVariantRepository.findByProductIdAndActiveTrue(productId);
+    }
+
+    @Override
+    public ProductVariant resolveVariant(Product product, String size) throws ProductException {
+        List<ProductVariant> variants = getVariants(product.getId());
+        if (variants.isEmpty()) {
+            // Not backfilled yet, keep the plain size string
+            return null;
+        }
+        if (variants.size() == 1 && variants.get(0).getSize() == null) {
+            return variants.get(0);
+        }
+        String normalized = ProductVariant.normalizeSize(size);
+        return variants.stream()
+                .filter(variant -> Objects.equals(variant.getSize(), normalized))
+                .findFirst()
+                .orElseThrow(() -> new ProductException(
+                        "Size " + size + " is not available for product " + product.getId()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        Thread backfill = new Thread(this::backfillVariants, "product-variant-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    @Override
+    public void backfillVariants() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            long lastId = 0L;
+            int products = 0;
+            while (true) {
+                long afterId = lastId;
+                List<Product> batch = tx.execute(status -> {
+                    List<Product> missing = productVariantRepository.findProductsWithoutVariants(afterId,
+                            PageRequest.of(0, batchSize));
+                    missing.forEach(this::syncVariants);
+                    return missing;
+                });
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                products += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            Integer cartItems = tx.execute(status -> productVariantRepository.linkCartItemsToVariants());
+            Integer orderItems = tx.execute(status -> productVariantRepository.linkOrderItemsToVariants());
+            if (products > 0 || (cartItems != null && cartItems > 0) || (orderItems != null && orderItems > 0)) {
+                logger.info("Variant backfill: {} products, {} cart items, {} order items linked",
+                        products, cartItems, orderItems);
+            }
+        } catch (Exception e) {
+            logger.error("Variant backfill failed, it will be retried on next startup", e);
+        }
+    }
+}
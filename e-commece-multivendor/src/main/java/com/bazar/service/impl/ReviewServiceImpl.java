@@ -1,24 +1,54 @@
 package com.bazar.service.impl;
 
+import com.bazar.exceptions.BadRequestException;
 import com.bazar.model.Product;
 import com.bazar.model.Review;
 import com.bazar.model.User;
+import com.bazar.repository.ProductRepository;
 import com.bazar.repository.ReviewRepository;
 import com.bazar.request.CreateReviewRequest;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ReviewDTO;
+import com.bazar.response.ReviewerSummaryDTO;
 import com.bazar.service.ReviewService;
+import com.bazar.storage.ImageStore;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 
 public class ReviewServiceImpl implements ReviewService {
+    private static final Logger logger = LoggerFactory.getLogger(ReviewServiceImpl.class);
+    private static final int MAX_FEED_PAGE_SIZE = 50;
+
     private final ReviewRepository reviewRepository;
+    private final ImageStore imageStore;
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
+    @Transactional
     public Review createReview(CreateReviewRequest req, User user, Product product) throws Exception {
         // Check if user has already reviewed this product
         Optional<Review> existingReview = reviewRepository.findByProduct_IdAndUser_Id(product.getId(), user.getId());
@@ -31,9 +61,10 @@ public class ReviewServiceImpl implements ReviewService {
         review.setProduct(product);
         review.setReviewText(req.getReviewText());
         review.setRating(req.getReviewRating());
-        review.setProductImages(req.getProductImages());
-        product.getReviews().add(review);
-        return reviewRepository.save(review);
+        review.setProductImages(imageStore.toReferences(req.getProductImages()));
+        Review saved = reviewRepository.save(review);
+        applyRating(product.getId(), 1, saved.getRating());
+        return saved;
     }
 
     @Override
@@ -42,31 +73,133 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewDTO> getReviewFeed(Long productId, String sort, List<Integer> stars, String cursor,
+            Integer pageSize) {
+        int size = pageSize != null ? Math.max(1, Math.min(pageSize, MAX_FEED_PAGE_SIZE)) : 10;
+        boolean byRating = "highest".equals(sort) || "lowest".equals(sort);
+        boolean descending = !"lowest".equals(sort);
+        boolean withImages = "with_images".equals(sort);
+
+        Specification<Review> spec = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("product").get("id"), productId));
+            if (stars != null && !stars.isEmpty()) {
+                List<Predicate> starMatches = new ArrayList<>();
+                for (Integer star : stars) {
+                    if (star != null && star >= 1 && star <= 5) {
+                        // Same buckets as the product star histogram
+                        starMatches.add(cb.and(
+                                cb.greaterThanOrEqualTo(root.get("rating"), star == 1 ? Double.NEGATIVE_INFINITY : star - 0.5),
+                                cb.lessThan(root.get("rating"), star == 5 ? Double.POSITIVE_INFINITY : star + 0.5)));
+                    }
+                }
+                if (!starMatches.isEmpty()) {
+                    predicates.add(cb.or(starMatches.toArray(new Predicate[0])));
+                }
+            }
+            if (withImages) {
+                predicates.add(cb.isNotEmpty(root.get("productImages")));
+            }
+            if (Review.class.equals(query.getResultType())) {
+                root.fetch("user", JoinType.LEFT);
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        String seekField = byRating ? "rating" : "createdAt";
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(afterReviewCursor(decodeReviewCursor(cursor, byRating), seekField, descending));
+        }
+        Sort order = descending
+                ? Sort.by(seekField).descending().and(Sort.by("id").descending())
+                : Sort.by(seekField).ascending().and(Sort.by("id").ascending());
+
+        // size + 1 rows: the extra one only says whether there is a next page
+        List<Review> rows = reviewRepository.findBy(spec, query -> query.sortBy(order).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Review> page = hasNext ? rows.subList(0, size) : rows;
+        List<ReviewDTO> content = page.stream().map(ReviewServiceImpl::toDto).collect(Collectors.toList());
+        String nextCursor = hasNext ? encodeReviewCursor(page.get(page.size() - 1), byRating) : null;
+        return new CursorPage<>(content, nextCursor, hasNext, null);
+    }
+
+    private static ReviewDTO toDto(Review review) {
+        User user = review.getUser();
+        ReviewerSummaryDTO reviewer = user != null ? new ReviewerSummaryDTO(user.getId(), user.getFullName()) : null;
+        List<String> images = review.getProductImages() != null ? new ArrayList<>(review.getProductImages())
+                : new ArrayList<>();
+        return new ReviewDTO(review.getId(), review.getReviewText(), review.getRating(), images,
+                review.getCreatedAt(), reviewer);
+    }
+
+    private static Specification<Review> afterReviewCursor(Object[] position, String seekField, boolean descending) {
+        return (root, query, cb) -> {
+            Long lastId = (Long) position[1];
+            if ("rating".equals(seekField)) {
+                Double last = (Double) position[0];
+                return descending
+                        ? cb.or(cb.lessThan(root.get("rating"), last),
+                                cb.and(cb.equal(root.get("rating"), last), cb.lessThan(root.get("id"), lastId)))
+                        : cb.or(cb.greaterThan(root.get("rating"), last),
+                                cb.and(cb.equal(root.get("rating"), last), cb.greaterThan(root.get("id"), lastId)));
+            }
+            LocalDateTime last = (LocalDateTime) position[0];
+            return cb.or(cb.lessThan(root.get("createdAt"), last),
+                    cb.and(cb.equal(root.get("createdAt"), last), cb.lessThan(root.get("id"), lastId)));
+        };
+    }
+
+    private static String encodeReviewCursor(Review last, boolean byRating) {
+        String raw = (byRating ? "r|" + last.getRating() : "t|" + last.getCreatedAt()) + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeReviewCursor(String cursor, boolean byRating) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 3 && parts[0].equals(byRating ? "r" : "t")) {
+                Object value = byRating ? Double.valueOf(parts[1]) : LocalDateTime.parse(parts[1]);
+                return new Object[]{value, Long.valueOf(parts[2])};
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ignored) {
+            // fall through to the error below
+        }
+        throw new BadRequestException("Invalid or expired cursor");
+    }
+
+    @Override
+    @Transactional
     public Review updateReview(Long reviewId, String reviewText, double reviewRating, List<String> productImages,
             Long userId) throws Exception {
         Review review = getReviewById(reviewId);
         if (review.getUser().getId().equals(userId)) {
+            double previousRating = review.getRating();
             review.setReviewText(reviewText);
             review.setRating(reviewRating);
             if (productImages != null) {
-                review.setProductImages(productImages);
+                review.setProductImages(imageStore.toReferences(productImages));
+            }
+            Review saved = reviewRepository.save(review);
+            if (previousRating != reviewRating && review.getProduct() != null) {
+                applyRating(review.getProduct().getId(), -1, previousRating);
+                applyRating(review.getProduct().getId(), 1, reviewRating);
             }
-            return reviewRepository.save(review);
+            return saved;
         }
         throw new Exception("You are not authorized to update this review");
     }
 
     @Override
+    @Transactional
     public void deleteReview(Long reviewId, Long userId) throws Exception {
         Review review = getReviewById(reviewId);
         if (!review.getUser().getId().equals(userId)) {
             throw new Exception("You are not authorized to delete this review");
         }
-        // Remove review from product's collection before deleting
+        reviewRepository.delete(review);
         if (review.getProduct() != null) {
-            review.getProduct().getReviews().remove(review);
+            applyRating(review.getProduct().getId(), -1, review.getRating());
         }
-        reviewRepository.delete(review);
     }
 
     @Override
@@ -78,4 +211,29 @@ public class ReviewServiceImpl implements ReviewService {
     public Review getUserReviewForProduct(Long productId, Long userId) {
         return reviewRepository.findByProduct_IdAndUser_Id(productId, userId).orElse(null);
     }
+
+    // Add (sign 1) or take back (sign -1) one rating in the product aggregates, as a single UPDATE
+    private void applyRating(Long productId, int sign, double rating) {
+        int star = rating < 1.5 ? 1 : rating < 2.5 ? 2 : rating < 3.5 ? 3 : rating < 4.5 ? 4 : 5;
+        productRepository.applyRatingDelta(productId, sign, sign * rating,
+                star == 1 ? sign : 0, star == 2 ? sign : 0, star == 3 ? sign : 0,
+                star == 4 ? sign : 0, star == 5 ? sign : 0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeStaleAggregatesOnStartup() {
+        Thread recompute = new Thread(() -> {
+            try {
+                Integer updated = new TransactionTemplate(transactionManager)
+                        .execute(status -> productRepository.recomputeStaleRatingAggregates());
+                if (updated != null && updated > 0) {
+                    logger.info("Recomputed rating aggregates for {} products", updated);
+                }
+            } catch (Exception e) {
+                logger.error("Rating aggregate recompute failed", e);
+            }
+        }, "rating-aggregate-recompute");
+        recompute.setDaemon(true);
+        recompute.start();
+    }
 }
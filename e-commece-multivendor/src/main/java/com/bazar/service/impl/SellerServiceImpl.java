@@ -1,12 +1,14 @@
 package com.bazar.service.impl;
 
+import com.bazar.analytics.AnalyticsRange;
+import com.bazar.analytics.SellerAnalytics;
 import com.bazar.config.JwtProvider;
+import com.bazar.config.PrincipalCache;
 import com.bazar.domain.AccountStatus;
 import com.bazar.domain.User_Role;
 import com.bazar.exceptions.SellerException;
 import com.bazar.model.Address;
 import com.bazar.model.Order;
-import com.bazar.model.OrderItem;
 import com.bazar.model.Seller;
 import com.bazar.repository.AddressRepository;
 import com.bazar.repository.OrderItemRepository;
@@ -21,7 +23,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,15 +30,21 @@ public class SellerServiceImpl implements SellerService {
 
     private final SellerRepository sellerRepository;
     private final JwtProvider jwtProvider;
+    private final PrincipalCache principalCache;
     private final PasswordEncoder passwordEncoder;
     private final AddressRepository addressRepository;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final SellerAnalytics sellerAnalytics;
 
     @Override
     public Seller getSellerProfile(String jwt) throws Exception {
         String email = jwtProvider.getEmailFromToken(jwt);
-        return this.getSellerByEmail(email);
+        Seller seller = principalCache.seller(email);
+        if (seller == null) {
+            throw new SellerException("Seller not found with email: " + email);
+        }
+        return seller;
     }
 
     @Override
@@ -116,13 +123,16 @@ public class SellerServiceImpl implements SellerService {
         if (seller.getGSTIN() != null) {
             existingSeller.setGSTIN(seller.getGSTIN());
         }
-        return sellerRepository.save(existingSeller);
+        Seller saved = sellerRepository.save(existingSeller);
+        principalCache.evictSeller(id);
+        return saved;
     }
 
     @Override
     public void deleteSeller(Long id) throws Exception {
         Seller seller = getSellerById(id);
         sellerRepository.delete(seller);
+        principalCache.evictSeller(id);
 
     }
 
@@ -131,63 +141,27 @@ public class SellerServiceImpl implements SellerService {
 
         Seller seller = getSellerByEmail(email);
         seller.setEmailVerified(true);
-        return sellerRepository.save(seller);
+        Seller saved = sellerRepository.save(seller);
+        principalCache.evictSeller(seller.getId());
+        return saved;
     }
 
     @Override
     public Seller updateSellerAccountStatus(Long id, AccountStatus status) throws Exception {
         Seller seller = getSellerById(id);
         seller.setAccountStatus(status);
-        return sellerRepository.save(seller);
-
+        Seller saved = sellerRepository.save(seller);
+        principalCache.evictSeller(id);
+        return saved;
     }
 
     @Override
-    public List<TopSellingProductDTO> getTopSellingProducts(Long sellerId, int limit) {
-        // Get all orders for this seller
-        List<Order> orders = orderRepository.findBySellerId(sellerId);
-
-        // Map to track product statistics
-        Map<Long, TopSellingProductDTO> productStatsMap = new HashMap<>();
-
-        for (Order order : orders) {
-            for (OrderItem item : order.getOrderItems()) {
-                Long productId = item.getProduct().getId();
-
-                if (!productStatsMap.containsKey(productId)) {
-                    TopSellingProductDTO dto = new TopSellingProductDTO();
-                    dto.setProductId(productId);
-                    dto.setProductName(item.getProduct().getTitle());
-                    dto.setProductImage(
-                            item.getProduct().getImages().isEmpty() ? null : item.getProduct().getImages().get(0));
-                    dto.setTotalSales(0L);
-                    dto.setRevenue(0L);
-                    dto.setOrderCount(0);
-                    productStatsMap.put(productId, dto);
-                }
-
-                TopSellingProductDTO dto = productStatsMap.get(productId);
-                dto.setTotalSales(dto.getTotalSales() + item.getQuantity());
-                dto.setRevenue(dto.getRevenue() + (item.getSellingPrice() * item.getQuantity()));
-                dto.setOrderCount(dto.getOrderCount() + 1);
-            }
-        }
-
-        // Sort by revenue and return top N
-        return productStatsMap.values().stream()
-                .sorted((a, b) -> Long.compare(b.getRevenue(), a.getRevenue()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    public List<TopSellingProductDTO> getTopSellingProducts(Long sellerId, int limit, AnalyticsRange range) {
+        return sellerAnalytics.topProducts(sellerId, range, limit);
     }
 
     @Override
     public List<Order> getRecentOrders(Long sellerId, int limit) {
-        List<Order> allOrders = orderRepository.findBySellerId(sellerId);
-
-        // Sort by order date descending and limit
-        return allOrders.stream()
-                .sorted((a, b) -> b.getOrderDate().compareTo(a.getOrderDate()))
-                .limit(limit)
-                .collect(Collectors.toList());
+        return orderRepository.findBySellerIdOrderByOrderDateDesc(sellerId, PageRequest.of(0, Math.max(1, limit)));
     }
 }
@@ -1,13 +1,13 @@
 package com.bazar.service.impl;
 
+import com.bazar.config.PrincipalCache;
 import com.bazar.domain.PlanType;
-import com.bazar.model.Product;
 import com.bazar.model.Seller;
 import com.bazar.model.SellerSubscription;
 import com.bazar.model.SubscriptionPlan;
-import com.bazar.repository.ProductRepository;
 import com.bazar.repository.SellerSubscriptionRepository;
 import com.bazar.repository.SubscriptionPlanRepository;
+import com.bazar.service.EntitlementService;
 import com.bazar.service.SubscriptionService;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -22,7 +22,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     private final SubscriptionPlanRepository planRepository;
     private final SellerSubscriptionRepository subscriptionRepository;
-    private final ProductRepository productRepository;
+    private final PrincipalCache principalCache;
+    private final EntitlementService entitlementService;
 
     @PostConstruct
     public void createDefaultPlans() {
@@ -88,24 +89,14 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         subscription.setPlanType(planType);
         subscription.setStartDate(LocalDate.now());
         subscription.setEndDate(LocalDate.now().plusMonths(1)); // Assuming monthly
-        return subscriptionRepository.save(subscription);
+        SellerSubscription saved = subscriptionRepository.save(subscription);
+        principalCache.evictSeller(seller.getId());
+        entitlementService.evict(seller.getId());
+        return saved;
     }
 
     @Override
     public boolean canAddProduct(Seller seller) {
-        SellerSubscription subscription = getSellerSubscription(seller);
-        if (subscription.getPlan().isUnlimited()) {
-            return true;
-        }
-
-        // Count existing products
-        // Assuming ProductRepository has a countBySeller method, if not we need to add
-        // it or use findAll
-        // For efficiency, countBySeller is better. Let's assume we might need to add
-        // it.
-        // Checking ProductRepository...
-        long productCount = productRepository.countBySellerId(seller.getId());
-
-        return productCount < subscription.getPlan().getMaxProducts();
+        return entitlementService.canAddProduct(seller);
     }
 }
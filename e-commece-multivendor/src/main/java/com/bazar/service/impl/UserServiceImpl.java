@@ -1,6 +1,7 @@
 package com.bazar.service.impl;
 
 import com.bazar.config.JwtProvider;
+import com.bazar.config.PrincipalCache;
 import com.bazar.model.User;
 import com.bazar.repository.UserRepository;
 import com.bazar.service.UserService;
@@ -12,11 +13,15 @@ import org.springframework.stereotype.Service;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final JwtProvider jwtProvider;
+    private final PrincipalCache principalCache;
     @Override
     public User findUserByJwtToken(String jwt) throws Exception {
         String email= jwtProvider.getEmailFromToken(jwt);
-        return this.findUserByEmail(email);
-
+        User user = principalCache.user(email);
+        if (user == null) {
+            throw new Exception("User not found with email: " + email);
+        }
+        return user;
     }
 
     @Override
@@ -0,0 +1,274 @@
+package com.bazar.storage;
+
+import com.bazar.exceptions.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image storage on the local filesystem. A blob lives at
+ * {@code <root>/ab/cd/<sha256>} and is written once; identical uploads share the file.
+ * Entities only keep the short reference {@code /images/<sha256>.<ext>}.
+ */
+@Component
+public class ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStore.class);
+
+    public static final String URL_PREFIX = "/images/";
+    public static final String THUMBNAIL_PREFIX = "/images/thumbs/";
+
+    private static final Pattern DATA_URL = Pattern.compile("^data:([\\w.+-]+/[\\w.+-]+)?(;[^,]*)?;base64,",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final long maxBytes;
+    private final long maxPixels;
+    private final int thumbnailSize;
+
+    public ImageStore(@Value("${images.storage.dir:data/images}") String root,
+                      @Value("${images.max-bytes:10485760}") long maxBytes,
+                      @Value("${images.max-pixels:25000000}") long maxPixels,
+                      @Value("${images.thumbnail-size:320}") int thumbnailSize) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.maxPixels = maxPixels;
+        this.thumbnailSize = thumbnailSize;
+    }
+
+    /**
+     * Store image bytes and generate the thumbnail, unless this content is already stored.
+     *
+     * @throws BadRequestException when the bytes are empty, too large, too many pixels or not an image
+     */
+    public StoredImage store(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            throw new BadRequestException("Image is empty");
+        }
+        if (data.length > maxBytes) {
+            throw new BadRequestException("Image is larger than " + maxBytes + " bytes");
+        }
+        ImageType type = ImageType.sniff(data);
+        if (type == null) {
+            throw new BadRequestException("Unsupported image type, expected JPEG, PNG, GIF or WebP");
+        }
+        // A few KB of PNG can declare an image that takes gigabytes to decode
+        if (pixelCount(data) > maxPixels) {
+            throw new BadRequestException("Image has more than " + maxPixels + " pixels");
+        }
+        String hash = sha256(data);
+        Path blob = blobPath(hash);
+        if (!Files.exists(blob)) {
+            writeAtomically(blob, data);
+        }
+        boolean hasThumbnail = Files.exists(thumbnailPath(hash)) || writeThumbnail(hash, data);
+        String url = URL_PREFIX + hash + "." + type.extension;
+        return new StoredImage(hash, type.contentType, data.length, url,
+                hasThumbnail ? THUMBNAIL_PREFIX + hash + ".jpg" : url);
+    }
+
+    /**
+     * Replace inline {@code data:image/...;base64,} values with store references. Other values
+     * (existing references, external URLs) are kept as they are.
+     */
+    public List<String> toReferences(List<String> images) {
+        if (images == null) {
+            return null;
+        }
+        List<String> references = new ArrayList<>(images.size());
+        for (String image : images) {
+            try {
+                references.add(isInline(image) ? store(decodeDataUrl(image)).url() : image);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store image", e);
+            }
+        }
+        return references;
+    }
+
+    public static boolean isInline(String image) {
+        return image != null && image.regionMatches(true, 0, "data:", 0, 5);
+    }
+
+    /**
+     * Path of the blob for a hash, empty when the hash is malformed or unknown.
+     */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path blob = blobPath(hash);
+        return Files.isRegularFile(blob) ? Optional.of(blob) : Optional.empty();
+    }
+
+    public Optional<Path> findThumbnail(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path thumbnail = thumbnailPath(hash);
+        return Files.isRegularFile(thumbnail) ? Optional.of(thumbnail) : Optional.empty();
+    }
+
+    private static byte[] decodeDataUrl(String dataUrl) {
+        Matcher matcher = DATA_URL.matcher(dataUrl);
+        if (!matcher.find()) {
+            throw new BadRequestException("Only base64 data URLs are supported for inline images");
+        }
+        try {
+            return Base64.getMimeDecoder().decode(dataUrl.substring(matcher.end()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Inline image is not valid base64");
+        }
+    }
+
+    // Width times height from the image header, without decoding any pixels; 0 when no reader knows the
+    // format (WebP) or the header is unreadable, as then nothing gets decoded either
+    private static long pixelCount(byte[] data) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                return 0;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return (long) reader.getWidth(0) * reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private boolean writeThumbnail(String hash, byte[] data) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(data));
+            if (source == null) {
+                // No ImageIO reader for this format (WebP): the original doubles as thumbnail
+                return false;
+            }
+            double scale = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = thumbnail.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.setColor(Color.WHITE); // JPEG has no alpha, flatten onto white
+                g.fillRect(0, 0, width, height);
+                g.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            Path target = thumbnailPath(hash);
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                ImageIO.write(thumbnail, "jpg", out);
+            }
+            moveIntoPlace(temp, target);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not create thumbnail for image {}", hash, e);
+            return false;
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] data) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        Files.write(temp, data);
+        moveIntoPlace(temp, target);
+    }
+
+    // Same content means same bytes, so losing a race to another writer is fine
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(temp);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path thumbnailPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".thumb.jpg");
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public enum ImageType {
+        JPEG("image/jpeg", "jpg"),
+        PNG("image/png", "png"),
+        GIF("image/gif", "gif"),
+        WEBP("image/webp", "webp");
+
+        public final String contentType;
+        public final String extension;
+
+        ImageType(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        static ImageType sniff(byte[] d) {
+            if (d.length >= 3 && (d[0] & 0xFF) == 0xFF && (d[1] & 0xFF) == 0xD8 && (d[2] & 0xFF) == 0xFF) {
+                return JPEG;
+            }
+            if (d.length >= 8 && (d[0] & 0xFF) == 0x89 && d[1] == 'P' && d[2] == 'N' && d[3] == 'G') {
+                return PNG;
+            }
+            if (d.length >= 6 && d[0] == 'G' && d[1] == 'I' && d[2] == 'F' && d[3] == '8') {
+                return GIF;
+            }
+            if (d.length >= 12 && d[0] == 'R' && d[1] == 'I' && d[2] == 'F' && d[3] == 'F'
+                    && d[8] == 'W' && d[9] == 'E' && d[10] == 'B' && d[11] == 'P') {
+                return WEBP;
+            }
+            return null;
+        }
+
+        public static ImageType fromExtension(String extension) {
+            for (ImageType type : values()) {
+                if (type.extension.equalsIgnoreCase(extension)
+                        || (type == JPEG && "jpeg".equalsIgnoreCase(extension))) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.bazar.storage;
+
+import com.bazar.model.Product;
+import com.bazar.model.Review;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves base64 images saved before the {@link ImageStore} existed out of the product and
+ * review rows. Runs once per startup in the background and is a no-op when nothing is left.
+ */
+@Component
+@RequiredArgsConstructor
+public class InlineImageMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(InlineImageMigration.class);
+    private static final int BATCH_SIZE = 50; // rows carry megabytes of base64 each
+
+    private final ProductRepository productRepository;
+    private final ReviewRepository reviewRepository;
+    private final ImageStore imageStore;
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        Thread migration = new Thread(this::migrate, "inline-image-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    public void migrate() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            int products = 0;
+            long lastId = 0L;
+            while (true) {
+                long afterId = lastId;
+                List<Product> batch = tx.execute(status -> {
+                    List<Product> found = productRepository.findWithInlineImages(afterId, PageRequest.of(0, BATCH_SIZE));
+                    found.forEach(product -> product.setImages(imageStore.toReferences(product.getImages())));
+                    return found;
+                });
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                products += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            int reviews = 0;
+            lastId = 0L;
+            while (true) {
+                long afterId = lastId;
+                List<Review> batch = tx.execute(status -> {
+                    List<Review> found = reviewRepository.findWithInlineImages(afterId, PageRequest.of(0, BATCH_SIZE));
+                    found.forEach(review -> review.setProductImages(imageStore.toReferences(review.getProductImages())));
+                    return found;
+                });
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                reviews += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            if (products > 0 || reviews > 0) {
+                logger.info("Moved inline images to the image store: {} products, {} reviews", products, reviews);
+            }
+        } catch (Exception e) {
+            logger.error("Inline image migration failed, it will be retried on next startup", e);
+        }
+    }
+}
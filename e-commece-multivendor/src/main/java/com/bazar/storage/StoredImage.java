@@ -0,0 +1,7 @@
+package com.bazar.storage;
+
+/**
+ * An image held by the {@link ImageStore}. {@code url} is the short reference entities keep.
+ */
+public record StoredImage(String sha256, String contentType, long size, String url, String thumbnailUrl) {
+}
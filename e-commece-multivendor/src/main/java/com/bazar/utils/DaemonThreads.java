@@ -0,0 +1,22 @@
+package com.bazar.utils;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factory for background pools: daemon threads named prefix-1, prefix-2, ...
+ */
+public final class DaemonThreads {
+
+    private DaemonThreads() {
+    }
+
+    public static ThreadFactory named(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package com.bazar.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small bounded cache whose entries expire after a fixed time-to-live.
+ * Meant for per-node caches of cheap-to-recompute values that sit on hot paths (token claims,
+ * principals, second-level cache regions), so reads and writes go to a {@link ConcurrentHashMap}
+ * without a shared lock.
+ * <p>
+ * The size bound is approximate: once a put takes the cache past its maximum, one thread sweeps it
+ * back to {@value #SWEEP_PERCENT}% of the maximum, dropping expired entries first and then the least
+ * recently read ones. Read times are recorded at {@value #ACCESS_RESOLUTION_MILLIS} ms resolution so a
+ * hot key is not rewritten on every hit.
+ */
+public class TtlCache<K, V> {
+
+    private static final int SWEEP_PERCENT = 90;
+    private static final long ACCESS_RESOLUTION_MILLIS = 100;
+    private static final long ACCESS_RESOLUTION_NANOS = ACCESS_RESOLUTION_MILLIS * 1_000_000;
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+        volatile long readAt;
+
+        Entry(V value, long expiresAt, long now) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.readAt = now;
+        }
+    }
+
+    private record Candidate<K, V>(K key, Entry<V> entry, long readAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock sweeping = new ReentrantLock();
+
+    public TtlCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (entry.expiresAt - now <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        if (now - entry.readAt > ACCESS_RESOLUTION_NANOS) {
+            entry.readAt = now;
+        }
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        store(key, value, ttlNanos);
+    }
+
+    /**
+     * Cache with a shorter time-to-live than the default, e.g. a value that carries its own expiry
+     */
+    public void put(K key, V value, Duration ttl) {
+        store(key, value, Math.min(ttlNanos, ttl.toNanos()));
+    }
+
+    /**
+     * Return the cached value, or compute and cache it. The loader runs outside the map,
+     * so concurrent misses on the same key may both compute.
+     */
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void store(K key, V value, long ttl) {
+        long now = System.nanoTime();
+        entries.put(key, new Entry<>(value, now + ttl, now));
+        // A put that finds a sweep running leaves it to the sweeper, which checks again after unlocking
+        while (entries.size() > maxSize && sweeping.tryLock()) {
+            try {
+                sweep(System.nanoTime());
+            } finally {
+                sweeping.unlock();
+            }
+        }
+    }
+
+    // Sweeping to below the maximum spreads the cost of the sort over the next puts
+    private void sweep(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt - now <= 0);
+        int excess = entries.size() - (int) ((long) maxSize * SWEEP_PERCENT / 100);
+        if (excess <= 0) {
+            return;
+        }
+        // Read times are copied first, a hit during the sort must not change the order. Relative to now,
+        // as nanoTime values only compare by their difference
+        List<Candidate<K, V>> oldest = new ArrayList<>(entries.size());
+        entries.forEach((key, entry) -> oldest.add(new Candidate<>(key, entry, entry.readAt - now)));
+        oldest.sort(Comparator.comparingLong(Candidate::readAt));
+        for (int i = 0; i < excess && i < oldest.size(); i++) {
+            Candidate<K, V> candidate = oldest.get(i);
+            entries.remove(candidate.key, candidate.entry);
+        }
+    }
+}
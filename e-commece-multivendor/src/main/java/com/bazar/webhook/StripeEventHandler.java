@@ -0,0 +1,144 @@
+package com.bazar.webhook;
+
+import com.bazar.analytics.OrderEventLog;
+import com.bazar.analytics.SellerAnalytics;
+import com.bazar.domain.OrderEventType;
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentOrderStatus;
+import com.bazar.domain.PaymentStatus;
+import com.bazar.domain.PlanType;
+import com.bazar.model.PayementOrder;
+import com.bazar.model.Seller;
+import com.bazar.repository.OrderRepository;
+import com.bazar.repository.PaymentOrderRepository;
+import com.bazar.repository.SellerRepository;
+import com.bazar.service.InventoryService;
+import com.bazar.service.SubscriptionService;
+import com.stripe.model.Event;
+import com.stripe.model.checkout.Session;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies a Stripe event to our data. Runs inside the transaction that marks the event processed,
+ * so an event is applied exactly once even when Stripe delivers it several times.
+ */
+@Component
+@RequiredArgsConstructor
+public class StripeEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeEventHandler.class);
+
+    private final PaymentOrderRepository paymentOrderRepository;
+    private final OrderRepository orderRepository;
+    private final SubscriptionService subscriptionService;
+    private final SellerRepository sellerRepository;
+    private final InventoryService inventoryService;
+    private final SellerAnalytics sellerAnalytics;
+    private final OrderEventLog orderEventLog;
+
+    public void handle(Event event) {
+        String type = event.getType();
+        if ("checkout.session.completed".equals(type)) {
+            Session session = session(event);
+            if (session != null) {
+                checkoutCompleted(session);
+            }
+        } else if ("checkout.session.expired".equals(type)) {
+            Session session = session(event);
+            if (session != null) {
+                checkoutExpired(session);
+            }
+        }
+    }
+
+    private void checkoutCompleted(Session session) {
+        Map<String, String> metadata = session.getMetadata();
+        String sellerId = metadata != null ? metadata.get("sellerId") : null;
+        String planName = metadata != null ? metadata.get("planName") : null;
+
+        // Subscription payment
+        if (sellerId != null && planName != null) {
+            try {
+                Seller seller = sellerRepository.findById(Long.valueOf(sellerId)).orElse(null);
+                if (seller != null) {
+                    PlanType planType = determinePlanType(planName);
+                    subscriptionService.upgradeSubscription(seller, planType);
+                    logger.info("Subscription upgraded for seller {} to plan {}", seller.getEmail(), planType);
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid sellerId in subscription metadata: {}", sellerId);
+            }
+            return;
+        }
+
+        // Product order payment; metadata carries our payment order id
+        String paymentIntentId = session.getPaymentIntent();
+        String orderIdStr = metadata != null ? metadata.get("orderId") : null;
+        PayementOrder order;
+        if (orderIdStr != null) {
+            try {
+                order = paymentOrderRepository.findById(Long.valueOf(orderIdStr)).orElse(null);
+            } catch (NumberFormatException e) {
+                return;
+            }
+            if (order != null) {
+                order.setPaymentId(paymentIntentId);
+                order.setPaymentLinkId(session.getId());
+            }
+        } else {
+            order = paymentOrderRepository.findByPaymentId(paymentIntentId);
+        }
+        if (order == null) {
+            return;
+        }
+        order.setPaymentStatus(true);
+        order.setStatus(PaymentOrderStatus.PAID);
+        paymentOrderRepository.save(order);
+
+        List<Long> orderIds = paymentOrderRepository.findOrderIds(order.getId());
+        if (!orderIds.isEmpty()) {
+            orderRepository.updatePayment(orderIds, PaymentStatus.COMPLETED, OrderStatus.CONFIRMED,
+                    order.getPaymentMethod().toString());
+            inventoryService.confirm(orderIds);
+            sellerAnalytics.record(orderIds, OrderStatus.CONFIRMED);
+            orderEventLog.publish(orderIds, OrderEventType.PAID);
+        }
+    }
+
+    // Abandoned product checkout: give the reserved stock back without waiting for the sweeper
+    private void checkoutExpired(Session session) {
+        String orderIdStr = session.getMetadata() != null ? session.getMetadata().get("orderId") : null;
+        if (orderIdStr == null) {
+            return;
+        }
+        try {
+            paymentOrderRepository.findById(Long.valueOf(orderIdStr))
+                    .filter(order -> order.getStatus() != PaymentOrderStatus.PAID)
+                    .ifPresent(order -> inventoryService.release(paymentOrderRepository.findOrderIds(order.getId())));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    private static Session session(Event event) {
+        return (Session) event.getDataObjectDeserializer().getObject().orElse(null);
+    }
+
+    private static PlanType determinePlanType(String planName) {
+        // Map plan names to PlanType enum
+        if (planName.toUpperCase().contains("BEGINNER") || planName.toUpperCase().contains("BASIC")) {
+            return PlanType.BEGINNER;
+        } else if (planName.toUpperCase().contains("INTERMEDIATE")) {
+            return PlanType.INTERMEDIATE;
+        } else if (planName.toUpperCase().contains("PRO") || planName.toUpperCase().contains("PROFESSIONAL")) {
+            return PlanType.PRO;
+        }
+        // Default to FREE if unknown
+        return PlanType.FREE;
+    }
+}
@@ -0,0 +1,214 @@
+package com.bazar.webhook;
+
+import com.bazar.domain.WebhookStatus;
+import com.bazar.model.WebhookEvent;
+import com.bazar.repository.WebhookEventRepository;
+import com.bazar.utils.DaemonThreads;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Stripe webhook ingestion. {@link #receive} stores the verified event under its Stripe id and
+ * returns, so the endpoint acks in one insert; a redelivered event hits the primary key and is
+ * dropped. A dispatcher claims stored events (SKIP LOCKED) and a worker pool applies each one
+ * through {@link StripeEventHandler} in the same transaction that marks it processed. Failures are
+ * retried with backoff and parked as FAILED after {@code stripe.webhook.max-attempts}.
+ */
+@Component
+public class WebhookInbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInbox.class);
+
+    private static final List<WebhookStatus> DUE = List.of(WebhookStatus.RECEIVED, WebhookStatus.PROCESSING);
+
+    private static final String INSERT = "INSERT INTO webhook_event "
+            + "(id, type, payload, status, attempts, next_attempt_at, received_at) VALUES (?, ?, ?, ?, 0, ?, ?)";
+
+    private final WebhookEventRepository repository;
+    private final StripeEventHandler handler;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final Duration retention;
+    private final ThreadPoolExecutor dispatcher;
+    private final ThreadPoolExecutor workers;
+
+    public WebhookInbox(WebhookEventRepository repository, StripeEventHandler handler, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${stripe.webhook.workers:4}") int workerThreads,
+            @Value("${stripe.webhook.batch-size:100}") int batchSize,
+            @Value("${stripe.webhook.max-attempts:10}") int maxAttempts,
+            @Value("${stripe.webhook.initial-backoff:10s}") Duration initialBackoff,
+            @Value("${stripe.webhook.max-backoff:30m}") Duration maxBackoff,
+            @Value("${stripe.webhook.claim-timeout:5m}") Duration claimTimeout,
+            @Value("${stripe.webhook.retention:30d}") Duration retention) {
+        this.repository = repository;
+        this.handler = handler;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+        this.retention = retention;
+        // One running drain plus at most one queued wake-up; further wake-ups are already covered
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                DaemonThreads.named("webhook-dispatcher"), new ThreadPoolExecutor.DiscardPolicy());
+        // A full queue makes the dispatcher apply the event itself, which throttles claiming
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerThreads * 4), DaemonThreads.named("webhook-worker"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Store a verified event for processing; false when it was already received
+     */
+    public boolean receive(String eventId, String type, String payload) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.update(INSERT, eventId, type, payload, WebhookStatus.RECEIVED.name(), now, now);
+        } catch (DuplicateKeyException e) {
+            logger.debug("Stripe event {} already received", eventId);
+            return false;
+        }
+        wake();
+        return true;
+    }
+
+    public void wake() {
+        dispatcher.execute(this::drain);
+    }
+
+    // Retries, events stored by other nodes and anything a lost wake-up left behind
+    @Scheduled(fixedDelayString = "${stripe.webhook.poll-interval:PT10S}")
+    public void poll() {
+        wake();
+    }
+
+    // Processed events only need to outlive Stripe's redelivery window (3 days) to catch duplicates
+    @Scheduled(cron = "${stripe.webhook.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        try {
+            Integer purged = tx.execute(status -> repository.deleteProcessedBefore(WebhookStatus.PROCESSED,
+                    LocalDateTime.now().minus(retention)));
+            if (purged != null && purged > 0) {
+                logger.info("Purged {} processed Stripe events", purged);
+            }
+        } catch (Exception e) {
+            logger.error("Stripe event purge failed", e);
+        }
+    }
+
+    /**
+     * Apply everything that is due, batch by batch; runs on the dispatcher thread
+     */
+    void drain() {
+        try {
+            while (true) {
+                List<String> claimed = claim();
+                if (claimed == null || claimed.isEmpty()) {
+                    return;
+                }
+                List<Future<?>> running = new ArrayList<>(claimed.size());
+                for (String eventId : claimed) {
+                    running.add(workers.submit(() -> process(eventId)));
+                }
+                for (Future<?> event : running) {
+                    try {
+                        event.get();
+                    } catch (ExecutionException e) {
+                        // process() records its own failures; the claim timeout retries anything else
+                        logger.error("Stripe event worker failed", e.getCause());
+                    }
+                }
+                if (claimed.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Stripe event dispatch failed, the inbox is retried on the next poll", e);
+        }
+    }
+
+    private List<String> claim() {
+        return tx.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<WebhookEvent> due = repository.lockDue(DUE, now, PageRequest.of(0, batchSize));
+            for (WebhookEvent event : due) {
+                // Counted up front, so an event that keeps crashing its worker still ends up parked
+                event.setStatus(WebhookStatus.PROCESSING);
+                event.setAttempts(event.getAttempts() + 1);
+                event.setNextAttemptAt(now.plus(claimTimeout));
+            }
+            return due.stream().map(WebhookEvent::getId).toList();
+        });
+    }
+
+    private void process(String eventId) {
+        try {
+            tx.executeWithoutResult(status -> {
+                WebhookEvent stored = repository.findById(eventId).orElse(null);
+                if (stored == null || stored.getStatus() != WebhookStatus.PROCESSING) {
+                    return;
+                }
+                handler.handle(ApiResource.GSON.fromJson(stored.getPayload(), Event.class));
+                stored.setStatus(WebhookStatus.PROCESSED);
+                stored.setProcessedAt(LocalDateTime.now());
+                stored.setLastError(null);
+            });
+        } catch (Exception e) {
+            recordFailure(eventId, e);
+        }
+    }
+
+    private void recordFailure(String eventId, Exception failure) {
+        tx.executeWithoutResult(status -> repository.findById(eventId).ifPresent(event -> {
+            String message = String.valueOf(failure.getMessage());
+            event.setLastError(message.length() <= 1000 ? message : message.substring(0, 1000));
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(WebhookStatus.FAILED);
+                logger.error("Stripe event {} ({}) parked after {} attempts", eventId, event.getType(),
+                        event.getAttempts(), failure);
+            } else {
+                event.setStatus(WebhookStatus.RECEIVED);
+                event.setNextAttemptAt(LocalDateTime.now().plus(backoff(event.getAttempts())));
+                logger.warn("Stripe event {} ({}) failed (attempt {}), retrying at {}: {}", eventId,
+                        event.getType(), event.getAttempts(), event.getNextAttemptAt(), failure.getMessage());
+            }
+        }));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        workers.shutdown();
+    }
+}
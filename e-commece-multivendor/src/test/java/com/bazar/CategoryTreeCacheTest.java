@@ -0,0 +1,106 @@
+package com.bazar;
+
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.CategoryTreeSnapshot;
+import com.bazar.controller.CategoryController;
+import com.bazar.model.Category;
+import com.bazar.response.CategoryTreeDTO;
+import com.bazar.service.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The category tree is loaded once with precomputed paths until a change invalidates it, its ETag follows
+ * the rows, and a request that already holds the current tree gets a 304.
+ */
+@H2DataJpaTest
+@Import(CategoryTreeCache.class)
+class CategoryTreeCacheTest {
+
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void snapshotIsCachedUntilInvalidated() {
+        Category men = category("men", "Men", 1, null);
+        Category topwear = category("men_topwear", "Topwear", 2, men);
+        Category tees = category("men_tees", "Tees", 3, topwear);
+        entityManager.flush();
+
+        CategoryTreeSnapshot snapshot = categoryTreeCache.get();
+        assertSame(snapshot, categoryTreeCache.get());
+        assertEquals("Men > Topwear > Tees", snapshot.getPath(tees.getId()));
+        assertArrayEquals(new long[]{ men.getId(), topwear.getId() }, snapshot.getNode(tees.getId()).ancestorIds());
+        CategoryTreeDTO root = snapshot.getTree().stream()
+                .filter(dto -> dto.getId().equals(men.getId())).findFirst().orElseThrow();
+        assertEquals("Tees", root.getChildren().get(0).getChildren().get(0).getName());
+
+        // Without an invalidation the cached tree is served
+        category("men_shirts", "Shirts", 3, topwear);
+        entityManager.flush();
+        assertSame(snapshot, categoryTreeCache.get());
+
+        categoryTreeCache.invalidate();
+        CategoryTreeSnapshot changed = categoryTreeCache.get();
+        assertNotSame(snapshot, changed);
+        assertNotEquals(snapshot.getEtag(), changed.getEtag());
+        assertEquals(snapshot.size() + 1, changed.size());
+
+        // A reload of the same rows gives the same ETag, so clients keep their copy across invalidations
+        categoryTreeCache.invalidate();
+        assertEquals(changed.getEtag(), categoryTreeCache.get().getEtag());
+    }
+
+    @Test
+    void treeRequestWithCurrentEtagIsNotModified() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.of(List.of(
+                new CategoryTreeSnapshot.Row(1L, "women", "Women", null, 1, null)));
+        CategoryService categoryService = mock(CategoryService.class);
+        when(categoryService.getCategoryTreeSnapshot()).thenReturn(snapshot);
+        CategoryController controller = new CategoryController(categoryService);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        ResponseEntity<List<CategoryTreeDTO>> full = controller.getCategoryTree(
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/categories/tree"), first));
+        assertEquals(HttpStatus.OK, full.getStatusCode());
+        assertEquals(snapshot.getEtag(), full.getHeaders().getETag());
+        assertEquals("no-cache", full.getHeaders().getCacheControl());
+        assertEquals("Women", full.getBody().get(0).getName());
+
+        MockHttpServletRequest revalidate = new MockHttpServletRequest("GET", "/categories/tree");
+        revalidate.addHeader("If-None-Match", snapshot.getEtag());
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertNull(controller.getCategoryTree(new ServletWebRequest(revalidate, notModified)));
+        assertEquals(304, notModified.getStatus());
+
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/categories/tree");
+        stale.addHeader("If-None-Match", "\"outdated\"");
+        assertEquals(HttpStatus.OK, controller.getCategoryTree(
+                new ServletWebRequest(stale, new MockHttpServletResponse())).getStatusCode());
+    }
+
+    private Category category(String categoryId, String name, int level, Category parent) {
+        Category category = new Category();
+        category.setCategoryId(categoryId);
+        category.setName(name);
+        category.setLevel(level);
+        category.setParentCategory(parent);
+        return entityManager.persist(category);
+    }
+}
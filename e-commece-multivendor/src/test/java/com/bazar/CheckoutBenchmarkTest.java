@@ -0,0 +1,114 @@
+package com.bazar;
+
+import com.bazar.analytics.OrderEventLog;
+import com.bazar.analytics.SellerAnalytics;
+import com.bazar.analytics.SellerReportProjector;
+import com.bazar.config.PrincipalCache;
+import com.bazar.model.*;
+import com.bazar.service.impl.InventoryServiceImpl;
+import com.bazar.service.impl.OrderServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statement count and latency of a checkout for 1, 10 and 100 item carts, against the embedded database.
+ * Opt-in: {@code mvn test -Dtest=CheckoutBenchmarkTest -Dbenchmarks=true}
+ */
+@H2DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ OrderServiceImpl.class, InventoryServiceImpl.class, PrincipalCache.class, SellerAnalytics.class,
+        OrderEventLog.class, SellerReportProjector.class })
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CheckoutBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutBenchmarkTest.class);
+
+    private static final int SELLERS = 3;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void checkoutStatementsAndLatency() {
+        User user = new User();
+        user.setEmail("bench@bazar.test");
+        entityManager.persist(user);
+        Product[] products = new Product[SELLERS];
+        for (int i = 0; i < SELLERS; i++) {
+            Seller seller = new Seller();
+            seller.setEmail("seller" + i + "@bazar.test");
+            entityManager.persist(seller);
+            Product product = new Product();
+            product.setTitle("Bench product " + i);
+            product.setSeller(seller);
+            product.setQuantity(1_000_000);
+            product.setTrackInventory(true);
+            entityManager.persist(product);
+            products[i] = product;
+        }
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        for (int cartSize : new int[] { 1, 10, 100 }) {
+            Cart cart = cartOf(user, products, cartSize);
+            // Warm up the sequence pools and statement caches
+            checkout(user, cart);
+
+            statistics.clear();
+            long start = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                Set<Order> orders = checkout(user, cart);
+                assertEquals(cartSize, orders.stream().mapToInt(order -> order.getOrderItems().size()).sum());
+            }
+            long micros = (System.nanoTime() - start) / 1_000 / ROUNDS;
+            logger.info(String.format("checkout items=%3d  statements=%5.1f  inserts=%5.1f  latency=%6d us",
+                    cartSize,
+                    statistics.getPrepareStatementCount() / (double) ROUNDS,
+                    statistics.getEntityInsertCount() / (double) ROUNDS,
+                    micros));
+        }
+    }
+
+    private Set<Order> checkout(User user, Cart cart) {
+        Address address = new Address();
+        address.setCity("Bench");
+        Set<Order> orders = orderService.createOrder(user, address, cart);
+        entityManager.flush();
+        return orders;
+    }
+
+    private static Cart cartOf(User user, Product[] products, int size) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (int i = 0; i < size; i++) {
+            CartItem item = new CartItem();
+            // Cart items compare by id; these are never persisted, they only feed createOrder
+            item.setId((long) i + 1);
+            item.setCart(cart);
+            item.setProduct(products[i % products.length]);
+            item.setQuantity(1);
+            item.setMrpPrice(1200);
+            item.setSellingPrice(999);
+            item.setUserId(user.getId());
+            cart.getCartItems().add(item);
+        }
+        return cart;
+    }
+}
@@ -0,0 +1,150 @@
+package com.bazar;
+
+import com.bazar.domain.OrderStatus;
+import com.bazar.export.DataExporter;
+import com.bazar.export.ExportFormat;
+import com.bazar.model.*;
+import com.bazar.utils.CsvReader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports stream a seller's orders and transactions in the date range as CSV or NDJSON, optionally gzipped.
+ */
+@H2DataJpaTest(properties = {
+        "exports.fetch-size=2"
+})
+@AutoConfigureJson
+@Import(DataExporter.class)
+class DataExportTest {
+
+    @Autowired
+    private DataExporter dataExporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void sellerOrdersAsCsvInRange() throws Exception {
+        Seller seller = entityManager.persist(Fixtures.seller());
+        Seller other = entityManager.persist(Fixtures.seller());
+        User customer = customer();
+        LocalDate today = LocalDate.now();
+        Order first = order(seller, customer, today.minusDays(3), "Pune, \"West\"");
+        Order second = order(seller, customer, today, "Mumbai");
+        order(seller, customer, today.minusDays(30), "Delhi");
+        order(other, customer, today, "Goa");
+
+        String csv = write(dataExporter.orders(seller.getId(), today.minusDays(7), today, ExportFormat.CSV, false),
+                false);
+        List<List<String>> records = records(csv);
+        assertEquals("id", records.get(0).get(0));
+        assertEquals(3, records.size());
+        assertEquals(String.valueOf(first.getId()), records.get(1).get(0));
+        assertEquals(String.valueOf(second.getId()), records.get(2).get(0));
+        int city = records.get(0).indexOf("city");
+        assertEquals("Pune, \"West\"", records.get(1).get(city));
+        assertEquals("buyer@bazar.test", records.get(1).get(records.get(0).indexOf("customerEmail")));
+        assertEquals("CONFIRMED", records.get(1).get(records.get(0).indexOf("orderStatus")));
+
+        // All sellers, no range, gzipped
+        String all = write(dataExporter.orders(null, null, null, ExportFormat.CSV, true), true);
+        assertEquals(5, records(all).size());
+    }
+
+    @Test
+    void transactionsAsNdjson() throws Exception {
+        Seller seller = entityManager.persist(Fixtures.seller());
+        User customer = customer();
+        Order order = order(seller, customer, LocalDate.now(), "Pune");
+        Transaction transaction = new Transaction();
+        transaction.setSeller(seller);
+        transaction.setCustomer(customer);
+        transaction.setOrder(order);
+        entityManager.persist(transaction);
+        entityManager.flush();
+
+        String ndjson = write(dataExporter.transactions(seller.getId(), null, null, ExportFormat.NDJSON, false),
+                false);
+        String[] lines = ndjson.split("\n");
+        assertEquals(1, lines.length);
+        JsonNode row = objectMapper.readTree(lines[0]);
+        assertEquals(transaction.getId().longValue(), row.get("id").asLong());
+        assertEquals(order.getId().longValue(), row.get("orderId").asLong());
+        assertEquals(500, row.get("amount").asInt());
+        assertEquals("buyer@bazar.test", row.get("customerEmail").asText());
+        assertEquals("PENDING", row.get("paymentStatus").asText());
+
+        assertTrue(write(dataExporter.transactions(seller.getId(), LocalDate.now().plusDays(1), null,
+                ExportFormat.NDJSON, false), false).isEmpty());
+    }
+
+    private static String write(StreamingResponseBody body, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        byte[] bytes = out.toByteArray();
+        if (gzip) {
+            bytes = new GZIPInputStream(new ByteArrayInputStream(bytes)).readAllBytes();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<List<String>> records(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            for (List<String> record = reader.next(); record != null; record = reader.next()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private User customer() {
+        User user = entityManager.getEntityManager()
+                .createQuery("SELECT u FROM User u WHERE u.email = 'buyer@bazar.test'", User.class)
+                .getResultStream().findFirst().orElse(null);
+        if (user == null) {
+            user = new User();
+            user.setEmail("buyer@bazar.test");
+            user = entityManager.persist(user);
+        }
+        return user;
+    }
+
+    private Order order(Seller seller, User customer, LocalDate placed, String city) {
+        Address address = new Address();
+        address.setCity(city);
+        entityManager.persist(address);
+        Order order = new Order();
+        order.setSellerId(seller.getId());
+        order.setUser(customer);
+        order.setShippingAddress(address);
+        order.setOrderDate(placed.atTime(10, 0));
+        order.setOrderStatus(OrderStatus.CONFIRMED);
+        order.setTotalSellingPrice(500);
+        entityManager.persist(order);
+        entityManager.flush();
+        return order;
+    }
+}
@@ -0,0 +1,134 @@
+package com.bazar;
+
+import com.bazar.domain.PlanType;
+import com.bazar.exceptions.ProductLimitException;
+import com.bazar.model.Product;
+import com.bazar.model.Seller;
+import com.bazar.model.SellerSubscription;
+import com.bazar.model.SubscriptionPlan;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.SellerSubscriptionRepository;
+import com.bazar.repository.SubscriptionPlanRepository;
+import com.bazar.service.impl.EntitlementServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Product quotas come from the plan limit and a cached product count that follows creations.
+ */
+@H2DataJpaTest
+@Import(EntitlementServiceImpl.class)
+class EntitlementServiceTest {
+
+    @Autowired
+    private EntitlementServiceImpl entitlementService;
+
+    @Autowired
+    private SubscriptionPlanRepository planRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void sellerWithoutSubscriptionGetsFreePlanLimit() {
+        plan(PlanType.FREE, 2);
+        Seller seller = entityManager.persist(Fixtures.seller());
+        product(seller);
+
+        entitlementService.reserveProducts(seller, 1);
+        assertFalse(entitlementService.canAddProduct(seller));
+        assertThrows(ProductLimitException.class, () -> entitlementService.reserveProducts(seller, 1));
+    }
+
+    @Test
+    void planChangeTakesEffectOnEviction() {
+        SubscriptionPlan free = plan(PlanType.FREE, 2);
+        SubscriptionPlan pro = plan(PlanType.PRO, null);
+        Seller seller = entityManager.persist(Fixtures.seller());
+        SellerSubscription subscription = entityManager.persist(SellerSubscription.builder()
+                .seller(seller).plan(free).planType(PlanType.FREE)
+                .startDate(LocalDate.now()).endDate(LocalDate.now().plusYears(100)).build());
+        entitlementService.reserveProducts(seller, 2);
+        assertThrows(ProductLimitException.class, () -> entitlementService.reserveProducts(seller, 1));
+
+        subscription.setPlan(pro);
+        subscription.setPlanType(PlanType.PRO);
+        entityManager.flush();
+        entitlementService.evict(seller.getId());
+        entitlementService.reserveProducts(seller, 50);
+        assertTrue(entitlementService.canAddProduct(seller));
+    }
+
+    @Test
+    void sellersLoadTheirQuotasInParallel() throws Exception {
+        SellerSubscriptionRepository subscriptions = mock(SellerSubscriptionRepository.class);
+        SubscriptionPlanRepository plans = mock(SubscriptionPlanRepository.class);
+        when(plans.findByPlanType(PlanType.FREE)).thenReturn(Optional.of(
+                SubscriptionPlan.builder().planType(PlanType.FREE).maxProducts(3).build()));
+        CountDownLatch bothLoading = new CountDownLatch(2);
+        when(subscriptions.findBySeller(any())).thenAnswer(invocation -> {
+            bothLoading.countDown();
+            // A lock shared by all sellers keeps the second load out until this one is done
+            assertTrue(bothLoading.await(5, TimeUnit.SECONDS), "quota loads are serialized across sellers");
+            return Optional.empty();
+        });
+        EntitlementServiceImpl service = new EntitlementServiceImpl(subscriptions, plans,
+                mock(ProductRepository.class), 100, Duration.ofMinutes(5));
+        Seller first = new Seller();
+        first.setId(1L);
+        Seller second = new Seller();
+        second.setId(2L);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> reservations = new ArrayList<>();
+            for (Seller seller : List.of(first, first, second, second)) {
+                reservations.add(pool.submit(() -> service.reserveProducts(seller, 1)));
+            }
+            for (Future<?> reservation : reservations) {
+                reservation.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        // One load per seller, and both creations of a seller counted on the same quota
+        verify(subscriptions, times(2)).findBySeller(any());
+        service.reserveProducts(first, 1);
+        assertThrows(ProductLimitException.class, () -> service.reserveProducts(first, 1));
+        service.reserveProducts(second, 1);
+        assertFalse(service.canAddProduct(second));
+    }
+
+    private SubscriptionPlan plan(PlanType type, Integer maxProducts) {
+        return planRepository.findByPlanType(type).orElseGet(() -> entityManager.persist(
+                SubscriptionPlan.builder().planType(type).name(type.name()).maxProducts(maxProducts).build()));
+    }
+
+    private void product(Seller seller) {
+        Product product = new Product();
+        product.setTitle("Existing");
+        product.setSeller(seller);
+        entityManager.persist(product);
+        entityManager.flush();
+    }
+}
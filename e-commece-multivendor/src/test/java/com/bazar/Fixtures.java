@@ -0,0 +1,25 @@
+package com.bazar;
+
+import com.bazar.model.Seller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entities the database tests share, left unsaved so each test persists them the way it works.
+ */
+final class Fixtures {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private Fixtures() {
+    }
+
+    /**
+     * Seller with an email no other fixture uses
+     */
+    static Seller seller() {
+        Seller seller = new Seller();
+        seller.setEmail("seller" + SEQUENCE.incrementAndGet() + "@bazar.test");
+        return seller;
+    }
+}
@@ -0,0 +1,75 @@
+package com.bazar;
+
+import com.bazar.catalog.HomePageCache;
+import com.bazar.catalog.HomePageSnapshot;
+import com.bazar.domain.HomeCategorySection;
+import com.bazar.model.Deal;
+import com.bazar.model.HomeCategory;
+import com.bazar.service.impl.DealServiceImpl;
+import com.bazar.service.impl.HomeCategoryServiceImpl;
+import com.bazar.service.impl.HomeServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The home page is built once, served as precompressed bytes and rebuilt when a deal changes.
+ */
+@H2DataJpaTest
+@AutoConfigureJson
+@Import({ HomePageCache.class, HomeServiceImpl.class, HomeCategoryServiceImpl.class, DealServiceImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HomePageCacheTest {
+
+    @Autowired
+    private HomePageCache homePageCache;
+
+    @Autowired
+    private HomeCategoryServiceImpl homeCategoryService;
+
+    @Autowired
+    private DealServiceImpl dealService;
+
+    @Test
+    void snapshotFollowsDealChanges() throws Exception {
+        homeCategoryService.createHomeCategories(List.of(
+                category("Phones", HomeCategorySection.ELECTRIC_CATEGORIES),
+                category("Shoes", HomeCategorySection.GRID),
+                category("Watches", HomeCategorySection.DEALS)));
+
+        HomePageSnapshot first = homePageCache.get();
+        assertFalse(first.isEmpty());
+        assertSame(first, homePageCache.get());
+        assertEquals(1, first.getHome().getGridCategories().size());
+        assertEquals(1, first.getHome().getDeals().size());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.getGzip()))) {
+            assertArrayEquals(first.getJson(), in.readAllBytes());
+        }
+
+        Deal deal = first.getHome().getDeals().get(0);
+        Deal change = new Deal(null, 35, deal.getCategory());
+        dealService.updateDeal(change, deal.getId());
+
+        HomePageSnapshot second = homePageCache.get();
+        assertNotSame(first, second);
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertEquals(35, second.getHome().getDeals().get(0).getDiscount());
+    }
+
+    private static HomeCategory category(String name, HomeCategorySection section) {
+        HomeCategory category = new HomeCategory();
+        category.setName(name);
+        category.setCategoryId(name.toLowerCase());
+        category.setSection(section);
+        return category;
+    }
+}
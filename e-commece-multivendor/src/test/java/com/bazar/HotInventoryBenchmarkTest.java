@@ -0,0 +1,72 @@
+package com.bazar;
+
+import com.bazar.inventory.StripedStock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reservations per second against one hot product, striped counter vs a single CAS cell.
+ * Opt-in: {@code mvn test -Dtest=HotInventoryBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class HotInventoryBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotInventoryBenchmarkTest.class);
+
+    private static final long STOCK = 20_000_000L;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void reservationsPerSecond() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : new int[] { 1, cores, cores * 4 }) {
+            for (int stripes : new int[] { 1, cores }) {
+                double best = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    best = Math.max(best, run(threads, stripes));
+                }
+                logger.info(String.format("threads=%3d  stripes=%3d  %8.2f M reservations/s", threads, stripes, best / 1e6));
+            }
+        }
+    }
+
+    private static double run(int threads, int stripes) throws Exception {
+        StripedStock stock = new StripedStock(STOCK, stripes);
+        AtomicLong taken = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                long count = 0;
+                while (stock.tryTake(1)) {
+                    count++;
+                }
+                taken.addAndGet(count);
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        // Every unit sold exactly once
+        assertEquals(STOCK, taken.get());
+        assertEquals(0, stock.available());
+        return taken.get() * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bazar;
+
+import com.bazar.controller.ImageController;
+import com.bazar.storage.ImageStore;
+import com.bazar.storage.StoredImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stored images are served with a fixed ETag and cached forever: a matching If-None-Match is a 304, a single
+ * byte range is a 206, a range past the end is a 416, and anything else gets the whole file.
+ */
+class ImageControllerTest {
+
+    @TempDir
+    Path root;
+
+    private ImageController controller;
+    private byte[] png;
+    private StoredImage image;
+    private String name;
+    private String etag;
+
+    @BeforeEach
+    void store() throws Exception {
+        ImageStore store = new ImageStore(root.toString(), 1_000_000, 1_000_000, 32);
+        controller = new ImageController(store);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB), "png", out);
+        png = out.toByteArray();
+        image = store.store(png);
+        name = image.sha256() + ".png";
+        etag = "\"" + image.sha256() + "\"";
+    }
+
+    @Test
+    void wholeImageIsCachedForeverAndRevalidatedByEtag() throws Exception {
+        MockHttpServletResponse full = get(request());
+        assertEquals(200, full.getStatus());
+        assertArrayEquals(png, full.getContentAsByteArray());
+        assertEquals("image/png", full.getContentType());
+        assertEquals(png.length, full.getContentLengthLong());
+        assertEquals(etag, full.getHeader("ETag"));
+        assertEquals("public, max-age=31536000, immutable", full.getHeader("Cache-Control"));
+        assertEquals("bytes", full.getHeader("Accept-Ranges"));
+
+        for (String ifNoneMatch : new String[]{ etag, "W/" + etag, "\"other\", " + etag, "*" }) {
+            MockHttpServletRequest revalidate = request();
+            revalidate.addHeader("If-None-Match", ifNoneMatch);
+            MockHttpServletResponse notModified = get(revalidate);
+            assertEquals(304, notModified.getStatus(), ifNoneMatch);
+            assertEquals(0, notModified.getContentAsByteArray().length);
+            assertEquals(etag, notModified.getHeader("ETag"));
+        }
+        MockHttpServletRequest stale = request();
+        stale.addHeader("If-None-Match", "\"other\"");
+        assertEquals(200, get(stale).getStatus());
+
+        MockHttpServletRequest head = request();
+        head.setMethod("HEAD");
+        MockHttpServletResponse headers = get(head);
+        assertEquals(png.length, headers.getContentLengthLong());
+        assertEquals(0, headers.getContentAsByteArray().length);
+
+        MockHttpServletResponse thumbnail = new MockHttpServletResponse();
+        controller.getThumbnail(image.sha256() + ".jpg", request(), thumbnail);
+        assertEquals("image/jpeg", thumbnail.getContentType());
+        assertEquals("\"" + image.sha256() + "-thumb\"", thumbnail.getHeader("ETag"));
+
+        MockHttpServletResponse missing = new MockHttpServletResponse();
+        controller.getImage("0".repeat(64) + ".png", request(), missing);
+        assertEquals(404, missing.getStatus());
+    }
+
+    @Test
+    void singleRangesArePartialContent() throws Exception {
+        int length = png.length;
+        assertPartial("bytes=10-19", 10, 19);
+        assertPartial("bytes=" + (length - 5) + "-", length - 5, length - 1);
+        assertPartial("bytes=-5", length - 5, length - 1);
+        // An end past the file is cut to the last byte
+        assertPartial("bytes=0-" + (length + 100), 0, length - 1);
+
+        MockHttpServletRequest matching = range("bytes=0-3");
+        matching.addHeader("If-Range", etag);
+        assertEquals(206, get(matching).getStatus());
+        // The client's copy is a different image: the whole file, not a slice of this one
+        MockHttpServletRequest changed = range("bytes=0-3");
+        changed.addHeader("If-Range", "\"other\"");
+        assertWhole(get(changed));
+        // Multiple or unparseable ranges are answered with the whole file
+        assertWhole(get(range("bytes=0-3,8-11")));
+        assertWhole(get(range("items=0-3")));
+        assertWhole(get(range("bytes=a-b")));
+
+        MockHttpServletRequest sendfile = range("bytes=10-19");
+        sendfile.setAttribute("org.apache.tomcat.sendfile.support", true);
+        MockHttpServletResponse handedOff = get(sendfile);
+        assertEquals(206, handedOff.getStatus());
+        assertEquals(0, handedOff.getContentAsByteArray().length);
+        assertEquals(10L, sendfile.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(20L, sendfile.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void rangesOutsideTheFileAreNotSatisfiable() throws Exception {
+        for (String header : new String[]{ "bytes=" + png.length + "-", "bytes=20-10", "bytes=-0" }) {
+            MockHttpServletResponse response = get(range(header));
+            assertEquals(416, response.getStatus(), header);
+            assertEquals("bytes */" + png.length, response.getHeader("Content-Range"));
+            assertEquals(0, response.getContentAsByteArray().length);
+        }
+    }
+
+    @Test
+    void rejectedUploadsAreBadRequests() throws Exception {
+        assertEquals(HttpStatus.CREATED, controller.uploadImage(
+                new MockMultipartFile("file", "a.png", "image/png", png)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.uploadImage(
+                new MockMultipartFile("file", "a.txt", "text/plain", "plain text".getBytes())).getStatusCode());
+    }
+
+    private void assertPartial(String header, int start, int end) throws Exception {
+        MockHttpServletResponse response = get(range(header));
+        assertEquals(206, response.getStatus(), header);
+        assertEquals("bytes " + start + "-" + end + "/" + png.length, response.getHeader("Content-Range"));
+        assertEquals(end - start + 1, response.getContentLengthLong());
+        assertArrayEquals(Arrays.copyOfRange(png, start, end + 1), response.getContentAsByteArray());
+    }
+
+    private void assertWhole(MockHttpServletResponse response) {
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Content-Range"));
+        assertArrayEquals(png, response.getContentAsByteArray());
+    }
+
+    private MockHttpServletRequest range(String header) {
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", header);
+        return request;
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/images/" + name);
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getImage(name, request, response);
+        return response;
+    }
+}
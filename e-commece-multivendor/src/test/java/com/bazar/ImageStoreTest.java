@@ -0,0 +1,74 @@
+package com.bazar;
+
+import com.bazar.exceptions.BadRequestException;
+import com.bazar.storage.ImageStore;
+import com.bazar.storage.StoredImage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Content-addressed storage: identical uploads share a blob, thumbnails are scaled down, and uploads that
+ * are not images or declare too many pixels are rejected before anything is decoded.
+ */
+class ImageStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void identicalUploadsShareOneBlobAndThumbnail() throws Exception {
+        ImageStore store = new ImageStore(root.toString(), 1_000_000, 1_000_000, 32);
+        byte[] png = png(200, 100);
+        StoredImage first = store.store(png);
+        StoredImage second = store.store(png.clone());
+
+        assertEquals(first.sha256(), second.sha256());
+        assertEquals("/images/" + first.sha256() + ".png", first.url());
+        assertEquals("/images/thumbs/" + first.sha256() + ".jpg", first.thumbnailUrl());
+        assertArrayEquals(png, Files.readAllBytes(store.find(first.sha256()).orElseThrow()));
+        BufferedImage thumbnail = ImageIO.read(store.findThumbnail(first.sha256()).orElseThrow().toFile());
+        assertEquals(32, thumbnail.getWidth());
+        assertEquals(16, thumbnail.getHeight());
+        assertTrue(store.find("../" + first.sha256()).isEmpty());
+        assertTrue(store.find("0".repeat(64)).isEmpty());
+    }
+
+    @Test
+    void oversizedAndMalformedUploadsAreBadRequests() throws Exception {
+        ImageStore store = new ImageStore(root.toString(), 1_000_000, 10_000, 32);
+        // 101 x 100 only takes a few hundred bytes of PNG, the header gives it away
+        assertThrows(BadRequestException.class, () -> store.store(png(101, 100)));
+        assertNotNull(store.store(png(100, 100)));
+        assertThrows(BadRequestException.class, () -> store.store(new byte[0]));
+        assertThrows(BadRequestException.class, () -> store.store("plain text".getBytes()));
+        assertThrows(BadRequestException.class,
+                () -> new ImageStore(root.toString(), 10, 10_000, 32).store(png(2, 2)));
+
+        String inline = "data:image/png;base64," + Base64.getEncoder().encodeToString(png(10, 10));
+        List<String> references = store.toReferences(List.of(inline, "https://cdn.example/a.jpg"));
+        assertTrue(references.get(0).startsWith("/images/"));
+        assertEquals("https://cdn.example/a.jpg", references.get(1));
+        assertThrows(BadRequestException.class, () -> store.toReferences(List.of("data:image/png;base64,***")));
+        assertThrows(BadRequestException.class, () -> store.toReferences(List.of("data:image/png,raw")));
+        assertThrows(BadRequestException.class,
+                () -> store.toReferences(List.of("data:image/png;base64," + Base64.getEncoder()
+                        .encodeToString(png(101, 100)))));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
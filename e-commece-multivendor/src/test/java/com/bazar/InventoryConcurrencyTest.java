@@ -0,0 +1,150 @@
+package com.bazar;
+
+import com.bazar.analytics.OrderEventLog;
+import com.bazar.analytics.SellerAnalytics;
+import com.bazar.analytics.SellerReportProjector;
+import com.bazar.config.PrincipalCache;
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.ReservationStatus;
+import com.bazar.exceptions.OutOfStockException;
+import com.bazar.model.Order;
+import com.bazar.model.OrderItem;
+import com.bazar.model.Product;
+import com.bazar.model.StockReservation;
+import com.bazar.repository.OrderRepository;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.StockReservationRepository;
+import com.bazar.service.InventoryService;
+import com.bazar.service.impl.InventoryServiceImpl;
+import com.bazar.service.impl.OrderServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thousands of parallel checkouts racing for one product: exactly the available stock is sold. Every way
+ * of cancelling an order puts its stock back.
+ */
+@H2DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=32"
+})
+@Import({ InventoryServiceImpl.class, OrderServiceImpl.class, PrincipalCache.class, SellerAnalytics.class,
+        OrderEventLog.class, SellerReportProjector.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryConcurrencyTest {
+
+    private static final int STOCK = 500;
+    private static final int CHECKOUTS = 4000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void parallelCheckoutsNeverOversell() throws Exception {
+        Product product = new Product();
+        product.setTitle("Flash sale item");
+        product.setQuantity(STOCK);
+        product.setTrackInventory(true);
+        Product saved = productRepository.save(product);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger outOfStock = new AtomicInteger();
+        Queue<Long> reserved = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> checkouts = new ArrayList<>(CHECKOUTS);
+        for (int i = 0; i < CHECKOUTS; i++) {
+            Order order = orderFor(saved, i + 1L);
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    tx.executeWithoutResult(status -> inventoryService.reserve(List.of(order)));
+                    reserved.add(order.getId());
+                } catch (OutOfStockException e) {
+                    outOfStock.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> checkout : checkouts) {
+            checkout.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(STOCK, reserved.size());
+        assertEquals(CHECKOUTS - STOCK, outOfStock.get());
+        assertEquals(0, productRepository.findById(saved.getId()).orElseThrow().getQuantity());
+        assertEquals(STOCK, reservationRepository.count());
+
+        // Cancelling puts every unit back, and a second release is a no-op
+        inventoryService.release(List.copyOf(reserved));
+        inventoryService.release(List.copyOf(reserved));
+        assertEquals(STOCK, productRepository.findById(saved.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void sellerCancellationReleasesHeldAndConfirmedStock() throws Exception {
+        Product product = new Product();
+        product.setTitle("Mug");
+        product.setQuantity(10);
+        product.setTrackInventory(true);
+        Product saved = productRepository.save(product);
+        Order held = orderRepository.save(orderFor(saved, null));
+        Order confirmed = orderRepository.save(orderFor(saved, null));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> inventoryService.reserve(List.of(held, confirmed)));
+        inventoryService.confirm(List.of(confirmed.getId()));
+        assertEquals(8, productRepository.findById(saved.getId()).orElseThrow().getQuantity());
+
+        // The seller's status change, not the customer's cancel endpoint
+        orderService.updateOrderStatus(held.getId(), OrderStatus.CANCELLED);
+        orderService.updateOrderStatus(confirmed.getId(), OrderStatus.CANCELLED);
+        assertEquals(10, productRepository.findById(saved.getId()).orElseThrow().getQuantity());
+        assertTrue(reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getProductId().equals(saved.getId()))
+                .map(StockReservation::getStatus)
+                .allMatch(ReservationStatus.RELEASED::equals));
+    }
+
+    private static Order orderFor(Product product, Long orderId) {
+        Order order = new Order();
+        order.setId(orderId);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        order.getOrderItems().add(item);
+        return order;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bazar;
+
+import com.bazar.config.JWT_CONSTANT;
+import com.bazar.config.TokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Token verifications per second: key and parser rebuilt per request (the old filter), the shared
+ * parser alone, and the shared parser with the claims cache.
+ * Opt-in: {@code mvn test -Dtest=JwtVerifyBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class JwtVerifyBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerifyBenchmarkTest.class);
+
+    private static final int TOKENS = 1_000;
+    private static final int ITERATIONS = 200_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void verificationsPerSecond() {
+        TokenService uncached = new TokenService("", "", Duration.ofHours(1), 1, Duration.ZERO);
+        TokenService cached = new TokenService("", "", Duration.ofHours(1), TOKENS, Duration.ofMinutes(15));
+        String[] tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = cached.issue("user" + i + "@bazar.test", "ROLE_CUSTOMER");
+        }
+
+        double rebuilt = report("rebuilt per request", tokens, jwt -> {
+            SecretKey key = Keys.hmacShaKeyFor(JWT_CONSTANT.SECRET_KEY.getBytes());
+            Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+            return claims.get("email", String.class);
+        });
+        report("shared parser", tokens, jwt -> uncached.verify(jwt).email());
+        double cachedRate = report("shared parser + cache", tokens, jwt -> cached.verify(jwt).email());
+        logger.info(String.valueOf(cached.stats()));
+        // A cache hit skips the signature check entirely, anything close to the old path means it misses
+        assertTrue(cachedRate > rebuilt * 2, "cached verification is not faster than rebuilding the parser");
+    }
+
+    private static double report(String name, String[] tokens, Function<String, String> verify) {
+        double best = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                int index = i % tokens.length;
+                assertEquals("user" + index + "@bazar.test", verify.apply(tokens[index]));
+            }
+            best = Math.max(best, ITERATIONS * 1e9 / (System.nanoTime() - start));
+        }
+        logger.info(String.format("%-22s %10.0f verifications/s", name, best));
+        return best;
+    }
+}
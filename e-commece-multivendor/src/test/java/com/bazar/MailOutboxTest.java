@@ -0,0 +1,251 @@
+package com.bazar;
+
+import com.bazar.domain.MailStatus;
+import com.bazar.mail.MailOutbox;
+import com.bazar.mail.MailTemplates;
+import com.bazar.model.OutboundMail;
+import com.bazar.repository.OutboundMailRepository;
+import com.bazar.service.EmailService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Outbox delivery against an in-process SMTP server: batched sends share connections, failed sends
+ * are retried and finally dead-lettered.
+ */
+@H2DataJpaTest(properties = {
+        "mail.outbox.messages-per-connection=20",
+        "mail.outbox.max-attempts=3",
+        "mail.outbox.initial-backoff=0s"
+})
+@Import({ EmailService.class, MailOutbox.class, MailTemplates.class, MailOutboxTest.Smtp.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MailOutboxTest {
+
+    private static final FakeSmtpServer SMTP = FakeSmtpServer.start();
+
+    @TestConfiguration
+    static class Smtp {
+        @Bean
+        JavaMailSender javaMailSender() {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("localhost");
+            sender.setPort(SMTP.port());
+            return sender;
+        }
+    }
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MailOutbox mailOutbox;
+
+    @Autowired
+    private OutboundMailRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        SMTP.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        repository.deleteAll();
+        SMTP.reset();
+    }
+
+    @Test
+    void deliversAfterCommitOverSharedConnections() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 50; i++) {
+                emailService.sendPasswordResetOtp("user" + i + "@bazar.test", "1234" + i);
+            }
+        });
+
+        awaitTrue(() -> repository.countByStatus(MailStatus.SENT) == 50);
+        assertEquals(50, SMTP.messages().size());
+        assertTrue(SMTP.connections() <= 3, "50 mails in chunks of 20 need 3 connections, saw " + SMTP.connections());
+        assertTrue(SMTP.messages().stream().anyMatch(message -> message.contains("To: user49@bazar.test")));
+    }
+
+    @Test
+    void retriesThenDeadLetters() throws Exception {
+        SMTP.rejectAll(true);
+        emailService.sendVerificationOtpEmail("seller@bazar.test", "987654", "Verify", "ignored");
+
+        awaitTrue(() -> {
+            mailOutbox.wake();
+            return repository.countByStatus(MailStatus.DEAD) == 1;
+        });
+        OutboundMail mail = repository.findAll().get(0);
+        assertEquals(3, mail.getAttempts());
+        assertNotNull(mail.getLastError());
+        assertEquals(3, SMTP.rejected());
+        assertTrue(SMTP.messages().isEmpty());
+    }
+
+    @Test
+    void escapesTemplateValues() throws Exception {
+        emailService.sendOrderToDelivery("delivery@bazar.test", "Order #1 <b>x</b>", "Tunis & Sfax");
+
+        awaitTrue(() -> repository.countByStatus(MailStatus.SENT) == 1);
+        String body = repository.findAll().get(0).getBody();
+        assertTrue(body.contains("Order #1 &lt;b&gt;x&lt;/b&gt;"));
+        assertTrue(body.contains("Tunis &amp; Sfax"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Just enough SMTP for JavaMail: one thread per connection, messages kept in memory
+     */
+    static final class FakeSmtpServer implements Closeable {
+
+        private final ServerSocket socket;
+        private final Queue<String> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private volatile boolean rejectAll;
+
+        private FakeSmtpServer(ServerSocket socket) {
+            this.socket = socket;
+        }
+
+        static FakeSmtpServer start() {
+            try {
+                FakeSmtpServer server = new FakeSmtpServer(new ServerSocket(0));
+                Thread acceptor = new Thread(server::accept, "fake-smtp");
+                acceptor.setDaemon(true);
+                acceptor.start();
+                return server;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        List<String> messages() {
+            return List.copyOf(messages);
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        int rejected() {
+            return rejected.get();
+        }
+
+        void rejectAll(boolean reject) {
+            rejectAll = reject;
+        }
+
+        void reset() {
+            messages.clear();
+            connections.set(0);
+            rejected.set(0);
+            rejectAll = false;
+        }
+
+        private void accept() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    connections.incrementAndGet();
+                    Thread session = new Thread(() -> serve(client), "fake-smtp-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket client) {
+            try (client;
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                 Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8)) {
+                reply(out, "220 localhost fake SMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(out, "250 localhost");
+                        case "MAIL" -> {
+                            if (rejectAll) {
+                                rejected.incrementAndGet();
+                                reply(out, "451 try again later");
+                            } else {
+                                reply(out, "250 OK");
+                            }
+                        }
+                        case "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                        case "DATA" -> {
+                            reply(out, "354 end with <CRLF>.<CRLF>");
+                            StringBuilder message = new StringBuilder();
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                message.append(line).append('\n');
+                            }
+                            messages.add(message.toString());
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 bye");
+                            return;
+                        }
+                        default -> reply(out, "502 not implemented");
+                    }
+                }
+            } catch (IOException ignored) {
+                // Client went away
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.bazar;
+
+import com.bazar.analytics.OrderEventLog;
+import com.bazar.analytics.SellerAnalytics;
+import com.bazar.analytics.SellerReportProjector;
+import com.bazar.config.PrincipalCache;
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentStatus;
+import com.bazar.exceptions.BadRequestException;
+import com.bazar.model.*;
+import com.bazar.response.CursorPage;
+import com.bazar.response.OrderSummaryDTO;
+import com.bazar.service.impl.InventoryServiceImpl;
+import com.bazar.service.impl.OrderServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Order history pages walk (order_date, id) newest first, apply the filters and load a page in a fixed
+ * number of statements.
+ */
+@H2DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ OrderServiceImpl.class, InventoryServiceImpl.class, PrincipalCache.class, SellerAnalytics.class,
+        OrderEventLog.class, SellerReportProjector.class })
+class OrderHistoryTest {
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void sellerHistoryPagesNewestFirst() {
+        Seller seller = entityManager.persist(Fixtures.seller());
+        User alice = customer("alice@bazar.test");
+        User bob = customer("bob@bazar.test");
+        Product mug = product(seller, "Mug", "mug.jpg");
+        Product cup = product(seller, "Cup", "cup.jpg");
+        LocalDate today = LocalDate.now();
+        List<Long> expected = new ArrayList<>();
+        for (int day = 0; day < 5; day++) {
+            expected.add(order(seller, day % 2 == 0 ? alice : bob, today.minusDays(day),
+                    day == 1 ? OrderStatus.CANCELLED : OrderStatus.CONFIRMED, mug, cup).getId());
+        }
+        // Same timestamp as the newest one: the id breaks the tie
+        Order twin = order(seller, alice, today, OrderStatus.CONFIRMED, mug);
+        expected.add(0, twin.getId());
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        CursorPage<OrderSummaryDTO> first = orderService.sellerOrderPage(seller.getId(), null, null, null, null,
+                null, "", 4);
+        // Orders with customers and addresses, their lines, the product images
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertTrue(first.isHasNext());
+        OrderSummaryDTO newest = first.getContent().get(0);
+        assertEquals("alice@bazar.test", newest.getCustomerEmail());
+        assertEquals("Pune", newest.getShippingAddress().getCity());
+        assertEquals(1, newest.getOrderItems().size());
+        assertEquals("mug.jpg", newest.getOrderItems().get(0).getImage());
+        assertEquals(2, first.getContent().get(1).getOrderItems().size());
+
+        CursorPage<OrderSummaryDTO> second = orderService.sellerOrderPage(seller.getId(), null, null, null, null,
+                null, first.getNextCursor(), 4);
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+        List<Long> ids = new ArrayList<>();
+        first.getContent().forEach(order -> ids.add(order.getId()));
+        second.getContent().forEach(order -> ids.add(order.getId()));
+        assertEquals(expected, ids);
+
+        assertEquals(1, orderService.sellerOrderPage(seller.getId(), OrderStatus.CANCELLED, null, null, null,
+                null, "", 10).getContent().size());
+        assertEquals(2, orderService.sellerOrderPage(seller.getId(), null, null, null, null,
+                "BOB@", "", 10).getContent().size());
+        assertEquals(2, orderService.sellerOrderPage(seller.getId(), null, null, null, null,
+                String.valueOf(bob.getId()), "", 10).getContent().size());
+        assertEquals(3, orderService.sellerOrderPage(seller.getId(), null, null, today.minusDays(3),
+                today.minusDays(1), null, "", 10).getContent().size());
+        assertTrue(orderService.sellerOrderPage(seller.getId(), null, PaymentStatus.COMPLETED, null, null,
+                null, "", 10).getContent().isEmpty());
+        assertThrows(BadRequestException.class, () -> orderService.sellerOrderPage(seller.getId(), null,
+                null, null, null, null, "not-a-cursor", 10));
+        assertThrows(BadRequestException.class, () -> orderService.sellerOrderPage(seller.getId(), null,
+                null, null, null, "99999999999999999999", "", 10));
+    }
+
+    @Test
+    void userHistoryOnlyShowsOwnOrders() {
+        Seller seller = entityManager.persist(Fixtures.seller());
+        User alice = customer("carol@bazar.test");
+        User bob = customer("dave@bazar.test");
+        Product mug = product(seller, "Mug", "mug.jpg");
+        Order own = order(seller, alice, LocalDate.now(), OrderStatus.PENDING, mug);
+        order(seller, bob, LocalDate.now(), OrderStatus.PENDING, mug);
+        entityManager.clear();
+
+        CursorPage<OrderSummaryDTO> page = orderService.userOrderPage(alice.getId(), null, null, null, null, "", 10);
+        assertEquals(1, page.getContent().size());
+        assertEquals(own.getId(), page.getContent().get(0).getId());
+        assertEquals("Mug", page.getContent().get(0).getOrderItems().get(0).getTitle());
+    }
+
+    private User customer(String email) {
+        User user = new User();
+        user.setEmail(email);
+        return entityManager.persist(user);
+    }
+
+    private Product product(Seller seller, String title, String image) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setSeller(seller);
+        product.getImages().add(image);
+        return entityManager.persist(product);
+    }
+
+    private Order order(Seller seller, User customer, LocalDate placed, OrderStatus status, Product... products) {
+        Address address = new Address();
+        address.setCity("Pune");
+        entityManager.persist(address);
+        Order order = new Order();
+        order.setSellerId(seller.getId());
+        order.setUser(customer);
+        order.setShippingAddress(address);
+        order.setOrderDate(placed.atTime(10, 0));
+        order.setOrderStatus(status);
+        for (Product product : products) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setSellingPrice(100);
+            order.getOrderItems().add(item);
+        }
+        entityManager.persist(order);
+        entityManager.flush();
+        return order;
+    }
+}
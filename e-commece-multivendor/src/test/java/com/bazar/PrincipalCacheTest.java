@@ -0,0 +1,95 @@
+package com.bazar;
+
+import com.bazar.config.PrincipalCache;
+import com.bazar.domain.AccountStatus;
+import com.bazar.domain.User_Role;
+import com.bazar.model.Seller;
+import com.bazar.model.User;
+import com.bazar.repository.SellerRepository;
+import com.bazar.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A role or account status change reaches the next lookup through the eviction, and the eviction waits
+ * for the commit so a lookup in between cannot cache the old row again.
+ */
+@H2DataJpaTest
+@Import(PrincipalCache.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PrincipalCacheTest {
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void roleAndStatusChangesReachTheNextLookup() {
+        User user = new User();
+        user.setEmail("promoted@bazar.test");
+        Long userId = userRepository.save(user).getId();
+        assertEquals(User_Role.ROLE_CUSTOMER, principalCache.user("promoted@bazar.test").getRole());
+
+        // Without an eviction the cached row is served
+        User promoted = userRepository.findById(userId).orElseThrow();
+        promoted.setRole(User_Role.ROLE_ADMIN);
+        userRepository.save(promoted);
+        assertEquals(User_Role.ROLE_CUSTOMER, principalCache.user("promoted@bazar.test").getRole());
+        principalCache.evictUser(userId);
+        assertEquals(User_Role.ROLE_ADMIN, principalCache.user("promoted@bazar.test").getRole());
+
+        Seller seller = new Seller();
+        seller.setEmail("suspended@bazar.test");
+        Long sellerId = sellerRepository.save(seller).getId();
+        assertEquals(AccountStatus.PENDING_VERIFICATION,
+                principalCache.seller("suspended@bazar.test").getAccountStatus());
+        Seller suspended = sellerRepository.findById(sellerId).orElseThrow();
+        suspended.setAccountStatus(AccountStatus.SUSPENDED);
+        sellerRepository.save(suspended);
+        principalCache.evictSeller(sellerId);
+        assertEquals(AccountStatus.SUSPENDED, principalCache.seller("suspended@bazar.test").getAccountStatus());
+        assertNull(principalCache.user("nobody@bazar.test"));
+    }
+
+    @Test
+    void evictionWaitsForTheCommit() {
+        User user = new User();
+        user.setEmail("changed@bazar.test");
+        Long userId = userRepository.save(user).getId();
+        User cached = principalCache.user("changed@bazar.test");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.executeWithoutResult(status -> {
+            User changed = userRepository.findById(userId).orElseThrow();
+            changed.setRole(User_Role.ROLE_SELLER);
+            userRepository.saveAndFlush(changed);
+            principalCache.evictUser(userId);
+            // A lookup before the commit still gets the old row; evicting now would let it be cached again
+            assertSame(cached, principalCache.user("changed@bazar.test"));
+        });
+        assertEquals(User_Role.ROLE_SELLER, principalCache.user("changed@bazar.test").getRole());
+
+        User current = principalCache.user("changed@bazar.test");
+        tx.executeWithoutResult(status -> {
+            principalCache.evictUser(userId);
+            status.setRollbackOnly();
+        });
+        // Nothing changed, nothing evicted
+        assertSame(current, principalCache.user("changed@bazar.test"));
+    }
+}
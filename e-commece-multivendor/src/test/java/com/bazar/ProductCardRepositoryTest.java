@@ -0,0 +1,130 @@
+package com.bazar;
+
+import com.bazar.model.Category;
+import com.bazar.model.Product;
+import com.bazar.model.Seller;
+import com.bazar.repository.ProductRepository;
+import com.bazar.response.ProductCardDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Product cards are read as projections with the seller name, category and first image filled in, a page
+ * costs the card query and one image query, and products without a seller or category still show up.
+ */
+@H2DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductCardRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void cardsCarryTheirSellerCategoryAndFirstImage() {
+        Seller seller = Fixtures.seller();
+        seller.getBusinessDetails().setBusinessName("Plum Works");
+        entityManager.persist(seller);
+        Category category = new Category();
+        category.setCategoryId("plum_tees");
+        category.setName("Tees");
+        category.setLevel(1);
+        entityManager.persist(category);
+        Product listed = product("Plum tee", 250, seller, category, "front.jpg", "back.jpg");
+        Product bare = product("Plum scarf", 120, null, null);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        List<ProductCardDTO> cards = productRepository.findCards(plum(), Sort.by("sellingPrice").descending(), 10);
+        // The cards, then the images of all of them
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        assertEquals(List.of(listed.getId(), bare.getId()), cards.stream().map(ProductCardDTO::getId).toList());
+        ProductCardDTO card = cards.get(0);
+        assertEquals("Plum tee", card.getTitle());
+        assertEquals(250f, card.getSellingPrice());
+        assertEquals("plum_tees", card.getCategoryId());
+        assertEquals(seller.getId(), card.getSellerId());
+        assertEquals("Plum Works", card.getSellerName());
+        assertTrue(List.of("front.jpg", "back.jpg").contains(card.getImage()));
+        ProductCardDTO bareCard = cards.get(1);
+        assertNull(bareCard.getSellerId());
+        assertNull(bareCard.getCategoryId());
+        assertNull(bareCard.getImage());
+    }
+
+    @Test
+    void pagesCountOnlyWhenTheyAreFull() {
+        for (int price = 100; price <= 500; price += 100) {
+            product("Plum sock", price, null, null);
+        }
+        entityManager.flush();
+        Statistics statistics = statistics();
+
+        Page<ProductCardDTO> first = productRepository.findCards(plum(),
+                PageRequest.of(0, 2, Sort.by("sellingPrice").ascending()));
+        assertEquals(List.of(100f, 200f), first.getContent().stream().map(ProductCardDTO::getSellingPrice).toList());
+        assertEquals(5, first.getTotalElements());
+        // Cards, images, count
+        assertEquals(3, statistics.getPrepareStatementCount());
+        statistics.clear();
+        Page<ProductCardDTO> last = productRepository.findCards(plum(),
+                PageRequest.of(2, 2, Sort.by("sellingPrice").ascending()));
+        assertEquals(List.of(500f), last.getContent().stream().map(ProductCardDTO::getSellingPrice).toList());
+        assertEquals(5, last.getTotalElements());
+        // A short last page gives the total without a count
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertTrue(productRepository.findCards(plum(), Sort.unsorted(), 0).isEmpty());
+    }
+
+    @Test
+    void cardsByIdsKeepTheRequestedOrder() {
+        Product first = product("Plum cap", 10, null, null);
+        Product second = product("Plum hat", 20, null, null, "hat.jpg");
+        entityManager.flush();
+
+        List<ProductCardDTO> cards = productRepository.findCardsByIds(List.of(second.getId(), -1L, first.getId()));
+        // Unknown ids are skipped
+        assertEquals(List.of(second.getId(), first.getId()), cards.stream().map(ProductCardDTO::getId).toList());
+        assertEquals("hat.jpg", cards.get(0).getImage());
+        assertTrue(productRepository.findCardsByIds(List.of()).isEmpty());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private static Specification<Product> plum() {
+        return (root, query, cb) -> cb.like(root.get("title"), "Plum %");
+    }
+
+    private Product product(String title, float price, Seller seller, Category category, String... images) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setMrpPrice(price);
+        product.setSellingPrice(price);
+        product.setSeller(seller);
+        product.setCategory(category);
+        product.getImages().addAll(List.of(images));
+        return entityManager.persist(product);
+    }
+}
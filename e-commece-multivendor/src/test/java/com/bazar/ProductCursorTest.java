@@ -0,0 +1,129 @@
+package com.bazar;
+
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.ProductFacetEngine;
+import com.bazar.exceptions.BadRequestException;
+import com.bazar.model.Product;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ProductCardDTO;
+import com.bazar.search.JpaSearchBackend;
+import com.bazar.service.EntitlementService;
+import com.bazar.service.ProductVariantService;
+import com.bazar.service.impl.InventoryServiceImpl;
+import com.bazar.service.impl.ProductServiceImpl;
+import com.bazar.storage.ImageStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cursor pages seek on (price, id) or id: walking them visits every product once in the sort order,
+ * products with the same price are split by id, and a cursor that does not decode is a bad request.
+ */
+@H2DataJpaTest
+@Import({ ProductServiceImpl.class, InventoryServiceImpl.class })
+class ProductCursorTest {
+
+    @Autowired
+    private ProductServiceImpl productService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private CategoryTreeCache categoryTreeCache;
+
+    @MockBean
+    private JpaSearchBackend jpaSearchBackend;
+
+    @MockBean
+    private ProductFacetEngine facetEngine;
+
+    @MockBean
+    private ProductVariantService productVariantService;
+
+    @MockBean
+    private ImageStore imageStore;
+
+    @MockBean
+    private EntitlementService entitlementService;
+
+    @Test
+    void pagesSeekOnPriceAndId() {
+        Long dear = product(300);
+        Long cheap = product(100);
+        // Three at the same price, one of them lands on a page boundary
+        Long first = product(200);
+        Long second = product(200);
+        Long third = product(200);
+        entityManager.flush();
+
+        assertEquals(List.of(List.of(cheap, first), List.of(second, third), List.of(dear)), walk("price_low", 2));
+        assertEquals(List.of(List.of(dear, third), List.of(second, first), List.of(cheap)), walk("price_high", 2));
+        assertEquals(List.of(List.of(dear, cheap, first), List.of(second, third)), walk(null, 3));
+
+        CursorPage<ProductCardDTO> counted = productService.getProductsByCursor(null, "Teal", null, null, null,
+                null, "price_low", null, 10, true);
+        assertFalse(counted.isHasNext());
+        assertNull(counted.getNextCursor());
+        assertEquals(5L, counted.getApproximateTotal());
+    }
+
+    @Test
+    void undecodableCursorsAreBadRequests() {
+        product(100);
+        product(200);
+        entityManager.flush();
+        String priceCursor = productService.getProductsByCursor(null, "Teal", null, null, null, null,
+                "price_low", null, 1, false).getNextCursor();
+        assertNotNull(priceCursor);
+
+        assertThrows(BadRequestException.class, () -> page("price_low", "not a cursor", 1));
+        assertThrows(BadRequestException.class, () -> page("price_low", encode("p:cheap:1"), 1));
+        assertThrows(BadRequestException.class, () -> page("price_low", encode("p:100.0"), 1));
+        // A price cursor does not carry over to another sort
+        assertThrows(BadRequestException.class, () -> page(null, priceCursor, 1));
+        assertThrows(BadRequestException.class, () -> page("rating", priceCursor, 1));
+        assertEquals(1, page("price_low", priceCursor, 1).getContent().size());
+    }
+
+    // Every page of the sort, as product ids
+    private List<List<Long>> walk(String sort, int pageSize) {
+        List<List<Long>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ProductCardDTO> page = page(sort, cursor, pageSize);
+            pages.add(page.getContent().stream().map(ProductCardDTO::getId).toList());
+            assertEquals(page.isHasNext(), page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return pages;
+    }
+
+    private CursorPage<ProductCardDTO> page(String sort, String cursor, int pageSize) {
+        return productService.getProductsByCursor(null, "Teal", null, null, null, null, sort, cursor, pageSize,
+                false);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long product(float price) {
+        Product product = new Product();
+        product.setTitle("Teal tee");
+        product.setColor("Teal");
+        product.setMrpPrice(price);
+        product.setSellingPrice(price);
+        return entityManager.persist(product).getId();
+    }
+}
@@ -0,0 +1,105 @@
+package com.bazar;
+
+import com.bazar.catalog.ProductFacetEngine;
+import com.bazar.model.Category;
+import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+import com.bazar.repository.ProductRepository;
+import com.bazar.response.FacetBucketDTO;
+import com.bazar.response.ProductFacetsDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * While the facet index is still building the counts come from the database, and they match what the
+ * index answers once built.
+ */
+@H2DataJpaTest
+class ProductFacetFallbackTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void databaseCountsMatchTheIndex() {
+        // Not a bean: the startup build would race with the assertions on the unbuilt engine
+        ProductFacetEngine facetEngine = new ProductFacetEngine(productRepository, transactionManager,
+                entityManager.getEntityManager());
+        ReflectionTestUtils.setField(facetEngine, "priceBounds", new int[]{500, 1000});
+        ReflectionTestUtils.setField(facetEngine, "discountBounds", new int[]{10, 50});
+        ReflectionTestUtils.setField(facetEngine, "batchSize", 2);
+        Category tshirts = category("men_tshirts");
+        Category shirts = category("men_shirts");
+        product("Red", "S, M", tshirts, 400, 0);
+        product(" red ", "M", tshirts, 500, 10);
+        product("Blue", "L", shirts, 999, 50);
+        product(null, null, null, 5000, 70);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String[]> filters = List.of(
+                new String[]{null, null, null},
+                new String[]{null, "RED", null},
+                new String[]{"men_tshirts", null, "m"});
+        assertFalse(facetEngine.isReady());
+        List<ProductFacetsDTO> fromDatabase = filters.stream().map(filter -> facets(facetEngine, filter)).toList();
+
+        // Every query carries maxPrice=999, which the price facet itself ignores
+        ProductFacetsDTO all = fromDatabase.get(0);
+        assertEquals(3, all.getTotal());
+        assertEquals(Map.of("Red", 2, "Blue", 1), all.getColors());
+        assertEquals(Map.of("S", 1, "M", 2, "L", 1), all.getSizes());
+        assertEquals(List.of(1, 2, 1), all.getPriceBuckets().stream().map(FacetBucketDTO::getCount).toList());
+        assertEquals(List.of(1, 1, 1), all.getDiscountBands().stream().map(FacetBucketDTO::getCount).toList());
+        assertEquals(Map.of("men_tshirts", 2), fromDatabase.get(2).getCategories());
+
+        facetEngine.rebuild();
+        assertTrue(facetEngine.isReady());
+        assertEquals(fromDatabase, filters.stream().map(filter -> facets(facetEngine, filter)).toList());
+    }
+
+    private static ProductFacetsDTO facets(ProductFacetEngine facetEngine, String[] filter) {
+        return facetEngine.facets(filter[0], filter[1], filter[2], null, 999, null);
+    }
+
+    private Category category(String id) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setName(id);
+        category.setLevel(3);
+        return entityManager.persist(category);
+    }
+
+    private void product(String color, String sizes, Category category, int price, int discount) {
+        Product product = new Product();
+        product.setTitle("Product");
+        product.setColor(color);
+        product.setSizes(sizes);
+        product.setCategory(category);
+        product.setMrpPrice(price * 2);
+        product.setSellingPrice(price);
+        product.setDiscountPercentage(discount);
+        entityManager.persist(product);
+        for (String size : ProductVariant.parseSizes(sizes)) {
+            ProductVariant variant = new ProductVariant();
+            variant.setProduct(product);
+            variant.setSize(size);
+            variant.setSku(product.getId() + "-" + size);
+            entityManager.persist(variant);
+        }
+    }
+}
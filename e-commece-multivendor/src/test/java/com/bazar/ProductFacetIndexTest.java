@@ -0,0 +1,98 @@
+package com.bazar;
+
+import com.bazar.catalog.ProductFacetIndex;
+import com.bazar.catalog.ProductFacetIndex.Counts;
+import com.bazar.catalog.ProductFacetIndex.Document;
+import com.bazar.catalog.ProductFacetIndex.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Disjunctive facet counts, bucket bounds and removal, including doc id sets large enough to switch
+ * between the sorted-array and bitmap layouts.
+ */
+class ProductFacetIndexTest {
+
+    private static final Filter NO_FILTER = new Filter(null, null, null, null, null, null);
+
+    @Test
+    void countsApplyEveryFilterButTheirOwn() {
+        ProductFacetIndex index = new ProductFacetIndex(new int[]{500, 1000}, new int[]{10, 50});
+        index.add(1L, new Document("Red", Set.of("S", "M"), "men_tshirts", 400, 0));
+        index.add(2L, new Document(" red ", Set.of("M"), "men_tshirts", 500, 10));
+        index.add(3L, new Document("Blue", Set.of("L"), "men_shirts", 999, 50));
+        index.add(4L, new Document(null, Set.of(), null, 5000, 70));
+
+        Counts all = index.count(NO_FILTER);
+        assertEquals(4, all.total());
+        assertEquals(Map.of("Red", 2, "Blue", 1), all.colors());
+        assertEquals(Map.of("S", 1, "M", 2, "L", 1), all.sizes());
+        assertEquals(Map.of("men_tshirts", 2, "men_shirts", 1), all.categories());
+        assertArrayEquals(new int[]{1, 2, 1}, all.priceBuckets());
+        assertArrayEquals(new int[]{1, 1, 2}, all.discountBands());
+
+        Counts red = index.count(new Filter(null, "RED", null, null, null, null));
+        assertEquals(2, red.total());
+        // The color facet ignores the color filter, the others honour it
+        assertEquals(Map.of("Red", 2, "Blue", 1), red.colors());
+        assertEquals(Map.of("S", 1, "M", 2), red.sizes());
+        assertArrayEquals(new int[]{1, 1, 0}, red.priceBuckets());
+
+        Counts mediumUpTo999 = index.count(new Filter(null, null, "m", null, 999, 5));
+        assertEquals(1, mediumUpTo999.total());
+        assertEquals(Map.of("M", 1, "L", 1), mediumUpTo999.sizes());
+        assertArrayEquals(new int[]{0, 1, 0}, mediumUpTo999.priceBuckets());
+    }
+
+    @Test
+    void replaceAndRemoveMoveDocsBetweenValues() {
+        ProductFacetIndex index = new ProductFacetIndex(new int[]{500}, new int[]{10});
+        index.add(1L, new Document("Red", Set.of("M"), "mugs", 100, 0));
+        index.add(1L, new Document("Green", Set.of("L"), "mugs", 900, 20));
+        assertEquals(1, index.size());
+        Counts counts = index.count(NO_FILTER);
+        assertEquals(Map.of("Green", 1), counts.colors());
+        assertEquals(Map.of("L", 1), counts.sizes());
+        assertArrayEquals(new int[]{0, 1}, counts.priceBuckets());
+
+        index.remove(1L);
+        index.remove(2L);
+        assertEquals(0, index.size());
+        assertTrue(index.count(NO_FILTER).colors().isEmpty());
+        assertEquals(0, index.count(NO_FILTER).total());
+    }
+
+    @Test
+    void largeSetsSwitchLayoutsWithoutLosingCounts() {
+        ProductFacetIndex index = new ProductFacetIndex(new int[]{500}, new int[]{10});
+        // Doc ids run past the first 65536-id chunk; the black set is a bitmap in chunk 0, an array in chunk 1
+        for (long id = 1; id <= 70_000; id++) {
+            index.add(id, document(id));
+        }
+        Filter medium = new Filter(null, null, "M", null, null, null);
+        assertEquals(Map.of("black", 35_000, "white", 35_000), index.count(NO_FILTER).colors());
+        assertEquals(Map.of("black", 11_666, "white", 11_667), index.count(medium).colors());
+        assertEquals(23_333, index.count(medium).total());
+
+        // Emptying chunk 0 of black shrinks it back to an array on the way down, then drops it
+        for (long id = 2; id <= 66_000; id += 2) {
+            index.remove(id);
+        }
+        assertEquals(Map.of("black", 2_000, "white", 35_000), index.count(NO_FILTER).colors());
+        assertEquals(Map.of("black", 666, "white", 11_667), index.count(medium).colors());
+
+        // Freed doc ids are reused
+        index.add(100_000L, new Document("black", Set.of("M"), "tees", 100, 0));
+        assertEquals(Map.of("black", 667, "white", 11_667), index.count(medium).colors());
+        assertEquals(37_001, index.size());
+    }
+
+    private static Document document(long id) {
+        return new Document(id % 2 == 0 ? "black" : "white", id % 3 == 0 ? Set.of("M") : Set.of("S"), "tees",
+                id % 1000, 0);
+    }
+}
@@ -0,0 +1,143 @@
+package com.bazar;
+
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.ProductFacetEngine;
+import com.bazar.catalog.ProductImportJob;
+import com.bazar.catalog.ProductImporter;
+import com.bazar.domain.ImportStatus;
+import com.bazar.model.Product;
+import com.bazar.model.Seller;
+import com.bazar.repository.CategoryRepository;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.ProductVariantRepository;
+import com.bazar.repository.SellerRepository;
+import com.bazar.response.ProductImportStatusDTO;
+import com.bazar.service.EntitlementService;
+import com.bazar.storage.ImageStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Bulk imports insert good rows in batches, report bad ones by row number and create missing categories once.
+ */
+@H2DataJpaTest(properties = {
+        "products.import.batch-size=2",
+        "products.import.workers=2"
+})
+@AutoConfigureJson
+@Import(ProductImporter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImportTest {
+
+    @Autowired
+    private ProductImporter productImporter;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @MockBean
+    private EntitlementService entitlementService;
+
+    @MockBean
+    private CategoryTreeCache categoryTreeCache;
+
+    @MockBean
+    private ProductFacetEngine facetEngine;
+
+    @MockBean
+    private ImageStore imageStore;
+
+    @Test
+    void csvImportReportsBadRows() throws Exception {
+        Seller seller = sellerRepository.save(Fixtures.seller());
+        String csv = "title,mrpPrice,sellingPrice,category,category2,size,quantity\n"
+                + "Tee,1000,800,men,men_tshirts,\"S,M\",5\n"
+                + ",1000,800,men,men_tshirts,,1\n"
+                + "Polo,1200,1500,men,men_tshirts,,1\n"
+                + "Cap,400,300,men,men_caps,,abc\n"
+                + "x".repeat(300) + ",500,400,men,men_caps,,1\n"
+                + "\"Scarf, wool\",700,700,women,,,\n";
+
+        ProductImportStatusDTO status = await(productImporter.start(seller, "csv", body(csv)));
+
+        assertEquals(ImportStatus.COMPLETED, status.getStatus());
+        assertEquals(6, status.getRowsRead());
+        assertEquals(2, status.getImported());
+        assertEquals(4, status.getFailed());
+        assertEquals(List.of(2L, 3L, 4L, 5L), status.getRowErrors().stream()
+                .map(ProductImportStatusDTO.RowError::getRow).sorted().toList());
+
+        // The two workers insert their chunks concurrently, so the ids say nothing about the row order
+        List<Product> products = productRepository.findBySellerId(seller.getId()).stream()
+                .sorted(Comparator.comparing(Product::getTitle)).toList();
+        assertEquals(List.of("Scarf, wool", "Tee"), products.stream().map(Product::getTitle).toList());
+        Product tee = products.get(1);
+        assertEquals("men_tshirts", tee.getCategory().getCategoryId());
+        assertEquals("men", tee.getCategory().getParentCategory().getCategoryId());
+        assertEquals(20, tee.getDiscountPercentage());
+        assertEquals(2, variantRepository.findByProductId(tee.getId()).size());
+        assertEquals(1, variantRepository.findByProductId(products.get(0).getId()).size());
+        assertNotNull(categoryRepository.findByCategoryId("men_caps"));
+        verify(entitlementService, atLeastOnce()).reserveProducts(any(), anyInt());
+    }
+
+    @Test
+    void jsonImportAcceptsArraysAndLines() throws Exception {
+        Seller seller = sellerRepository.save(Fixtures.seller());
+        String array = "[{\"title\":\"Lamp\",\"mrpPrice\":900,\"sellingPrice\":450,\"category\":\"home\"},"
+                + "{\"title\":\"Rug\",\"mrpPrice\":0,\"sellingPrice\":0,\"category\":\"home\"}]";
+        ProductImportStatusDTO first = await(productImporter.start(seller, "json", body(array)));
+        assertEquals(1, first.getImported());
+        assertEquals(1, first.getFailed());
+
+        String lines = "{\"title\":\"Vase\",\"mrpPrice\":300,\"sellingPrice\":300,\"category\":\"home\",\"quantity\":7}\n"
+                + "{\"title\":\"Mat\",\"mrpPrice\":100,\"sellingPrice\":90,\"category\":\"home\"}\n";
+        ProductImportStatusDTO second = await(productImporter.start(seller, "json", body(lines)));
+        assertEquals(2, second.getImported());
+        assertEquals(0, second.getFailed());
+        assertEquals(3L, productRepository.countBySellerId(seller.getId()));
+
+        assertThrows(IllegalArgumentException.class, () -> productImporter.start(seller, "xml", body("")));
+    }
+
+    private ProductImportStatusDTO await(ProductImportJob job) throws InterruptedException {
+        assertSame(job, productImporter.get(job.getId()));
+        long deadline = System.currentTimeMillis() + 10_000;
+        ProductImportStatusDTO status = job.status();
+        while (status.getStatus() == ImportStatus.QUEUED || status.getStatus() == ImportStatus.RUNNING) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(50);
+            status = job.status();
+        }
+        return status;
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
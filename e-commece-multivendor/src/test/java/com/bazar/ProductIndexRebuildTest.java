@@ -0,0 +1,105 @@
+package com.bazar;
+
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.ProductFacetEngine;
+import com.bazar.model.Product;
+import com.bazar.repository.ProductRepository;
+import com.bazar.response.ProductFacetsDTO;
+import com.bazar.search.InvertedIndexSearchBackend;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A product changed while a rebuild is reading its batch ends up in the rebuilt search and facet
+ * indexes as committed, not as the older row the batch read.
+ */
+class ProductIndexRebuildTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Test
+    void searchRebuildKeepsChangesCommittedDuringABatch() {
+        InvertedIndexSearchBackend backend = new InvertedIndexSearchBackend(productRepository, transactionManager,
+                mock(CategoryTreeCache.class));
+        ReflectionTestUtils.setField(backend, "batchSize", 100);
+        // The batch is read, then a rename and a delete commit before the builder adds what it read
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            if ((long) invocation.getArgument(0) > 0) {
+                return List.of();
+            }
+            List<Product> read = List.of(product(1L, "Brass lamp"), product(2L, "Oak desk"));
+            backend.index(product(1L, "Copper lamp"));
+            backend.remove(2L);
+            return read;
+        });
+        when(productRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.contains(1L) ? List.of(product(1L, "Copper lamp")) : List.of();
+        });
+
+        backend.rebuild();
+        assertTrue(backend.isReady());
+        assertEquals(List.of(1L), backend.searchIds("copper", PageRequest.of(0, 10)).getContent());
+        assertTrue(backend.searchIds("brass", PageRequest.of(0, 10)).isEmpty());
+        assertTrue(backend.searchIds("desk", PageRequest.of(0, 10)).isEmpty());
+
+        // Once built, changes go straight to the live index
+        backend.index(product(3L, "Walnut desk"));
+        assertEquals(List.of(3L), backend.searchIds("desk", PageRequest.of(0, 10)).getContent());
+    }
+
+    @Test
+    void facetRebuildKeepsChangesCommittedDuringABatch() {
+        ProductFacetEngine engine = new ProductFacetEngine(productRepository, transactionManager,
+                mock(EntityManager.class));
+        ReflectionTestUtils.setField(engine, "priceBounds", new int[]{ 500 });
+        ReflectionTestUtils.setField(engine, "discountBounds", new int[]{ 10 });
+        ReflectionTestUtils.setField(engine, "batchSize", 100);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            if ((long) invocation.getArgument(0) > 0) {
+                return List.of();
+            }
+            List<Product> read = List.of(colored(1L, "Red"), colored(2L, "Green"));
+            engine.index(colored(1L, "Blue"));
+            engine.remove(2L);
+            return read;
+        });
+        when(productRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.contains(1L) ? List.of(colored(1L, "Blue")) : List.of();
+        });
+
+        engine.rebuild();
+        assertTrue(engine.isReady());
+        ProductFacetsDTO facets = engine.facets(null, null, null, null, null, null);
+        assertEquals(1, facets.getTotal());
+        assertEquals(Map.of("Blue", 1), facets.getColors());
+    }
+
+    private static Product colored(Long id, String color) {
+        Product product = product(id, color + " tee");
+        product.setColor(color);
+        return product;
+    }
+
+    private static Product product(Long id, String title) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle(title);
+        return product;
+    }
+}
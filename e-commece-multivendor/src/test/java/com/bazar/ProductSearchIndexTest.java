@@ -0,0 +1,109 @@
+package com.bazar;
+
+import com.bazar.search.ProductSearchIndex;
+import com.bazar.search.ProductSearchIndex.Field;
+import com.bazar.search.SearchTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tokenization, ranking and removal in the in-memory product search index.
+ */
+class ProductSearchIndexTest {
+
+    @Test
+    void tokenizerNormalizesAndSplits() {
+        assertEquals(List.of("cafe", "noir", "shirt", "size", "9"), SearchTokenizer.tokenize("Café NOIR T-Shirt, size 9"));
+        assertTrue(SearchTokenizer.tokenize("  ").isEmpty());
+        assertTrue(SearchTokenizer.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.add(1L, document("Leather wallet", "Goes well with a linen shirt"));
+        index.add(2L, document("Linen shirt", "Breathable"));
+        index.add(3L, document("Wool scarf", null));
+
+        assertEquals(List.of(2L, 1L), index.search("linen shirt", 0, 10).productIds());
+        assertEquals(List.of(3L), index.search("scarf", 0, 10).productIds());
+        // Every token has to match somewhere
+        assertEquals(0, index.search("linen scarf", 0, 10).totalHits());
+    }
+
+    @Test
+    void prefixAndFuzzyMatches() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.add(1L, document("Linen shirt", null));
+        index.add(2L, document("Shirtdress", null));
+
+        // Equal prefix scores, so the most recently indexed comes first
+        assertEquals(List.of(2L, 1L), index.search("shir", 0, 10).productIds());
+        // The exact term outranks the longer word it prefixes
+        assertEquals(List.of(1L, 2L), index.search("shirt", 0, 10).productIds());
+        // One edit away, and no term starts with it
+        assertEquals(List.of(1L), index.search("linan", 0, 10).productIds());
+        assertEquals(0, index.search("lx", 0, 10).totalHits());
+    }
+
+    @Test
+    void tiesGoToTheMostRecentlyIndexedAndPagesAreStable() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.add(id, document("Canvas tote", null));
+        }
+        ProductSearchIndex.SearchHits first = index.search("tote", 0, 2);
+        ProductSearchIndex.SearchHits second = index.search("tote", 2, 2);
+        assertEquals(5, first.totalHits());
+        assertEquals(List.of(5L, 4L), first.productIds());
+        assertEquals(List.of(3L, 2L), second.productIds());
+        assertEquals(List.of(1L), index.search("tote", 4, 2).productIds());
+    }
+
+    @Test
+    void replaceAndRemoveDropOldTerms() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.add(1L, document("Red mug", null));
+        index.add(1L, document("Blue mug", null));
+        assertEquals(1, index.size());
+        assertEquals(0, index.search("red", 0, 10).totalHits());
+        assertEquals(List.of(1L), index.search("blue", 0, 10).productIds());
+
+        index.remove(1L);
+        index.remove(42L);
+        assertEquals(0, index.size());
+        assertEquals(0, index.search("mug", 0, 10).totalHits());
+
+        // A product without any indexable text is not a document
+        index.add(2L, document(null, "  "));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void compactionKeepsLiveDocuments() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (long id = 1; id <= 30_000; id++) {
+            index.add(id, document("Bulk item " + id, null));
+        }
+        // Enough deletes to trigger a purge of the posting lists
+        for (long id = 1; id <= 30_000; id += 2) {
+            index.remove(id);
+        }
+        assertEquals(15_000, index.size());
+        assertEquals(15_000, index.search("bulk", 0, 10).totalHits());
+        assertEquals(List.of(30_000L), index.search("30000", 0, 10).productIds());
+        assertEquals(0, index.search("29999", 0, 10).totalHits());
+    }
+
+    private static Map<Field, String> document(String title, String description) {
+        Map<Field, String> document = new EnumMap<>(Field.class);
+        document.put(Field.TITLE, title);
+        document.put(Field.DESCRIPTION, description);
+        return document;
+    }
+}
@@ -0,0 +1,88 @@
+package com.bazar;
+
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.ProductFacetEngine;
+import com.bazar.exceptions.ProductException;
+import com.bazar.model.Product;
+import com.bazar.repository.ProductRepository;
+import com.bazar.search.JpaSearchBackend;
+import com.bazar.service.EntitlementService;
+import com.bazar.service.ProductVariantService;
+import com.bazar.service.impl.InventoryServiceImpl;
+import com.bazar.service.impl.ProductServiceImpl;
+import com.bazar.storage.ImageStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Editing a product leaves its stock alone; only the stock endpoint sets it.
+ */
+@H2DataJpaTest
+@Import({ ProductServiceImpl.class, InventoryServiceImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductStockEditTest {
+
+    @Autowired
+    private ProductServiceImpl productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private CategoryTreeCache categoryTreeCache;
+
+    @MockBean
+    private JpaSearchBackend jpaSearchBackend;
+
+    @MockBean
+    private ProductFacetEngine facetEngine;
+
+    @MockBean
+    private ProductVariantService productVariantService;
+
+    @MockBean
+    private ImageStore imageStore;
+
+    @MockBean
+    private EntitlementService entitlementService;
+
+    @Test
+    void productEditsKeepStockSoldSinceTheRead() throws Exception {
+        when(imageStore.toReferences(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        Product product = new Product();
+        product.setTitle("Mug");
+        product.setQuantity(10);
+        product.setTrackInventory(true);
+        Long id = productRepository.save(product).getId();
+
+        // Three sold after the client loaded the product with quantity 10
+        jdbcTemplate.update("UPDATE product SET quantity = quantity - 3 WHERE id = ?", id);
+        Product edit = new Product();
+        edit.setTitle("Large mug");
+        edit.setTrackInventory(true);
+        edit.setQuantity(10);
+        productService.updateProduct(id, edit);
+        assertEquals(7, quantity(id));
+        assertEquals("Large mug", productRepository.findById(id).orElseThrow().getTitle());
+
+        productService.updateStock(id, 25);
+        assertEquals(25, quantity(id));
+        assertThrows(ProductException.class, () -> productService.updateStock(-1L, 5));
+    }
+
+    private int quantity(Long id) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM product WHERE id = ?", Integer.class, id);
+    }
+}
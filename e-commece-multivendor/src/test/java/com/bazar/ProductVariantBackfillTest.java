@@ -0,0 +1,92 @@
+package com.bazar;
+
+import com.bazar.exceptions.ProductException;
+import com.bazar.model.Cart;
+import com.bazar.model.CartItem;
+import com.bazar.model.Product;
+import com.bazar.model.ProductVariant;
+import com.bazar.repository.CartItemRepository;
+import com.bazar.repository.CartRepository;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.ProductVariantRepository;
+import com.bazar.service.impl.ProductVariantServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The variant backfill creates one variant per size and links older cart lines to them, and an unknown
+ * size is a product error rather than a server error.
+ */
+@H2DataJpaTest
+@Import(ProductVariantServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductVariantBackfillTest {
+
+    @Autowired
+    private ProductVariantServiceImpl variantService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Test
+    void backfillLinksCartLinesBySize() throws Exception {
+        Product shirt = product("Shirt", "S, M");
+        Product mug = product("Mug", null);
+        Cart cart = cartRepository.save(new Cart());
+        CartItem medium = cartItem(cart, shirt, " m ");
+        CartItem extraLarge = cartItem(cart, shirt, "XL");
+        CartItem oneSize = cartItem(cart, mug, "");
+
+        variantService.backfillVariants();
+
+        Map<String, ProductVariant> shirtVariants = variantRepository.findByProductId(shirt.getId()).stream()
+                .collect(Collectors.toMap(ProductVariant::getSize, variant -> variant));
+        assertEquals(2, shirtVariants.size());
+        ProductVariant mugVariant = variantRepository.findByProductId(mug.getId()).get(0);
+        assertNull(mugVariant.getSize());
+
+        assertEquals(shirtVariants.get("M").getId(), variantId(medium));
+        assertNull(variantId(extraLarge));
+        assertEquals(mugVariant.getId(), variantId(oneSize));
+
+        assertEquals("S", variantService.resolveVariant(shirt, "s").getSize());
+        assertThrows(ProductException.class, () -> variantService.resolveVariant(shirt, "XL"));
+    }
+
+    private Long variantId(CartItem item) {
+        ProductVariant variant = cartItemRepository.findById(item.getId()).orElseThrow().getVariant();
+        return variant != null ? variant.getId() : null;
+    }
+
+    private Product product(String title, String sizes) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setSizes(sizes);
+        return productRepository.save(product);
+    }
+
+    private CartItem cartItem(Cart cart, Product product, String size) {
+        CartItem item = new CartItem();
+        item.setCart(cart);
+        item.setProduct(product);
+        item.setSize(size);
+        return cartItemRepository.save(item);
+    }
+}
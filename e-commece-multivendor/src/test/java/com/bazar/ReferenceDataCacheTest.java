@@ -0,0 +1,98 @@
+package com.bazar;
+
+import com.bazar.config.LocalCacheRegionFactory;
+import com.bazar.domain.PlanType;
+import com.bazar.model.Category;
+import com.bazar.model.Coupon;
+import com.bazar.model.SubscriptionPlan;
+import com.bazar.repository.CategoryRepository;
+import com.bazar.repository.CouponRepository;
+import com.bazar.repository.SubscriptionPlanRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plans, categories and coupons looked up by their natural keys come from the second-level and query
+ * caches, and a write through Hibernate is seen by the next lookup.
+ */
+@H2DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.local.coupon.ttl=1h"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private SubscriptionPlanRepository planRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void naturalKeyLookupsAreServedFromCache() {
+        planRepository.findByPlanType(PlanType.PRO).orElseGet(() -> planRepository.save(
+                SubscriptionPlan.builder().planType(PlanType.PRO).name("PRO").build()));
+        Category category = new Category();
+        category.setCategoryId("cached_men");
+        category.setName("Men");
+        category.setLevel(1);
+        categoryRepository.save(category);
+
+        // First lookups load and cache
+        assertTrue(planRepository.findByPlanType(PlanType.PRO).isPresent());
+        assertNotNull(categoryRepository.findByCategoryId("cached_men"));
+
+        Statistics statistics = sessionFactory().getStatistics();
+        statistics.clear();
+        assertEquals("PRO", planRepository.findByPlanType(PlanType.PRO).orElseThrow().getName());
+        assertEquals("Men", categoryRepository.findByCategoryId("cached_men").getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        LocalCacheRegionFactory.RegionStats plans = region("subscription-plan");
+        assertTrue(plans.hits() > 0);
+        assertTrue(region("default-query-results-region").hits() >= 2);
+    }
+
+    @Test
+    void writesInvalidateCachedLookups() {
+        Coupon coupon = new Coupon();
+        coupon.setCode("CACHED10");
+        coupon.setDiscountPercentage(10.0);
+        couponRepository.save(coupon);
+        assertEquals(10.0, couponRepository.findByCode("CACHED10").getDiscountPercentage());
+
+        Coupon changed = couponRepository.findByCode("CACHED10");
+        changed.setDiscountPercentage(20.0);
+        couponRepository.save(changed);
+        assertEquals(20.0, couponRepository.findByCode("CACHED10").getDiscountPercentage());
+
+        couponRepository.delete(changed);
+        assertNull(couponRepository.findByCode("CACHED10"));
+        assertEquals(Duration.ofHours(1), region("coupon").ttl());
+    }
+
+    private LocalCacheRegionFactory.RegionStats region(String name) {
+        LocalCacheRegionFactory regionFactory =
+                (LocalCacheRegionFactory) sessionFactory().getCache().getRegionFactory();
+        return regionFactory.stats().stream().filter(stats -> stats.region().equals(name)).findFirst().orElseThrow();
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+}
@@ -0,0 +1,144 @@
+package com.bazar;
+
+import com.bazar.exceptions.BadRequestException;
+import com.bazar.model.Product;
+import com.bazar.model.Review;
+import com.bazar.model.User;
+import com.bazar.response.CursorPage;
+import com.bazar.response.ReviewDTO;
+import com.bazar.service.impl.ReviewServiceImpl;
+import com.bazar.storage.ImageStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The review feed walks (rating or created_at, id) in every sort mode, filters by star bucket and images,
+ * and keeps its place across ties.
+ */
+@H2DataJpaTest
+@Import(ReviewServiceImpl.class)
+class ReviewFeedTest {
+
+    @Autowired
+    private ReviewServiceImpl reviewService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ImageStore imageStore;
+
+    @Test
+    void everySortModeWalksTiesWithoutGapsOrRepeats() {
+        Product product = product();
+        LocalDateTime noon = LocalDateTime.now().withHour(12).withNano(0);
+        // Three reviews share rating 4.0 and two share a timestamp, so pages of two split both ties
+        Review a = review(product, 4.0, noon.minusDays(3));
+        Review b = review(product, 4.0, noon.minusDays(1));
+        Review c = review(product, 4.0, noon.minusDays(1));
+        Review d = review(product, 1.0, noon.minusDays(2));
+        Review e = review(product, 5.0, noon);
+        review(product(), 5.0, noon);
+        entityManager.clear();
+
+        assertEquals(ids(e, c, b, d, a), walk(product.getId(), "newest", null));
+        assertEquals(ids(e, c, b, a, d), walk(product.getId(), "highest", null));
+        assertEquals(ids(d, a, b, c, e), walk(product.getId(), "lowest", null));
+        // An unknown sort falls back to newest
+        assertEquals(ids(e, c, b, d, a), walk(product.getId(), "bogus", null));
+    }
+
+    @Test
+    void starBucketsAndImagesFilterTheFeed() {
+        Product product = product();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Review low = review(product, 1.2, now.minusMinutes(5));
+        Review four = review(product, 3.5, now.minusMinutes(4));
+        Review fourHigh = review(product, 4.4, now.minusMinutes(3));
+        Review five = review(product, 4.5, now.minusMinutes(2), "a.jpg", "b.jpg");
+        Review three = review(product, 3.0, now.minusMinutes(1), "c.jpg");
+        entityManager.clear();
+
+        // Same buckets as the product star histogram: [3.5, 4.5) is four stars
+        assertEquals(ids(fourHigh, four), walk(product.getId(), "newest", List.of(4)));
+        assertEquals(ids(five, low), walk(product.getId(), "newest", List.of(1, 5)));
+        // Out-of-range stars are ignored rather than matching nothing
+        assertEquals(5, walk(product.getId(), "newest", List.of(0, 9)).size());
+        assertEquals(ids(three, five), walk(product.getId(), "with_images", null));
+        assertEquals(ids(three), walk(product.getId(), "with_images", List.of(3)));
+
+        ReviewDTO withImages = reviewService.getReviewFeed(product.getId(), "with_images", null, null, 1)
+                .getContent().get(0);
+        assertEquals(List.of("c.jpg"), withImages.getProductImages());
+        assertEquals("Reviewer", withImages.getReviewer().getName());
+    }
+
+    @Test
+    void badCursorsAreRejected() {
+        Product product = product();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        review(product, 2.0, now.minusMinutes(1));
+        review(product, 3.0, now);
+        entityManager.clear();
+
+        String ratingCursor = reviewService.getReviewFeed(product.getId(), "highest", null, null, 1).getNextCursor();
+        assertNotNull(ratingCursor);
+        assertThrows(BadRequestException.class,
+                () -> reviewService.getReviewFeed(product.getId(), "newest", null, "not-a-cursor", 1));
+        // A rating cursor means nothing to the newest-first order
+        assertThrows(BadRequestException.class,
+                () -> reviewService.getReviewFeed(product.getId(), "newest", null, ratingCursor, 1));
+    }
+
+    private List<Long> walk(Long productId, String sort, List<Integer> stars) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ReviewDTO> page = reviewService.getReviewFeed(productId, sort, stars, cursor, 2);
+            page.getContent().forEach(review -> ids.add(review.getId()));
+            assertEquals(page.isHasNext(), page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static List<Long> ids(Review... reviews) {
+        List<Long> ids = new ArrayList<>();
+        for (Review review : reviews) {
+            ids.add(review.getId());
+        }
+        return ids;
+    }
+
+    private Product product() {
+        Product product = new Product();
+        product.setTitle("Mug");
+        return entityManager.persist(product);
+    }
+
+    private Review review(Product product, double rating, LocalDateTime createdAt, String... images) {
+        User user = new User();
+        user.setEmail("reviewer" + System.nanoTime() + "@bazar.test");
+        user.setFullName("Reviewer");
+        entityManager.persist(user);
+        Review review = new Review();
+        review.setProduct(product);
+        review.setUser(user);
+        review.setReviewText("Fine");
+        review.setRating(rating);
+        review.setCreatedAt(createdAt);
+        review.setProductImages(new ArrayList<>(List.of(images)));
+        entityManager.persist(review);
+        entityManager.flush();
+        return review;
+    }
+}
@@ -0,0 +1,169 @@
+package com.bazar;
+
+import com.bazar.catalog.CategoryTreeCache;
+import com.bazar.catalog.ProductFacetEngine;
+import com.bazar.model.Product;
+import com.bazar.model.Review;
+import com.bazar.model.User;
+import com.bazar.repository.ProductRepository;
+import com.bazar.repository.ReviewRepository;
+import com.bazar.repository.UserRepository;
+import com.bazar.request.CreateReviewRequest;
+import com.bazar.response.ProductCardDTO;
+import com.bazar.search.JpaSearchBackend;
+import com.bazar.service.EntitlementService;
+import com.bazar.service.ProductVariantService;
+import com.bazar.service.impl.InventoryServiceImpl;
+import com.bazar.service.impl.ProductServiceImpl;
+import com.bazar.service.impl.ReviewServiceImpl;
+import com.bazar.storage.ImageStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Creating, re-rating and deleting reviews keeps the product's count, sum, average and star histogram in
+ * step, products that predate the aggregates are rebuilt, and the "rating" sort reads them.
+ */
+@H2DataJpaTest
+@Import({ ReviewServiceImpl.class, ProductServiceImpl.class, InventoryServiceImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReviewRatingTest {
+
+    @Autowired
+    private ReviewServiceImpl reviewService;
+
+    @Autowired
+    private ProductServiceImpl productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private CategoryTreeCache categoryTreeCache;
+
+    @MockBean
+    private JpaSearchBackend jpaSearchBackend;
+
+    @MockBean
+    private ProductFacetEngine facetEngine;
+
+    @MockBean
+    private ProductVariantService productVariantService;
+
+    @MockBean
+    private ImageStore imageStore;
+
+    @MockBean
+    private EntitlementService entitlementService;
+
+    @Test
+    void aggregatesFollowEveryReviewChange() throws Exception {
+        Product mug = product("Mug");
+        User alice = user("alice@bazar.test");
+        User bob = user("bob@bazar.test");
+
+        Review fromAlice = reviewService.createReview(request(5), alice, mug);
+        Review fromBob = reviewService.createReview(request(3), bob, mug);
+        assertAggregates(mug, 2, 8, 4.0, 0, 0, 1, 0, 1);
+
+        // 3 -> 4 moves the review from the three-star to the four-star bucket
+        reviewService.updateReview(fromBob.getId(), "Better", 4, null, bob.getId());
+        assertAggregates(mug, 2, 9, 4.5, 0, 0, 0, 1, 1);
+        // Same rating, only the text changes
+        reviewService.updateReview(fromBob.getId(), "Still good", 4, null, bob.getId());
+        assertAggregates(mug, 2, 9, 4.5, 0, 0, 0, 1, 1);
+
+        reviewService.deleteReview(fromAlice.getId(), alice.getId());
+        assertAggregates(mug, 1, 4, 4.0, 0, 0, 0, 1, 0);
+        // The last review gone: back to zero instead of 0 / 0
+        reviewService.deleteReview(fromBob.getId(), bob.getId());
+        assertAggregates(mug, 0, 0, 0.0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    void staleProductsAreRebuiltAndSortByRating() throws Exception {
+        Product legacy = product("Legacy lamp");
+        Product rated = product("Rated lamp");
+        Product unrated = product("Unrated lamp");
+        // Reviews written before the aggregates existed: the product still says zero
+        legacyReview(legacy, user("carol@bazar.test"), 4.0);
+        legacyReview(legacy, user("dave@bazar.test"), 1.0);
+        reviewService.createReview(request(5), user("erin@bazar.test"), rated);
+        reviewService.createReview(request(5), user("frank@bazar.test"), rated);
+        assertAggregates(legacy, 0, 0, 0.0, 0, 0, 0, 0, 0);
+
+        Integer rebuilt = new TransactionTemplate(transactionManager)
+                .execute(status -> productRepository.recomputeStaleRatingAggregates());
+        // Only the out-of-step product is touched
+        assertEquals(1, rebuilt);
+        assertAggregates(legacy, 2, 5, 2.5, 1, 0, 0, 1, 0);
+        assertAggregates(rated, 2, 10, 5.0, 0, 0, 0, 0, 2);
+
+        Product single = product("Single lamp");
+        reviewService.createReview(request(5), user("grace@bazar.test"), single);
+        List<String> titles = productService.getAllProducts(null, null, null, null, null, null, null, "rating",
+                null, 0, 10).getContent().stream().map(ProductCardDTO::getTitle)
+                .filter(title -> title.endsWith("lamp")).toList();
+        // Equal averages go to the product with more ratings
+        assertEquals(List.of("Rated lamp", "Single lamp", "Legacy lamp", "Unrated lamp"), titles);
+        assertEquals(0, productRepository.findById(unrated.getId()).orElseThrow().getNumRatings());
+    }
+
+    private void assertAggregates(Product product, int count, double sum, double average, int one, int two,
+            int three, int four, int five) {
+        Product current = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(count, current.getNumRatings());
+        assertEquals(sum, current.getRatingSum(), 1e-9);
+        assertEquals(average, current.getAverageRating(), 1e-9);
+        assertEquals(List.of(one, two, three, four, five), List.of(current.getOneStarCount(),
+                current.getTwoStarCount(), current.getThreeStarCount(), current.getFourStarCount(),
+                current.getFiveStarCount()));
+    }
+
+    private Product product(String title) {
+        Product product = new Product();
+        product.setTitle(title);
+        return productRepository.save(product);
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        return userRepository.save(user);
+    }
+
+    private void legacyReview(Product product, User user, double rating) {
+        Review review = new Review();
+        review.setProduct(product);
+        review.setUser(user);
+        review.setReviewText("Old");
+        review.setRating(rating);
+        reviewRepository.save(review);
+    }
+
+    private static CreateReviewRequest request(double rating) {
+        CreateReviewRequest request = new CreateReviewRequest();
+        request.setReviewText("Nice");
+        request.setReviewRating(rating);
+        return request;
+    }
+}
@@ -0,0 +1,121 @@
+package com.bazar;
+
+import com.bazar.analytics.AnalyticsRange;
+import com.bazar.analytics.SellerAnalytics;
+import com.bazar.domain.OrderStatus;
+import com.bazar.model.*;
+import com.bazar.response.TopSellingProductDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rollups follow order status changes exactly once and answer top products per time range.
+ */
+@H2DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(SellerAnalytics.class)
+class SellerAnalyticsTest {
+
+    @Autowired
+    private SellerAnalytics sellerAnalytics;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void statusChangesAreCountedOnce() {
+        Seller seller = entityManager.persist(Fixtures.seller());
+        Product mug = product(seller, "Mug");
+        Order order = order(seller, LocalDateTime.now(), mug, 3, 100);
+
+        sellerAnalytics.record(List.of(order.getId()), OrderStatus.CONFIRMED);
+        // A replayed confirmation and a later shipment do not count the sale again
+        sellerAnalytics.record(List.of(order.getId()), OrderStatus.CONFIRMED);
+        sellerAnalytics.record(List.of(order.getId()), OrderStatus.SHIPPED);
+        TopSellingProductDTO top = sellerAnalytics.topProducts(seller.getId(), AnalyticsRange.ALL, 5).get(0);
+        assertEquals(3L, top.getTotalSales());
+        assertEquals(300L, top.getRevenue());
+        assertEquals(1, top.getOrderCount());
+        assertEquals("Mug", top.getProductName());
+
+        sellerAnalytics.record(List.of(order.getId()), OrderStatus.DELIVERED);
+        SellerProductDaily day = entityManager.getEntityManager()
+                .createQuery("SELECT r FROM SellerProductDaily r", SellerProductDaily.class).getSingleResult();
+        entityManager.refresh(day);
+        assertEquals(3L, day.getUnitsSold());
+        assertEquals(3L, day.getUnitsDelivered());
+
+        sellerAnalytics.record(List.of(order.getId()), OrderStatus.CANCELLED);
+        sellerAnalytics.record(List.of(order.getId()), OrderStatus.CANCELLED);
+        assertTrue(sellerAnalytics.topProducts(seller.getId(), AnalyticsRange.ALL, 5).isEmpty());
+    }
+
+    @Test
+    void topProductsByRange() {
+        Seller seller = entityManager.persist(Fixtures.seller());
+        Product recent = product(seller, "Recent", "recent.jpg");
+        Product old = product(seller, "Old", "old-front.jpg", "old-back.jpg");
+        Product plain = product(seller, "Plain");
+        Order thisWeek = order(seller, LocalDateTime.now().minusDays(2), recent, 1, 50);
+        Order lastMonth = order(seller, LocalDateTime.now().minusDays(40), old, 2, 500);
+        Order plainOrder = order(seller, LocalDateTime.now().minusDays(3), plain, 1, 10);
+        sellerAnalytics.record(List.of(thisWeek.getId(), lastMonth.getId(), plainOrder.getId()),
+                OrderStatus.CONFIRMED);
+        entityManager.clear();
+
+        List<TopSellingProductDTO> week = sellerAnalytics.topProducts(seller.getId(), AnalyticsRange.LAST_7_DAYS, 5);
+        assertEquals(List.of(recent.getId(), plain.getId()),
+                week.stream().map(TopSellingProductDTO::getProductId).toList());
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        List<TopSellingProductDTO> quarter = sellerAnalytics.topProducts(seller.getId(), AnalyticsRange.LAST_90_DAYS, 5);
+        // Rollups, products, their seller, their images: no query per product
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        assertEquals(List.of(old.getId(), recent.getId(), plain.getId()),
+                quarter.stream().map(TopSellingProductDTO::getProductId).toList());
+        assertEquals(1000L, quarter.get(0).getRevenue());
+        assertTrue(List.of("old-front.jpg", "old-back.jpg").contains(quarter.get(0).getProductImage()));
+        assertEquals("recent.jpg", quarter.get(1).getProductImage());
+        assertNull(quarter.get(2).getProductImage());
+
+        assertEquals(1, sellerAnalytics.topProducts(seller.getId(), AnalyticsRange.LAST_90_DAYS, 1).size());
+    }
+
+    private Product product(Seller seller, String title, String... images) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setSeller(seller);
+        product.getImages().addAll(List.of(images));
+        return entityManager.persist(product);
+    }
+
+    private Order order(Seller seller, LocalDateTime placed, Product product, int quantity, int price) {
+        Order order = new Order();
+        order.setSellerId(seller.getId());
+        order.setOrderDate(placed);
+        order.setOrderStatus(OrderStatus.PENDING);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setSellingPrice(price);
+        order.getOrderItems().add(item);
+        entityManager.persist(order);
+        entityManager.flush();
+        return order;
+    }
+}
@@ -0,0 +1,142 @@
+package com.bazar;
+
+import com.bazar.analytics.OrderEventLog;
+import com.bazar.analytics.SellerReportProjector;
+import com.bazar.analytics.SellerReportRebuild;
+import com.bazar.domain.OrderEventType;
+import com.bazar.domain.OrderStatus;
+import com.bazar.domain.PaymentStatus;
+import com.bazar.model.Order;
+import com.bazar.model.OrderItem;
+import com.bazar.model.Seller;
+import com.bazar.model.SellerReport;
+import com.bazar.repository.OrderRepository;
+import com.bazar.repository.SellerReportRepository;
+import com.bazar.repository.SellerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Seller reports follow the order events exactly once, also under concurrency, and can be rebuilt from the orders.
+ */
+@H2DataJpaTest
+@Import({ OrderEventLog.class, SellerReportProjector.class, SellerReportRebuild.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SellerReportProjectorTest {
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private SellerReportRebuild sellerReportRebuild;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SellerReportRepository reportRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentPaymentsAreAllCounted() throws Exception {
+        Seller seller = sellerRepository.save(Fixtures.seller());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ids.add(order(seller, 100, 2, OrderStatus.PENDING, PaymentStatus.PENDING).getId());
+        }
+        // First payment creates the report, the rest race on it and are each delivered twice
+        orderEventLog.publish(ids.subList(0, 1), OrderEventType.PAID);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long id : ids) {
+                futures.add(pool.submit(() -> orderEventLog.publish(List.of(id), OrderEventType.PAID)));
+                futures.add(pool.submit(() -> orderEventLog.publish(List.of(id), OrderEventType.PAID)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        SellerReport report = reportRepository.findBySellerId(seller.getId());
+        assertEquals(40, report.getTotalOrders());
+        assertEquals(40, report.getTotalTransactions());
+        assertEquals(4000L, report.getTotalEarnings());
+        assertEquals(80L, report.getTotalSales());
+        assertEquals(4000L, report.getNetEarnings());
+    }
+
+    @Test
+    void cancellingPaidOrderRefundsOnce() {
+        Seller seller = sellerRepository.save(Fixtures.seller());
+        Order paid = order(seller, 250, 1, OrderStatus.CONFIRMED, PaymentStatus.COMPLETED);
+        Order unpaid = order(seller, 70, 1, OrderStatus.PENDING, PaymentStatus.PENDING);
+        orderEventLog.publish(List.of(paid.getId()), OrderEventType.PAID);
+        orderEventLog.publish(List.of(paid.getId()), OrderEventType.CANCELLED, OrderEventType.REFUNDED);
+        orderEventLog.publish(List.of(paid.getId()), OrderEventType.CANCELLED, OrderEventType.REFUNDED);
+        orderEventLog.publish(List.of(unpaid.getId()), OrderEventType.CANCELLED);
+
+        SellerReport report = reportRepository.findBySellerId(seller.getId());
+        assertEquals(2, report.getCancelledOrders());
+        assertEquals(250L, report.getTotalRefunds());
+        assertEquals(250L, report.getTotalEarnings());
+        assertEquals(0L, report.getNetEarnings());
+    }
+
+    @Test
+    void rebuildReconcilesWithOrders() {
+        Seller seller = sellerRepository.save(Fixtures.seller());
+        order(seller, 100, 1, OrderStatus.CONFIRMED, PaymentStatus.COMPLETED);
+        order(seller, 40, 3, OrderStatus.DELIVERED, PaymentStatus.PENDING);
+        order(seller, 60, 1, OrderStatus.CANCELLED, PaymentStatus.COMPLETED);
+        order(seller, 10, 1, OrderStatus.PENDING, PaymentStatus.PENDING);
+
+        sellerReportRebuild.rebuild();
+        // Counters drifted by hand are put back, and a second rebuild adds nothing
+        jdbcTemplate.update("UPDATE seller_report SET total_orders = 99, total_refunds = 5 WHERE seller_id = ?",
+                seller.getId());
+        assertEquals(0, sellerReportRebuild.rebuild());
+
+        SellerReport report = reportRepository.findBySellerId(seller.getId());
+        assertEquals(3, report.getTotalOrders());
+        assertEquals(200L, report.getTotalEarnings());
+        assertEquals(5L, report.getTotalSales());
+        assertEquals(1, report.getCancelledOrders());
+        assertEquals(60L, report.getTotalRefunds());
+        assertEquals(140L, report.getNetEarnings());
+    }
+
+    private Order order(Seller seller, int total, int lines, OrderStatus status, PaymentStatus paymentStatus) {
+        Order order = new Order();
+        order.setSellerId(seller.getId());
+        order.setTotalSellingPrice(total);
+        order.setOrderStatus(status);
+        order.setPaymentStatus(paymentStatus);
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setQuantity(1);
+            order.getOrderItems().add(item);
+        }
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bazar;
+
+import com.bazar.config.PrincipalCache;
+import com.bazar.domain.PlanType;
+import com.bazar.model.Seller;
+import com.bazar.model.SellerSubscription;
+import com.bazar.model.SubscriptionPlan;
+import com.bazar.repository.SellerRepository;
+import com.bazar.repository.SellerSubscriptionRepository;
+import com.bazar.repository.SubscriptionPlanRepository;
+import com.bazar.scheduler.SchedulerLease;
+import com.bazar.scheduler.SubscriptionScheduler;
+import com.bazar.service.impl.EntitlementServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Expired paid subscriptions are downgraded in chunks, and the lease lets one runner in at a time.
+ */
+@H2DataJpaTest(properties = {
+        "subscription.expiry.batch-size=2"
+})
+@Import({ SubscriptionScheduler.class, SchedulerLease.class, PrincipalCache.class, EntitlementServiceImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SubscriptionExpiryTest {
+
+    @Autowired
+    private SubscriptionScheduler scheduler;
+
+    @Autowired
+    private SchedulerLease lease;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private SellerSubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SubscriptionPlanRepository planRepository;
+
+    @Test
+    void expiredPaidSubscriptionsAreDowngradedInChunks() {
+        SubscriptionPlan free = plan(PlanType.FREE);
+        SubscriptionPlan pro = plan(PlanType.PRO);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 5; i++) {
+            subscription(pro, today.minusDays(i + 1));
+        }
+        SellerSubscription current = subscription(pro, today.plusDays(10));
+        SellerSubscription expiredFree = subscription(free, today.minusDays(3));
+
+        assertEquals(5, scheduler.downgradeExpired());
+        assertEquals(0, scheduler.downgradeExpired());
+
+        assertEquals(PlanType.PRO, subscriptionRepository.findById(current.getId()).orElseThrow().getPlanType());
+        assertEquals(today.minusDays(3), subscriptionRepository.findById(expiredFree.getId()).orElseThrow().getEndDate());
+        long downgraded = subscriptionRepository.findAll().stream()
+                .filter(s -> s.getPlanType() == PlanType.FREE && today.equals(s.getStartDate()))
+                .count();
+        assertEquals(5, downgraded);
+        SubscriptionScheduler.ExpiryStats stats = scheduler.stats();
+        assertEquals(5, stats.scanned());
+        assertEquals(5, stats.downgraded());
+        assertEquals(2, stats.runs());
+    }
+
+    @Test
+    void leaseAdmitsOneRunnerAtATime() {
+        AtomicBoolean nestedRan = new AtomicBoolean();
+        boolean ran = lease.runExclusively("test-job", Duration.ofMinutes(5), Duration.ZERO, () ->
+                nestedRan.set(lease.runExclusively("test-job", Duration.ofMinutes(5), Duration.ZERO, () -> { })));
+        assertTrue(ran);
+        assertFalse(nestedRan.get());
+
+        // Released once done, unless it must be held for a minimum time
+        assertTrue(lease.runExclusively("test-job", Duration.ofMinutes(5), Duration.ofMinutes(1), () -> { }));
+        assertFalse(lease.runExclusively("test-job", Duration.ofMinutes(5), Duration.ZERO, () -> { }));
+    }
+
+    private SubscriptionPlan plan(PlanType type) {
+        return planRepository.findByPlanType(type)
+                .orElseGet(() -> planRepository.save(SubscriptionPlan.builder().planType(type).name(type.name()).build()));
+    }
+
+    private SellerSubscription subscription(SubscriptionPlan plan, LocalDate endDate) {
+        Seller seller = sellerRepository.save(Fixtures.seller());
+        return subscriptionRepository.save(SellerSubscription.builder()
+                .seller(seller)
+                .plan(plan)
+                .planType(plan.getPlanType())
+                .startDate(endDate.minusMonths(1))
+                .endDate(endDate)
+                .build());
+    }
+}
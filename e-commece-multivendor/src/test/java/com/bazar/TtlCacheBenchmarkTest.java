@@ -0,0 +1,121 @@
+package com.bazar;
+
+import com.bazar.utils.TtlCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache hits per second on a warm cache, TtlCache vs the synchronized access-ordered LinkedHashMap it
+ * replaced, as the token and principal caches see it: every request thread reads, few write.
+ * Opt-in: {@code mvn test -Dtest=TtlCacheBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TtlCacheBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TtlCacheBenchmarkTest.class);
+
+    private static final int KEYS = 1_000;
+    private static final int READS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void hitsPerSecond() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        double[] synchronizedRates = new double[2];
+        double[] concurrentRates = new double[2];
+        int[] threadCounts = { 1, cores * 2 };
+        for (int t = 0; t < threadCounts.length; t++) {
+            int threads = threadCounts[t];
+            SynchronizedLru<Integer, Integer> lru = new SynchronizedLru<>(KEYS);
+            TtlCache<Integer, Integer> ttlCache = new TtlCache<>(KEYS, Duration.ofMinutes(10));
+            for (int i = 0; i < KEYS; i++) {
+                lru.put(i, i);
+                ttlCache.put(i, i);
+            }
+            synchronizedRates[t] = best(threads, lru::get);
+            concurrentRates[t] = best(threads, ttlCache::get);
+            logger.info(String.format("threads=%3d  synchronized LRU %8.2f M hits/s  TtlCache %8.2f M hits/s",
+                    threads, synchronizedRates[t] / 1e6, concurrentRates[t] / 1e6));
+        }
+        if (cores > 1) {
+            // Every synchronized read also moves the entry to the tail, so threads queue on one monitor
+            assertTrue(concurrentRates[1] > synchronizedRates[1],
+                    "TtlCache does not outscale the synchronized map under concurrent reads");
+        }
+    }
+
+    private static double best(int threads, Function<Integer, Integer> get) throws Exception {
+        double best = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.max(best, run(threads, get));
+        }
+        return best;
+    }
+
+    private static double run(int threads, Function<Integer, Integer> get) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            int seed = i;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int n = 0; n < READS; n++) {
+                    if (get.apply((n * 31 + seed) % KEYS) == null) {
+                        throw new IllegalStateException("miss on a warm cache");
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return (double) threads * READS * 1e9 / elapsed;
+    }
+
+    // The previous TtlCache: one access-ordered map with the same expiry check, behind one lock
+    private static class SynchronizedLru<K, V> {
+        private record Entry<V>(V value, long expiresAt) {
+        }
+
+        private final LinkedHashMap<K, Entry<V>> entries;
+
+        SynchronizedLru(int maxSize) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null || entry.expiresAt - System.nanoTime() <= 0) {
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(K key, V value) {
+            entries.put(key, new Entry<>(value, System.nanoTime() + TimeUnit.MINUTES.toNanos(10)));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.bazar;
+
+import com.bazar.utils.TtlCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Expiry, the approximate size bound and concurrent use of the TTL cache.
+ */
+class TtlCacheTest {
+
+    @Test
+    void entriesExpireAfterTheirTtl() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<>(10, Duration.ofMillis(50));
+        cache.put("long", "a");
+        cache.put("short", "b", Duration.ofMillis(1));
+        // A longer TTL than the default is capped to it
+        cache.put("capped", "c", Duration.ofHours(1));
+        Thread.sleep(10);
+        assertEquals("a", cache.get("long"));
+        assertNull(cache.get("short"));
+        Thread.sleep(60);
+        assertNull(cache.get("long"));
+        assertNull(cache.get("capped"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void overflowEvictsTheLeastRecentlyRead() throws Exception {
+        TtlCache<Integer, Integer> cache = new TtlCache<>(10, Duration.ofMinutes(1));
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        // Reads are recorded at a coarse resolution, so wait past it before touching the keys to keep
+        Thread.sleep(150);
+        for (int i = 5; i < 10; i++) {
+            assertEquals(i, cache.get(i));
+        }
+        cache.put(10, 10);
+        // Swept back to 90%: two of the unread keys go
+        assertEquals(9, cache.size());
+        int unread = 0;
+        for (int i = 0; i < 5; i++) {
+            unread += cache.get(i) != null ? 1 : 0;
+        }
+        assertEquals(3, unread);
+        for (int i = 5; i <= 10; i++) {
+            assertEquals(i, cache.get(i));
+        }
+    }
+
+    @Test
+    void invalidationAndLoading() {
+        TtlCache<String, Integer> cache = new TtlCache<>(10, Duration.ofMinutes(1));
+        assertEquals(3, cache.computeIfAbsent("abc", String::length));
+        assertEquals(3, cache.computeIfAbsent("abc", key -> fail("loaded twice")));
+        assertNull(cache.computeIfAbsent("none", key -> null));
+        cache.put("abcd", 4);
+        cache.put("abcde", 5);
+        cache.invalidateIf(value -> value % 2 == 1);
+        assertNull(cache.get("abc"));
+        assertEquals(4, cache.get("abcd"));
+        cache.invalidate("abcd");
+        assertEquals(0, cache.size());
+        cache.put("x", 1);
+        cache.invalidateAll();
+        assertNull(cache.get("x"));
+    }
+
+    @Test
+    void concurrentWritersKeepTheBound() throws Exception {
+        TtlCache<Integer, Integer> cache = new TtlCache<>(1000, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 100_000;
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    cache.put(offset + i, i);
+                    Integer value = cache.get(offset + i / 2);
+                    if (value != null) {
+                        assertEquals(i / 2, value);
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        assertTrue(cache.size() <= 1000, "size " + cache.size());
+    }
+}
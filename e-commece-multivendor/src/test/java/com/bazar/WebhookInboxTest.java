@@ -0,0 +1,87 @@
+package com.bazar;
+
+import com.bazar.domain.WebhookStatus;
+import com.bazar.model.WebhookEvent;
+import com.bazar.repository.WebhookEventRepository;
+import com.bazar.webhook.StripeEventHandler;
+import com.bazar.webhook.WebhookInbox;
+import com.stripe.model.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Stripe events are stored once per event id and applied once; failing events are retried and parked.
+ */
+@H2DataJpaTest(properties = {
+        "stripe.webhook.max-attempts=3",
+        "stripe.webhook.initial-backoff=0s"
+})
+@Import(WebhookInbox.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WebhookInboxTest {
+
+    @Autowired
+    private WebhookInbox webhookInbox;
+
+    @Autowired
+    private WebhookEventRepository repository;
+
+    @MockBean
+    private StripeEventHandler handler;
+
+    @BeforeEach
+    void reset() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void redeliveredEventIsAppliedOnce() throws Exception {
+        assertTrue(webhookInbox.receive("evt_1", "checkout.session.completed", payload("evt_1")));
+        assertFalse(webhookInbox.receive("evt_1", "checkout.session.completed", payload("evt_1")));
+
+        awaitTrue(() -> repository.countByStatus(WebhookStatus.PROCESSED) == 1);
+        assertEquals(1, repository.count());
+        verify(handler, times(1)).handle(any(Event.class));
+
+        // Also after processing, a late redelivery is still recognised
+        assertFalse(webhookInbox.receive("evt_1", "checkout.session.completed", payload("evt_1")));
+    }
+
+    @Test
+    void failingEventIsRetriedThenParked() throws Exception {
+        doThrow(new IllegalStateException("boom")).when(handler).handle(any(Event.class));
+        webhookInbox.receive("evt_2", "checkout.session.completed", payload("evt_2"));
+
+        awaitTrue(() -> {
+            webhookInbox.wake();
+            return repository.countByStatus(WebhookStatus.FAILED) == 1;
+        });
+        WebhookEvent event = repository.findById("evt_2").orElseThrow();
+        assertEquals(3, event.getAttempts());
+        assertEquals("boom", event.getLastError());
+        verify(handler, times(3)).handle(any(Event.class));
+    }
+
+    private static String payload(String id) {
+        return "{\"id\":\"" + id + "\",\"object\":\"event\",\"type\":\"checkout.session.completed\"}";
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(50);
+        }
+    }
+}